@@ -0,0 +1,90 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.security.SignatureUtil;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds synthetic chains for the benchmarks. Blocks are accepted through
+ * {@link Blockchain#acceptBlock(Block)} at difficulty 0, so no mining is needed.
+ */
+public final class BenchmarkChains {
+
+    public static final int USERS = 64;
+    private static final long STEADY_GENERATE_SECONDS = 30;
+
+    private BenchmarkChains() { }
+
+    /**
+     * Drops the current {@link Blockchain} singleton and creates a fresh one.
+     */
+    public static Blockchain newBlockchain(int chainSize) {
+        try {
+            Field instance = Blockchain.class.getDeclaredField("blockchain");
+            instance.setAccessible(true);
+            instance.set(null, null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return Blockchain.getInstance(chainSize);
+    }
+
+    /**
+     * Signed transfers between {@link #USERS} synthetic users.
+     */
+    public static List<Message> signedMessages(int count) throws GeneralSecurityException {
+        return signedMessages(count, HashVersion.STRING);
+    }
+
+    public static List<Message> signedMessages(int count, HashVersion version) throws GeneralSecurityException {
+        KeyPair keys = new KeysGenerator().createKeyPair();
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Message message = new Message(i, keys.getPublic(), version);
+            message.setTransaction(new Transaction(user(i), user(i + 1), 1 + i % 10));
+            message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Appends {@code blocks} blocks to the chain, block {@code i} carrying
+     * message {@code i % messages.size()} when messages are given.
+     */
+    public static void appendBlocks(Blockchain blockchain, int blocks, List<Message> messages) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < blocks; i++) {
+                List<Message> blockMessages = messages.isEmpty() ? List.of() : List.of(messages.get(i % messages.size()));
+                Block block = new Block(blockchain.getBlockCounter() + 1,
+                        blockchain.getLastBlockHash(),
+                        blockMessages,
+                        user(i),
+                        blockchain.getZeroesInHash(),
+                        0,
+                        blockchain.getRewardAmount());
+                block.setGenerateSeconds(STEADY_GENERATE_SECONDS);
+                blockchain.acceptBlock(block);
+            }
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    public static String user(int index) {
+        return "user" + index % USERS;
+    }
+}
@@ -0,0 +1,58 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.model.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockchainBenchmark {
+
+    private static final int SIGNED_MESSAGES = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    private int blocks;
+
+    private Blockchain blockchain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws GeneralSecurityException {
+        List<Message> messages = BenchmarkChains.signedMessages(SIGNED_MESSAGES);
+        blockchain = BenchmarkChains.newBlockchain(blocks);
+        BenchmarkChains.appendBlocks(blockchain, blocks, messages);
+    }
+
+    @Benchmark
+    public boolean isChainValid() {
+        return blockchain.isChainValid();
+    }
+
+    @Benchmark
+    public boolean isChainValidParallel() {
+        return blockchain.isChainValidParallel();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int getVirtualCoinsAmount() {
+        return blockchain.getVirtualCoinsAmount(BenchmarkChains.user(7));
+    }
+}
@@ -0,0 +1,81 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.store.BlockStore;
+import com.vitaliebocicov.chainpay.store.SnapshotStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to rebuild the chain state from a block store, replaying every block
+ * or starting from the latest snapshot. Snapshots are taken every
+ * {@link #SNAPSHOT_INTERVAL} blocks, so up to that many blocks are still
+ * replayed after one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChainStartupBenchmark {
+
+    private static final int SIGNED_MESSAGES = 1024;
+    private static final int SNAPSHOT_INTERVAL = 1000;
+
+    @Param({"1000", "10000", "100000"})
+    private int blocks;
+
+    @Param({"false", "true"})
+    private boolean snapshots;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GeneralSecurityException {
+        directory = Files.createTempDirectory("chainpay-startup");
+        Blockchain blockchain = BenchmarkChains.newBlockchain(blocks);
+        try (BlockStore store = new BlockStore(directory, Duration.ofSeconds(1))) {
+            blockchain.attachStore(store, new SnapshotStore(directory, SNAPSHOT_INTERVAL));
+            // One block past the last snapshot, the usual case of a tail to replay.
+            BenchmarkChains.appendBlocks(blockchain, blocks + 1, BenchmarkChains.signedMessages(SIGNED_MESSAGES));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int attachStore() throws IOException {
+        Blockchain blockchain = BenchmarkChains.newBlockchain(blocks);
+        try (BlockStore store = new BlockStore(directory, Duration.ofSeconds(1))) {
+            blockchain.attachStore(store, snapshots ? new SnapshotStore(directory, SNAPSHOT_INTERVAL) : null);
+        }
+        return blockchain.getSize();
+    }
+}
@@ -0,0 +1,97 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.model.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admitted messages per second with {@code producers} virtual threads
+ * submitting at once. Every invocation starts from a fresh chain, so each
+ * signature is verified rather than found in the signature cache; the
+ * chain's first blocks reward every sender, so no transfer is refused.
+ * {@code serialized} puts every admission behind the chain monitor, as
+ * admission did before it stopped taking that lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageAdmissionBenchmark {
+
+    private static final int MESSAGES = 1024;
+
+    @Param({"1", "4", "16", "64"})
+    private int producers;
+
+    @Param({"false", "true"})
+    private boolean serialized;
+
+    private List<Message> messages;
+    private Blockchain blockchain;
+
+    @Setup(Level.Trial)
+    public void setUpMessages() throws GeneralSecurityException {
+        messages = BenchmarkChains.signedMessages(MESSAGES);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpChain() {
+        blockchain = BenchmarkChains.newBlockchain(1);
+        BenchmarkChains.appendBlocks(blockchain, BenchmarkChains.USERS, List.of());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int admit() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>(producers);
+            for (int producer = 0; producer < producers; producer++) {
+                int first = producer;
+                results.add(executor.submit(() -> admitEvery(first)));
+            }
+            int admitted = 0;
+            for (Future<Integer> result : results) {
+                admitted += result.get();
+            }
+            return admitted;
+        }
+    }
+
+    private int admitEvery(int first) {
+        int admitted = 0;
+        for (int i = first; i < MESSAGES; i += producers) {
+            Message message = messages.get(i);
+            boolean valid;
+            if (serialized) {
+                synchronized (blockchain) {
+                    valid = blockchain.receiveMessage(message);
+                }
+            } else {
+                valid = blockchain.receiveMessage(message);
+            }
+            admitted += valid ? 1 : 0;
+        }
+        return admitted;
+    }
+}
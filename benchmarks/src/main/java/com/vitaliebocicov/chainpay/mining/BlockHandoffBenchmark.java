@@ -0,0 +1,122 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.BenchmarkChains;
+import com.vitaliebocicov.chainpay.Blockchain;
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time from a block being accepted to an idle miner holding its next block
+ * template. The idle miner either parks in
+ * {@link Blockchain#awaitMagicNumberCleared()} ({@code pollMillis} 0) or
+ * polls the flag with a sleep, as {@link Miner#run()} used to do with a
+ * one-second sleep. Each operation marks a block as found, waits until the
+ * idle miner has seen that, then accepts the block. Tear down prints the
+ * latency the miner measured itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockHandoffBenchmark {
+
+    @Param({"0", "1", "10"})
+    private long pollMillis;
+
+    private Blockchain blockchain;
+    private Thread idleMiner;
+    private final SynchronousQueue<Block> templates = new SynchronousQueue<>();
+    private final LongAdder templateCount = new LongAdder();
+    private final LongAdder templateLatencyNanos = new LongAdder();
+    private volatile boolean stopped;
+    private volatile boolean waiting;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        blockchain = BenchmarkChains.newBlockchain(Integer.MAX_VALUE);
+        stopped = false;
+        long tip = blockchain.getBlockCounter();
+        idleMiner = new Thread(() -> buildTemplates(tip), "idle-miner");
+        idleMiner.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        stopped = true;
+        idleMiner.interrupt();
+        idleMiner.join();
+    }
+
+    @TearDown
+    public void printLatency() {
+        System.out.printf("%npollMillis=%d: %d us from acceptance to template on average%n", pollMillis,
+                TimeUnit.NANOSECONDS.toMicros(templateLatencyNanos.sum() / Math.max(1, templateCount.sum())));
+    }
+
+    @Benchmark
+    public Block acceptAndHandOff() throws InterruptedException {
+        blockchain.setMagicNumberFound(true);
+        while (!waiting) {
+            Thread.yield();
+        }
+        waiting = false;
+        BenchmarkChains.appendBlocks(blockchain, 1, List.of());
+        return templates.take();
+    }
+
+    private void buildTemplates(long tip) {
+        long seen = tip;
+        try {
+            while (!stopped) {
+                if (blockchain.isMagicNumberFound()) {
+                    waiting = true;
+                    waitForPendingBlock();
+                }
+                long counter = blockchain.getBlockCounter();
+                if (counter == seen) {
+                    Thread.yield();
+                    continue;
+                }
+                seen = counter;
+                Block template = new Block(counter + 1, blockchain.getLastBlockHash(),
+                        blockchain.getPreviousBlockMessages(), "idle-miner", blockchain.getZeroesInHash(),
+                        blockchain.getMaxMessageIdPreviousBlock(), blockchain.getRewardAmount(), HashVersion.latest());
+                templateLatencyNanos.add(System.nanoTime() - blockchain.getTipAcceptedNanos());
+                templateCount.increment();
+                templates.put(template);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitForPendingBlock() throws InterruptedException {
+        if (pollMillis == 0) {
+            blockchain.awaitMagicNumberCleared();
+            return;
+        }
+        while (blockchain.isMagicNumberFound()) {
+            Thread.sleep(pollMillis);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.BenchmarkChains;
+import com.vitaliebocicov.chainpay.Blockchain;
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to find a magic number for one block template at a fixed difficulty,
+ * on the miner's own thread or, with more than one thread, on the workers of
+ * a {@link NonceSearch}. Tear down prints the miner's hash rate and the
+ * ranges its workers stole from each other.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MinerBenchmark {
+
+    @Param({"3", "4"})
+    private int zeroes;
+
+    @Param({"1", "2", "4"})
+    private int threads;
+
+    private Blockchain blockchain;
+    private ForkJoinPool pool;
+    private NonceSearch search;
+    private long startNanos;
+    private Miner miner;
+    private Block block;
+    private final Random random = new NoTransferRandom();
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        blockchain = BenchmarkChains.newBlockchain(1);
+        KeysGenerator keysGenerator = new KeysGenerator();
+        if (threads > 1) {
+            pool = new ForkJoinPool(threads);
+            search = new NonceSearch(pool, threads);
+        }
+        miner = new Miner(0, keysGenerator, search);
+        miner.setContacts(new Miner[]{miner, new Miner(1, keysGenerator)});
+        block = new Block(1, Hash256.ZERO, List.of(), miner.getMinerId(), zeroes, 0, blockchain.getRewardAmount());
+        startNanos = System.nanoTime();
+    }
+
+    @TearDown
+    public void tearDown() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("%n%d threads: %.0f hashes/s, %d steals%n", threads, miner.getHashCount() / seconds,
+                search == null ? 0 : search.getSteals());
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public boolean findMagicNumber() {
+        blockchain.setMagicNumberFound(false);
+        return miner.findMagicNumber(block, zeroes, random);
+    }
+
+    /**
+     * Keeps the miner from sending transactions while it searches.
+     */
+    private static final class NoTransferRandom extends Random {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public double nextDouble(double bound) {
+            return bound;
+        }
+    }
+}
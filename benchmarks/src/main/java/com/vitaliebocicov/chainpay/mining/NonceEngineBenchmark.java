@@ -0,0 +1,59 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-thread hash rate of the scalar and vector {@link NonceEngine}s, so
+ * the score is hashes per second per core. Each operation is one hash: an
+ * invocation scans {@link #NONCES} nonces at a difficulty no hash meets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class NonceEngineBenchmark {
+
+    private static final int NONCES = 4096;
+    private static final int IMPOSSIBLE_ZEROES = 64;
+
+    @Param({"scalar", "vector"})
+    private String engineName;
+
+    private NonceEngine engine;
+    private long firstNonce;
+
+    @Setup
+    public void setUp() {
+        System.setProperty(NonceEngine.ENGINE_PROPERTY, engineName);
+        byte[] prefix = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.MERKLE)
+                .getHashPrefix();
+        engine = NonceEngine.forTemplate(prefix, HashVersion.MERKLE);
+        System.out.printf("%n%s: %s%n", engineName, engine.getClass().getSimpleName());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NONCES)
+    public int scan() {
+        firstNonce += NONCES;
+        return engine.findFirst(firstNonce, NONCES, IMPOSSIBLE_ZEROES);
+    }
+}
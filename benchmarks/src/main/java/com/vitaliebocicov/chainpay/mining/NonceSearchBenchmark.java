@@ -0,0 +1,69 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash rate of {@link NonceSearch} by worker count. Each operation is one
+ * hash: an invocation searches {@link #NONCES} nonces at a difficulty no
+ * hash meets, so every nonce is tried. Tear down prints the attempts over
+ * the nonces handed out, which is 1.0 when no nonce was tried twice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NonceSearchBenchmark {
+
+    private static final int NONCES = 1 << 18;
+    private static final int IMPOSSIBLE_ZEROES = 64;
+
+    @Param({"1", "2", "4"})
+    private int threads;
+
+    private ForkJoinPool pool;
+    private NonceSearch search;
+    private byte[] prefix;
+    private long searches;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        search = new NonceSearch(pool, threads);
+        prefix = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.MERKLE).getHashPrefix();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        System.out.printf("%n%d threads: %.3f attempts per nonce, %d steals%n", threads,
+                (double) search.getAttempts() / ((double) searches * NONCES), search.getSteals());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NONCES)
+    public Long exhaustSpace() {
+        searches++;
+        return search.find(prefix, HashVersion.MERKLE, IMPOSSIBLE_ZEROES, searches * NONCES, NONCES, () -> false);
+    }
+}
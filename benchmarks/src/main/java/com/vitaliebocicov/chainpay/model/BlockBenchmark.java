@@ -0,0 +1,43 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.BenchmarkChains;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockBenchmark {
+
+    @Param({"0", "10"})
+    private int messages;
+
+    private Block block;
+    private long magicNumber;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        block = new Block(1, Hash256.ZERO, BenchmarkChains.signedMessages(messages), "miner1", 0, 0, 100);
+    }
+
+    @Benchmark
+    public Hash256 getHashCode() {
+        block.setMagicNumber(magicNumber++);
+        return block.getHashCode();
+    }
+}
@@ -0,0 +1,84 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.BenchmarkChains;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Canonical binary encoding against the string forms a block is hashed and
+ * printed with. Setup prints the size of the hash input for the block's
+ * {@link HashVersion}, of its full canonical record and of its string form.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CanonicalCodecBenchmark {
+
+    @Param({"0", "10"})
+    private int messages;
+
+    @Param({"STRING", "BINARY", "MERKLE"})
+    private HashVersion version;
+
+    private List<Message> blockMessages;
+    private Block block;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        blockMessages = BenchmarkChains.signedMessages(messages, version);
+        block = newBlock();
+        block.setMagicNumber(Long.MAX_VALUE);
+        encoded = CanonicalCodec.encode(block);
+        System.out.printf("%n%s block with %d messages: %d bytes hashed, %d bytes canonical record"
+                        + " (keys and signatures included), %d bytes as string%n",
+                version, messages, block.getHashPrefix().length, encoded.length,
+                block.toString().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return CanonicalCodec.encode(block);
+    }
+
+    @Benchmark
+    public Block decode() {
+        return CanonicalCodec.decodeBlock(encoded);
+    }
+
+    @Benchmark
+    public String encodeString() {
+        return block.toString();
+    }
+
+    @Benchmark
+    public byte[] messageData() {
+        return blockMessages.isEmpty() ? null : blockMessages.getFirst().getData();
+    }
+
+    @Benchmark
+    public byte[] newBlockHash() {
+        return newBlock().getHash();
+    }
+
+    private Block newBlock() {
+        return new Block(1, 1_700_000_000_000L, Hash256.ZERO, blockMessages, "miner1", 0, 0, 100, version);
+    }
+}
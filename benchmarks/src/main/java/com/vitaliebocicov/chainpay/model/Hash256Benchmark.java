@@ -0,0 +1,70 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import com.vitaliebocicov.chainpay.util.StringUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparing a block's previous hash with the chain tip, as a {@link Hash256}
+ * and as the hex string it used to be. The operands are equal but distinct
+ * objects, so neither comparison short-circuits on identity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Hash256Benchmark {
+
+    private byte[] bytes;
+    private Hash256 hash;
+    private Hash256 sameHash;
+    private String hex;
+    private String sameHex;
+
+    @Setup
+    public void setUp() {
+        bytes = HashUtil.sha256("block");
+        hash = Hash256.of(bytes);
+        sameHash = Hash256.of(bytes);
+        hex = StringUtil.toHex(bytes);
+        sameHex = new String(hex.toCharArray());
+    }
+
+    @Benchmark
+    public boolean equalsHash256() {
+        return hash.equals(sameHash);
+    }
+
+    @Benchmark
+    public boolean equalsHex() {
+        return hex.equals(sameHex);
+    }
+
+    @Benchmark
+    public Hash256 ofBytes() {
+        return Hash256.of(bytes);
+    }
+
+    @Benchmark
+    public String toHex() {
+        return hash.toString();
+    }
+
+    @Benchmark
+    public Hash256 fromHex() {
+        return Hash256.fromHex(hex);
+    }
+}
@@ -0,0 +1,68 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.BenchmarkChains;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one more message arriving in a pool of {@code messages}: the flat
+ * messages hash of a {@link HashVersion#BINARY} header is recomputed over
+ * every message, the Merkle root takes one leaf hash and a few node hashes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MerkleTreeBenchmark {
+
+    @Param({"100", "1000"})
+    private int messages;
+
+    private List<Message> pool;
+    private Message arriving;
+    private MerkleTree tree;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        List<Message> signed = BenchmarkChains.signedMessages(messages + 1, HashVersion.MERKLE);
+        pool = signed.subList(0, messages);
+        arriving = signed.getLast();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetTree() {
+        tree = MerkleTree.of(pool);
+    }
+
+    @Benchmark
+    public byte[] flatHash() {
+        return CanonicalCodec.messagesHash(pool);
+    }
+
+    @Benchmark
+    public byte[] merkleAppend() {
+        tree.append(CanonicalCodec.messageLeafHash(arriving));
+        return tree.root();
+    }
+
+    @Benchmark
+    public MerkleProof proof() {
+        return tree.proof(messages / 2);
+    }
+}
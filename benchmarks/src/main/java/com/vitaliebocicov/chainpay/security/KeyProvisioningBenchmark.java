@@ -0,0 +1,89 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.store.KeyPairStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to get the identities of a fleet of {@code miners} miners:
+ * generating them one after another on a single generator, as miners did
+ * through a synchronized generator, generating them in parallel, or
+ * loading them from a {@link KeyPairStore} on restart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class KeyProvisioningBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int miners;
+
+    @Param({"RSA", "ED25519"})
+    private SignatureScheme scheme;
+
+    private KeysGenerator generator;
+    private Path directory;
+    private KeyPairStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GeneralSecurityException {
+        generator = new KeysGenerator(scheme);
+        directory = Files.createTempDirectory("chainpay-keys");
+        store = new KeyPairStore(directory);
+        store.loadOrCreate(miners, generator, ForkJoinPool.commonPool());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<KeyPair> generateSerially() {
+        List<KeyPair> keys = new ArrayList<>(miners);
+        for (int i = 0; i < miners; i++) {
+            keys.add(generator.createKeyPair());
+        }
+        return keys;
+    }
+
+    @Benchmark
+    public List<KeyPair> generateInParallel() {
+        return generator.createKeyPairs(miners, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public List<KeyPair> loadFromStore() throws IOException {
+        return store.load(scheme);
+    }
+}
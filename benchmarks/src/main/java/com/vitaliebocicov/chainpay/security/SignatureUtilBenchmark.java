@@ -0,0 +1,81 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.Signature;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key generation, signing and verification per {@link SignatureScheme}. The
+ * {@code Unpooled} variants look up and initialize a new engine for every
+ * call, which {@link SignatureUtil} avoids by reusing engines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureUtilBenchmark {
+
+    @Param({"RSA", "ECDSA_P256", "ED25519"})
+    private SignatureScheme scheme;
+
+    private KeysGenerator generator;
+    private KeyPair keys;
+    private Message message;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        generator = new KeysGenerator(scheme);
+        keys = generator.createKeyPair();
+        message = new Message(1, keys.getPublic());
+        message.setTransaction(new Transaction("miner1", "miner2", 10));
+        message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
+    }
+
+    @Benchmark
+    public KeyPair createKeyPair() {
+        return generator.createKeyPair();
+    }
+
+    @Benchmark
+    public byte[] signMessage() throws GeneralSecurityException {
+        return SignatureUtil.signMessage(message, keys.getPrivate());
+    }
+
+    @Benchmark
+    public boolean isSignatureValid() throws GeneralSecurityException {
+        return SignatureUtil.isSignatureValid(message);
+    }
+
+    @Benchmark
+    public byte[] signMessageUnpooled() throws GeneralSecurityException {
+        Signature signer = scheme.newSignature();
+        signer.initSign(keys.getPrivate());
+        signer.update(message.getData());
+        return signer.sign();
+    }
+
+    @Benchmark
+    public boolean isSignatureValidUnpooled() throws GeneralSecurityException {
+        Signature verifier = scheme.newSignature();
+        verifier.initVerify(message.getPublicKey());
+        verifier.update(message.getData());
+        return verifier.verify(message.getSignature());
+    }
+}
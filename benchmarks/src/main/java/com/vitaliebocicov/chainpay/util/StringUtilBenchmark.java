@@ -0,0 +1,52 @@
+package com.vitaliebocicov.chainpay.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code applySha256} hashes with a pooled digest; {@code applySha256Unpooled}
+ * looks the digest up for every call, as it used to be.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringUtilBenchmark {
+
+    @Param({"64", "1024"})
+    private int inputLength;
+
+    private String input;
+
+    @Setup
+    public void setUp() {
+        input = "x".repeat(inputLength);
+    }
+
+    @Benchmark
+    public String applySha256() {
+        return StringUtil.applySha256(input);
+    }
+
+    @Benchmark
+    public String applySha256Unpooled() throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return StringUtil.toHex(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+    }
+}
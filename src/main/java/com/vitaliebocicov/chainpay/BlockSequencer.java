@@ -0,0 +1,118 @@
+package com.vitaliebocicov.chainpay;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorThreeArg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.vitaliebocicov.chainpay.model.Block;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single writer for block acceptance. The checks that do not depend on the
+ * chain, hashing, proof of work and message signatures, run on the thread
+ * that {@link #submit(Block) submits} a block, so candidates from different
+ * miners are checked in parallel. Blocks that pass them go through a bounded
+ * ring buffer to one writer thread, which checks that they extend the tip
+ * and applies them to the chain in order. When the buffer is full,
+ * submitters wait for a free slot.
+ */
+public final class BlockSequencer implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final EventTranslatorThreeArg<Candidate, Block, byte[], CompletableFuture<Boolean>> PUBLISH =
+            (candidate, sequence, block, hash, accepted) -> candidate.set(block, hash, accepted);
+
+    private final Blockchain blockchain;
+    private final Disruptor<Candidate> disruptor;
+    private final EventHandler<Candidate> writer = (candidate, sequence, endOfBatch) -> apply(candidate);
+    private final RingBuffer<Candidate> ringBuffer;
+    private boolean closed;
+
+    /**
+     * @param capacity ring buffer slots, a power of two
+     */
+    public BlockSequencer(Blockchain blockchain, int capacity) {
+        this.blockchain = blockchain;
+        this.disruptor = new Disruptor<>(Candidate::new, capacity, runnable -> {
+            Thread thread = new Thread(runnable, "block-sequencer");
+            thread.setDaemon(true);
+            return thread;
+        }, ProducerType.MULTI, new BlockingWaitStrategy());
+        disruptor.handleEventsWith(writer);
+        this.ringBuffer = disruptor.start();
+    }
+
+    /**
+     * Checks the block and queues it for the writer. The future completes
+     * with whether the block was accepted; it completes right away when the
+     * block fails the stateless checks.
+     */
+    public CompletableFuture<Boolean> submit(Block block) {
+        CompletableFuture<Boolean> accepted = new CompletableFuture<>();
+        byte[] hash = block.getHash();
+        if (!blockchain.isBlockWellFormed(block, hash)) {
+            blockchain.rejectBlock(block);
+            accepted.complete(false);
+            return accepted;
+        }
+        ringBuffer.publishEvent(PUBLISH, block, hash, accepted);
+        return accepted;
+    }
+
+    /**
+     * Applies the blocks already submitted and stops the writer. Blocks must
+     * not be submitted afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // Disruptor.shutdown() skips a writer thread that has not started yet; wait for the sequence instead.
+        long published = ringBuffer.getCursor();
+        while (disruptor.getSequenceValueFor(writer) < published) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        disruptor.halt();
+    }
+
+    private void apply(Candidate candidate) {
+        try {
+            candidate.accepted.complete(blockchain.acceptBlock(candidate.block, candidate.hash));
+        } catch (RuntimeException e) {
+            candidate.accepted.completeExceptionally(e);
+        } finally {
+            candidate.clear();
+        }
+    }
+
+    /**
+     * Ring buffer slot; reused, so it is cleared once the writer is done with it.
+     */
+    private static final class Candidate {
+
+        private Block block;
+        private byte[] hash;
+        private CompletableFuture<Boolean> accepted;
+
+        private void set(Block block, byte[] hash, CompletableFuture<Boolean> accepted) {
+            this.block = block;
+            this.hash = hash;
+            this.accepted = accepted;
+        }
+
+        private void clear() {
+            block = null;
+            hash = null;
+            accepted = null;
+        }
+    }
+}
@@ -1,44 +1,85 @@
 package com.vitaliebocicov.chainpay;
 
+import com.vitaliebocicov.chainpay.ledger.AccountLedger;
 import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
 import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Target;
 import com.vitaliebocicov.chainpay.model.Transaction;
-import com.vitaliebocicov.chainpay.security.SignatureUtil;
-
+import com.vitaliebocicov.chainpay.monitoring.BlockAcceptanceEvent;
+import com.vitaliebocicov.chainpay.monitoring.ChainValidationEvent;
+import com.vitaliebocicov.chainpay.monitoring.MessageAdmissionEvent;
+import com.vitaliebocicov.chainpay.monitoring.NodeMetrics;
+import com.vitaliebocicov.chainpay.security.ParallelSignatureVerifier;
+import com.vitaliebocicov.chainpay.security.SignatureCache;
+import com.vitaliebocicov.chainpay.store.BlockStore;
+import com.vitaliebocicov.chainpay.store.LedgerSnapshot;
+import com.vitaliebocicov.chainpay.store.SnapshotStore;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import com.vitaliebocicov.chainpay.util.StringUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SignatureException;
-import java.util.Iterator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Predicate;
 
 import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.logging.log4j.util.Unbox.box;
 
 public final class Blockchain {
 
     public static final int TESTING_VIRTUAL_COINS = 100;
+    private static final Logger LOGGER = LogManager.getLogger(Blockchain.class);
     private static final long ONE_MINUTE = 60;
     private static final int VIRTUAL_COINS_REWARD = 100;
     private static final int MAX_NUMBERS_OF_ZEROES = 7;
     private static final long FIFTEEN_SECONDS = 15;
 
-    private volatile long messageCounter = 0;
+    private final AtomicLong messageCounter = new AtomicLong();
     private volatile long maxMessageIdPreviousBlock = 0;
     private final List<Block> chain = new LinkedList<>();
     private final AtomicLong blockCounter = new AtomicLong();
     private final AtomicInteger zeroesInHash = new AtomicInteger();
     private final int chainSize;
+    private final AccountLedger ledger = new AccountLedger(VIRTUAL_COINS_REWARD);
+    private final SignatureCache signatureCache = new SignatureCache();
     private final AtomicReference<Queue<Message>> previousBlockMessages =
             new AtomicReference<>(new ConcurrentLinkedQueue<>());
     private final AtomicReference<Queue<Message>> currentBlockMessages =
             new AtomicReference<>(new ConcurrentLinkedQueue<>());
     private static volatile Blockchain blockchain;
+    private final Object magicNumberMonitor = new Object();
+    private final Object validationMonitor = new Object();
+    private final StampedLock admissionLock = new StampedLock();
+    private ValidatedPrefix validatedPrefix;
+    private volatile Checkpoint assumeValid;
+    private volatile int validatedHeight;
     private volatile boolean magicNumberFound = false;
+    private volatile long tipAcceptedNanos;
+    private volatile Tip tip = Tip.EMPTY;
+    private volatile BlockStore store;
+    private volatile SnapshotStore snapshots;
+    private long highestMessageId;
+    private volatile Target target;
+    private volatile Retargeter retargeter;
+    private final NodeMetrics metrics = new NodeMetrics();
 
     private Blockchain(int chainSize) {
         this.chainSize = chainSize;
@@ -74,17 +115,12 @@ public final class Blockchain {
         this.blockCounter.set(blockCounter);
     }
 
-    public synchronized String getLastBlockHash() {
-        Block lastBlock = getLastBlock();
-        String lastBlockHash = "0";
-        if (lastBlock != null) {
-            lastBlockHash = lastBlock.getHashCode();
-        }
-        return lastBlockHash;
+    public Hash256 getLastBlockHash() {
+        return tip.hash();
     }
 
-    public synchronized int getSize() {
-        return chain.size();
+    public int getSize() {
+        return tip.size();
     }
 
     public int getChainSize() {
@@ -107,83 +143,450 @@ public final class Blockchain {
         return List.copyOf(currentBlockMessages.get());
     }
 
-    public synchronized void acceptBlock(Block block) {
-        if (isBlockValid(block)) {
+    public int getPreviousBlockMessageCount() {
+        return previousBlockMessages.get().size();
+    }
+
+    public int getCurrentBlockMessageCount() {
+        return currentBlockMessages.get().size();
+    }
+
+    public void acceptBlock(Block block) {
+        acceptBlock(block, block.getHash());
+    }
+
+    /**
+     * Appends {@code block}, whose hash is {@code hash}, if it extends the
+     * chain; returns whether it did.
+     */
+    boolean acceptBlock(Block block, byte[] hash) {
+        BlockAcceptanceEvent event = new BlockAcceptanceEvent();
+        event.begin();
+        long requestedNanos = event.isEnabled() ? System.nanoTime() : 0;
+        boolean valid;
+        LedgerSnapshot snapshot = null;
+        synchronized (this) {
+            long lockAcquiredNanos = event.isEnabled() ? System.nanoTime() : 0;
+            int zeroesBefore = getZeroesInHash();
+            try {
+                valid = isBlockValid(block, hash, false);
+                long validatedNanos = event.isEnabled() ? System.nanoTime() : 0;
+                if (valid) {
+                    DifficultyChange difficulty = planDifficulty(block);
+                    block.setNumberOfZerosStatus(difficulty.status());
+                    // Stored first: a failed write must leave the chain as it was.
+                    persist(block);
+                    chain.add(block);
+                    tip = new Tip(chain.size(), Hash256.of(hash));
+                    ledger.applyBlock(block);
+                    setBlockCounter(block.getId());
+                    applyDifficulty(block, difficulty);
+                    for (Message message : block.getMessages()) {
+                        highestMessageId = max(highestMessageId, message.getId());
+                    }
+                    if (snapshots != null && snapshots.isDue(chain.size())) {
+                        snapshot = takeSnapshot(block);
+                    }
+                    rotateMessages();
+                    long acceptedNanos = System.nanoTime();
+                    if (tipAcceptedNanos != 0) {
+                        metrics.recordBlockInterval(acceptedNanos - tipAcceptedNanos);
+                    }
+                    tipAcceptedNanos = acceptedNanos;
+                }
+                metrics.recordBlock(valid);
+                if (event.shouldCommit()) {
+                    event.emit(block.getId(), valid, lockAcquiredNanos - requestedNanos,
+                            validatedNanos - lockAcquiredNanos, zeroesBefore, getZeroesInHash());
+                }
+            } finally {
+                // Accepted, rejected as stale or failed to store: either way the other miners resume.
+                setMagicNumberFound(false);
+            }
+        }
+        if (snapshot != null) {
+            saveSnapshot(snapshot);
+        }
+        // Logged after the chain lock is released.
+        if (valid) {
+            LOGGER.info("event=block_accepted id={} miner={} hash={} messages={} zeroes={} generateSeconds={}",
+                    box(block.getId()), block.getMinerId(), StringUtil.toHex(hash), box(block.getMessages().size()),
+                    box(block.getZeroesInHash()), box(block.getGenerateSeconds()));
+        } else {
+            LOGGER.debug("event=block_rejected id={} miner={}", box(block.getId()), block.getMinerId());
+        }
+        return valid;
+    }
+
+    /**
+     * The checks of a candidate block that do not depend on the chain: its
+     * hash meets the difficulty it claims, and its messages have valid
+     * signatures and ids above the block's message-id watermark. They are
+     * safe to run on any thread, before the block is sequenced.
+     */
+    boolean isBlockWellFormed(Block block, byte[] hash) {
+        return meetsOwnDifficulty(block, hash) && areValidBlockMessages(block);
+    }
+
+    /**
+     * Records a candidate block that failed {@link #isBlockWellFormed(Block, byte[])}
+     * and lets the miners waiting on it resume.
+     */
+    void rejectBlock(Block block) {
+        metrics.recordBlock(false);
+        setMagicNumberFound(false);
+        LOGGER.debug("event=block_rejected id={} miner={} reason=malformed", box(block.getId()), block.getMinerId());
+    }
+
+    /**
+     * Rebuilds the chain, balances, counters and difficulty from the blocks
+     * in the store, then appends every newly accepted block to it.
+     */
+    public void attachStore(BlockStore blockStore) throws IOException {
+        attachStore(blockStore, null);
+    }
+
+    /**
+     * Like {@link #attachStore(BlockStore)}, but starts from the newest
+     * snapshot whose block is in the store at the snapshot's height and
+     * replays only the blocks after it; a new snapshot is then saved every
+     * {@link SnapshotStore#getInterval() interval} blocks. The blocks a
+     * snapshot covers are not validated again: this node accepted them
+     * before writing it.
+     */
+    public synchronized void attachStore(BlockStore blockStore, SnapshotStore snapshotStore) throws IOException {
+        if (store != null) {
+            throw new IllegalStateException("A block store is already attached");
+        }
+        long startNanos = System.nanoTime();
+        List<Block> blocks = blockStore.load();
+        highestMessageId = max(highestMessageId, maxMessageIdPreviousBlock);
+        LedgerSnapshot snapshot = snapshotStore == null ? null : findSnapshot(snapshotStore, blocks);
+        int replayFrom = 0;
+        if (snapshot != null) {
+            restoreSnapshot(snapshot, blocks);
+            replayFrom = (int) snapshot.height();
+        }
+        for (Block block : blocks.subList(replayFrom, blocks.size())) {
+            byte[] hash = block.getHash();
+            if (!isBlockValid(block, hash, true)) {
+                throw new IOException("Stored block " + block.getId() + " does not extend the chain");
+            }
             chain.add(block);
+            tip = new Tip(chain.size(), Hash256.of(hash));
+            ledger.applyBlock(block);
             setBlockCounter(block.getId());
-            adjustZeroesInHash(block);
-            rotateMessages();
-            setMagicNumberFound(false);
-            System.out.println(block);
+            adjustDifficulty(block);
+            for (Message message : block.getMessages()) {
+                highestMessageId = max(highestMessageId, message.getId());
+            }
+        }
+        setMaxMessageIdPreviousBlock(highestMessageId);
+        messageCounter.accumulateAndGet(highestMessageId, Math::max);
+        snapshots = snapshotStore;
+        store = blockStore;
+        LOGGER.info("event=chain_loaded blocks={} snapshot_height={} replayed={} millis={}",
+                box(blocks.size()), box(replayFrom), box(blocks.size() - replayFrom),
+                box(NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+    }
+
+    private LedgerSnapshot findSnapshot(SnapshotStore snapshotStore, List<Block> blocks) throws IOException {
+        if (!chain.isEmpty()) {
+            return null;
+        }
+        for (LedgerSnapshot snapshot : snapshotStore.load()) {
+            // A snapshot with a target needs target difficulty to be replayed on top of it.
+            boolean usable = snapshot.height() <= blocks.size() && (snapshot.target() == null || retargeter != null);
+            if (usable && blocks.get((int) snapshot.height() - 1).getHashCode().equals(snapshot.blockHash())) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    private void restoreSnapshot(LedgerSnapshot snapshot, List<Block> blocks) {
+        int height = (int) snapshot.height();
+        chain.addAll(blocks.subList(0, height));
+        tip = new Tip(height, snapshot.blockHash());
+        ledger.restore(snapshot.balances());
+        setBlockCounter(blocks.get(height - 1).getId());
+        setZeroesInHash(snapshot.zeroesInHash());
+        highestMessageId = max(highestMessageId, snapshot.maxMessageIdPreviousBlock());
+        if (retargeter == null) {
+            return;
+        }
+        // The retargeting window only depends on the last blocks, which are in memory anyway.
+        retargeter.clear();
+        for (Block block : blocks.subList(max(0, height - retargeter.getWindow()), height)) {
+            if (block.getTarget() == null) {
+                retargeter.clear();
+            } else {
+                retargeter.add(block.getTarget(), block.getGenerateNanos());
+            }
+        }
+        target = snapshot.target() != null ? snapshot.target() : Target.ofLeadingZeroes(snapshot.zeroesInHash());
+    }
+
+    private LedgerSnapshot takeSnapshot(Block block) {
+        return new LedgerSnapshot(chain.size(), block.getHashCode(), ledger.getBalances(), highestMessageId,
+                getZeroesInHash(), target);
+    }
+
+    private void saveSnapshot(LedgerSnapshot snapshot) {
+        try {
+            snapshots.save(snapshot);
+            LOGGER.debug("event=snapshot_saved height={}", box(snapshot.height()));
+        } catch (IOException e) {
+            // The chain is intact without it; the next start just replays more blocks.
+            LOGGER.warn("event=snapshot_failed height={}", box(snapshot.height()), e);
+        }
+    }
+
+    private void persist(Block block) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.append(block);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private synchronized void rotateMessages() {
-        setMaxMessageIdPreviousBlock(max(previousBlockMessages.get()
-                        .stream()
-                        .mapToLong(Message::getId)
-                        .max()
-                        .orElse(0L),
-                maxMessageIdPreviousBlock));
-        Queue<Message> oldMessages = currentBlockMessages.getAndSet(new ConcurrentLinkedQueue<>());
-        previousBlockMessages.set(oldMessages);
-        previousBlockMessages.get().removeIf(message -> message.getId() <= maxMessageIdPreviousBlock);
+    private void rotateMessages() {
+        long stamp = admissionLock.writeLock();
+        try {
+            setMaxMessageIdPreviousBlock(max(previousBlockMessages.get()
+                            .stream()
+                            .mapToLong(Message::getId)
+                            .max()
+                            .orElse(0L),
+                    maxMessageIdPreviousBlock));
+            Queue<Message> oldMessages = currentBlockMessages.getAndSet(new ConcurrentLinkedQueue<>());
+            previousBlockMessages.set(oldMessages);
+            previousBlockMessages.get().removeIf(message -> message.getId() <= maxMessageIdPreviousBlock);
+        } finally {
+            admissionLock.unlockWrite(stamp);
+        }
     }
 
     public boolean isBlockValid(Block block) {
-        if (!block.getPreviousBlockHash().equals(getLastBlockHash())) {
-            return false;
+        return isBlockValid(block, block.getHash(), false);
+    }
+
+    /**
+     * With target difficulty, a new block must carry the current target and
+     * its hash must not exceed it. Blocks using leading zeroes are only
+     * accepted without target difficulty, or from the store, as history
+     * from before it was turned on.
+     */
+    private boolean isBlockValid(Block block, byte[] hash, boolean stored) {
+        Target expected = target;
+        boolean meetsDifficulty;
+        if (block.getTarget() != null) {
+            meetsDifficulty = block.getTarget().equals(expected) && expected.isMetBy(hash);
+        } else {
+            meetsDifficulty = (expected == null || stored) && HashUtil.hasLeadingZeroNibbles(hash, getZeroesInHash());
         }
-        String startingZeros = "0".repeat(getZeroesInHash());
-        return block.getHashCode().startsWith(startingZeros);
+        return meetsDifficulty && block.getPreviousBlockHash().equals(getLastBlockHash());
     }
 
     public boolean isChainValid() {
-        Iterator<Block> iterator = chain.iterator();
+        ChainValidationEvent event = new ChainValidationEvent();
+        event.begin();
+        boolean valid = isChainValid(this::areValidBlockMessages);
+        if (event.shouldCommit()) {
+            event.emit(chain.size(), false, false, valid);
+        }
+        return valid;
+    }
+
+    /**
+     * Same checks as {@link #isChainValid()}, but only for the blocks added
+     * since the last call; the blocks validated before are trusted as long
+     * as the last of them is still in the chain at the same height. Blocks
+     * up to the {@link #setAssumeValid(long, Hash256) assume-valid checkpoint}
+     * are only checked for hash linkage and difficulty. A failed check is
+     * repeated on the next call.
+     */
+    public boolean isChainValidIncremental() {
+        ChainValidationEvent event = new ChainValidationEvent();
+        event.begin();
+        int blocks;
+        boolean valid;
+        synchronized (validationMonitor) {
+            List<Block> newBlocks;
+            synchronized (this) {
+                if (!isStillValidated(validatedPrefix)) {
+                    validatedPrefix = new ValidatedPrefix(retargeter);
+                }
+                newBlocks = new ArrayList<>(chain.subList(validatedPrefix.height, chain.size()));
+            }
+            blocks = newBlocks.size();
+            valid = extendValidation(validatedPrefix, newBlocks, this::areValidBlockMessages, assumeValid);
+            validatedHeight = validatedPrefix.height;
+        }
+        if (event.shouldCommit()) {
+            event.emit(blocks, false, true, valid);
+        }
+        return valid;
+    }
+
+    /**
+     * Trusts the messages of the first {@code height} blocks in
+     * {@link #isChainValidIncremental()}, provided the block at that height
+     * has the hash {@code blockHash}; a chain with another block there is
+     * invalid. Hash linkage and difficulty are still checked for every block.
+     */
+    public void setAssumeValid(long height, Hash256 blockHash) {
+        assumeValid = new Checkpoint(height, blockHash);
+    }
+
+    /**
+     * Number of blocks {@link #isChainValidIncremental()} has validated so far.
+     */
+    public int getValidatedHeight() {
+        return validatedHeight;
+    }
 
-        if (!iterator.hasNext()) {
-            return true; // Chain is empty
+    private boolean isStillValidated(ValidatedPrefix prefix) {
+        if (prefix == null || prefix.source != retargeter || prefix.height > chain.size()) {
+            return false;
         }
+        return prefix.height == 0 || Arrays.equals(prefix.hash, chain.get(prefix.height - 1).getHash());
+    }
 
-        Block previousBlock = iterator.next();
+    public boolean isChainValidParallel() {
+        return isChainValidParallel(ForkJoinPool.commonPool());
+    }
 
-        while (iterator.hasNext()) {
-            Block currentBlock = iterator.next();
-            String startingZeros = "0".repeat(currentBlock.getZeroesInHash());
-            if (!currentBlock.getPreviousBlockHash().equals(previousBlock.getHashCode())) {
+    /**
+     * Same result as {@link #isChainValid()}, but only hash linkage, difficulty
+     * and message ids are checked block by block; signatures are then verified
+     * in parallel on the given pool.
+     */
+    public boolean isChainValidParallel(ForkJoinPool pool) {
+        ChainValidationEvent event = new ChainValidationEvent();
+        event.begin();
+        List<Message> messages = new ArrayList<>();
+        boolean linksValid = isChainValid(block -> {
+            if (!areValidMessageIds(block)) {
                 return false;
             }
-            if (!currentBlock.getHashCode().startsWith(startingZeros)) {
-                return false;
+            messages.addAll(block.getMessages());
+            return true;
+        });
+        boolean valid = linksValid && ParallelSignatureVerifier.areSignaturesValid(messages, signatureCache, pool);
+        if (event.shouldCommit()) {
+            event.emit(chain.size(), true, false, valid);
+        }
+        return valid;
+    }
+
+    private boolean isChainValid(Predicate<Block> messagesCheck) {
+        return extendValidation(new ValidatedPrefix(retargeter), chain, messagesCheck, null);
+    }
+
+    /**
+     * Validates {@code blocks} as the continuation of {@code prefix},
+     * advancing the prefix past every block that passes. The first block of
+     * the chain is only checked through the blocks linking to it.
+     */
+    private static boolean extendValidation(ValidatedPrefix prefix, Iterable<Block> blocks,
+                                            Predicate<Block> messagesCheck, Checkpoint assumeValid) {
+        for (Block currentBlock : blocks) {
+            byte[] currentHash = currentBlock.getHash();
+            if (prefix.hash != null) {
+                if (!currentBlock.getPreviousBlockHash().matches(prefix.hash)) {
+                    return false;
+                }
+                if (!meetsOwnDifficulty(currentBlock, currentHash)) {
+                    return false;
+                }
+                if (prefix.expectedTarget != null && !prefix.expectedTarget.equals(currentBlock.getTarget())) {
+                    return false;
+                }
+                boolean assumed = assumeValid != null && prefix.height < assumeValid.height();
+                if (!assumed && !messagesCheck.test(currentBlock)) {
+                    return false;
+                }
             }
-            if (!areValidBlockMessages(currentBlock)) {
+            if (assumeValid != null && prefix.height + 1 == assumeValid.height()
+                    && !assumeValid.blockHash().matches(currentHash)) {
                 return false;
             }
-
-            previousBlock = currentBlock;
+            prefix.expectedTarget = replayTarget(prefix.replay, currentBlock);
+            prefix.hash = currentHash;
+            prefix.height++;
         }
         return true;
     }
 
+    private static boolean meetsOwnDifficulty(Block block, byte[] hash) {
+        Target blockTarget = block.getTarget();
+        return blockTarget != null
+                ? blockTarget.isMetBy(hash)
+                : HashUtil.hasLeadingZeroNibbles(hash, block.getZeroesInHash());
+    }
+
+    /**
+     * The target the block after {@code block} must carry, as far as it
+     * follows from the chain: {@code null} without a retargeter or after a
+     * block without a target.
+     */
+    private static Target replayTarget(Retargeter replay, Block block) {
+        if (replay == null || block.getTarget() == null) {
+            if (replay != null) {
+                replay.clear();
+            }
+            return null;
+        }
+        replay.add(block.getTarget(), block.getGenerateNanos());
+        return replay.next(block.getTarget());
+    }
+
     public boolean isMagicNumberFound() {
         return magicNumberFound;
     }
 
+    /**
+     * Clearing the flag wakes every miner parked in {@link #awaitMagicNumberCleared()}.
+     */
     public void setMagicNumberFound(boolean found) {
-        this.magicNumberFound = found;
+        synchronized (magicNumberMonitor) {
+            this.magicNumberFound = found;
+            if (!found) {
+                magicNumberMonitor.notifyAll();
+            }
+        }
     }
 
-    boolean areValidBlockMessages(Block currentBlock) {
-        List<Message> messages = currentBlock.getMessages();
-        long maxMessageId = 0;
-        long maxMessageIdPreviousBlock = currentBlock.getMaxMessageIdPreviousBlock();
-        for (var msg : messages) {
-            maxMessageId = max(maxMessageId, msg.getId());
-            if (maxMessageId <= maxMessageIdPreviousBlock) {
-                return false;
+    /**
+     * Blocks while a miner's block is waiting to be accepted, i.e. until
+     * {@link #acceptBlock(Block)} has moved the tip or rejected the block.
+     */
+    public void awaitMagicNumberCleared() throws InterruptedException {
+        synchronized (magicNumberMonitor) {
+            while (magicNumberFound) {
+                magicNumberMonitor.wait();
             }
+        }
+    }
+
+    /**
+     * {@link System#nanoTime()} at which the last block was accepted, 0 before the first.
+     */
+    public long getTipAcceptedNanos() {
+        return tipAcceptedNanos;
+    }
+
+    boolean areValidBlockMessages(Block currentBlock) {
+        if (!areValidMessageIds(currentBlock)) {
+            return false;
+        }
+        for (var msg : currentBlock.getMessages()) {
             try {
-                if (!SignatureUtil.isSignatureValid(msg)) {
+                if (!signatureCache.isSignatureValid(msg)) {
                     return false;
                 }
             } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException e) {
@@ -193,39 +596,79 @@ public final class Blockchain {
         return true;
     }
 
+    boolean areValidMessageIds(Block currentBlock) {
+        long maxMessageId = 0;
+        long maxMessageIdPreviousBlock = currentBlock.getMaxMessageIdPreviousBlock();
+        for (var msg : currentBlock.getMessages()) {
+            maxMessageId = max(maxMessageId, msg.getId());
+            if (maxMessageId <= maxMessageIdPreviousBlock) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public SignatureCache getSignatureCache() {
+        return signatureCache;
+    }
+
+    public NodeMetrics getMetrics() {
+        return metrics;
+    }
+
     public void print() {
         chain.forEach(System.out::println);
     }
 
-    public synchronized void receiveMessage(Message message) {
-        if (isMessageValid(message)) {
-            currentBlockMessages.get().add(message);
+    /**
+     * Adds the message to the pool of the next block if its id is above the
+     * watermark, its sender can afford it and its signature is valid. The
+     * signature is verified without holding any lock, so submitters run in
+     * parallel; the id and balance are checked before it and again in a
+     * short section that only excludes the pool rotation of an accepted block.
+     */
+    public boolean receiveMessage(Message message) {
+        MessageAdmissionEvent event = new MessageAdmissionEvent();
+        event.begin();
+        boolean admissible = isMessageAdmissible(message);
+        long verifyNanos = 0;
+        boolean valid = false;
+        if (admissible) {
+            long verifyStartNanos = System.nanoTime();
+            valid = isSignatureValid(message);
+            verifyNanos = System.nanoTime() - verifyStartNanos;
+            metrics.recordSignatureVerification(verifyNanos);
+        }
+        if (valid) {
+            if (message.getHashVersion().hasMerkleRoot()) {
+                // Hashed once on arrival; the next block's Merkle tree reuses the leaf.
+                message.getLeafHash();
+            }
+            valid = enqueue(message);
+        }
+        metrics.recordAdmission(valid);
+        if (event.shouldCommit()) {
+            event.emit(message.getId(), valid, verifyNanos);
         }
+        return valid;
     }
 
-    public int getVirtualCoinsAmount(String user) {
-        int amount = 0;
-        Iterator<Block> iterator = chain.iterator();
-        Block block;
-        while (iterator.hasNext()) {
-            block = iterator.next();
-            if (block.getMinerId().equals(user)) {
-                amount += VIRTUAL_COINS_REWARD;
-            }
-            for (var msg : block.getMessages()) {
-                Transaction transaction = msg.getTransaction();
-                if (transaction == null) {
-                    continue;
-                }
-                if (transaction.sender().equals(user)) {
-                    amount -= transaction.virtualCoinsAmount();
-                } else if (transaction.receiver().equals(user)) {
-                    amount += transaction.virtualCoinsAmount();
-                }
+    private boolean enqueue(Message message) {
+        long stamp = admissionLock.readLock();
+        try {
+            // A block may have been accepted while the signature was verified.
+            if (!isMessageAdmissible(message)) {
+                return false;
             }
+            currentBlockMessages.get().add(message);
+            return true;
+        } finally {
+            admissionLock.unlockRead(stamp);
         }
+    }
 
-        return amount;
+    public int getVirtualCoinsAmount(String user) {
+        return ledger.getBalance(user);
     }
 
     public int getRewardAmount() {
@@ -233,23 +676,23 @@ public final class Blockchain {
     }
 
     boolean isMessageValid(Message message) {
+        return isMessageAdmissible(message) && isSignatureValid(message);
+    }
+
+    private boolean isMessageAdmissible(Message message) {
         if (message.getId() <= maxMessageIdPreviousBlock) {
             return false;
         }
 
-        if (!isTransactionValid(message.getTransaction())) {
-            return false;
-        }
+        return isTransactionValid(message.getTransaction());
+    }
 
+    private boolean isSignatureValid(Message message) {
         try {
-            if (!SignatureUtil.isSignatureValid(message)) {
-                return false;
-            }
+            return signatureCache.isSignatureValid(message);
         } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException e) {
             throw new RuntimeException(e.getMessage());
         }
-
-        return true;
     }
 
     private boolean isTransactionValid(Transaction transaction) {
@@ -260,44 +703,129 @@ public final class Blockchain {
         return transaction.virtualCoinsAmount() <= senderVirtualCoinsAmount + TESTING_VIRTUAL_COINS;
     }
 
-    public synchronized long getMessageCounter() {
-        return ++messageCounter;
+    public long getMessageCounter() {
+        return messageCounter.incrementAndGet();
     }
 
     public long getBlockCounter() {
         return blockCounter.get();
     }
 
-    private void decreaseNumberOfZeros() {
-        setZeroesInHash(max(0, getZeroesInHash() - 1));
+    /**
+     * Switches new blocks to a 256-bit {@link Target}, retargeted after every
+     * block from the average generation time of the last {@code window}
+     * blocks, aiming at {@code blockInterval}. The first target is the one
+     * matching the current number of leading zeroes. Call before
+     * {@link #attachStore(BlockStore)}, so stored blocks retarget too.
+     */
+    public synchronized void useTargetDifficulty(Duration blockInterval, int window) {
+        retargeter = new Retargeter(blockInterval, window);
+        target = Target.ofLeadingZeroes(getZeroesInHash());
     }
 
-    private void increaseNumberOfZeros() {
-        setZeroesInHash(getZeroesInHash() + 1);
+    /**
+     * Target the next block must meet, {@code null} unless
+     * {@link #useTargetDifficulty(Duration, int)} was called.
+     */
+    public Target getTarget() {
+        return target;
     }
 
-    private Block getLastBlock() {
-        if (chain.isEmpty()) {
-            return null;
+    private void adjustDifficulty(Block block) {
+        DifficultyChange change = planDifficulty(block);
+        block.setNumberOfZerosStatus(change.status());
+        applyDifficulty(block, change);
+    }
+
+    /**
+     * The difficulty after {@code block}, worked out without changing any
+     * state, so that the block can be stored before it is applied.
+     */
+    private DifficultyChange planDifficulty(Block block) {
+        if (retargeter == null) {
+            return planZeroesInHash(block);
+        }
+        if (block.getTarget() == null) {
+            // Stored history from before target difficulty: carry its difficulty over.
+            DifficultyChange change = planZeroesInHash(block);
+            return new DifficultyChange(change.zeroesInHash(), Target.ofLeadingZeroes(change.zeroesInHash()),
+                    change.status());
+        }
+        Target next = retargeter.nextAfter(block.getTarget(), block.getGenerateNanos());
+        int change = next.toBigInteger().compareTo(block.getTarget().toBigInteger());
+        String status;
+        if (change < 0) {
+            status = "Target was lowered";
+        } else if (change > 0) {
+            status = "Target was raised";
+        } else {
+            status = "Target stays the same";
+        }
+        return new DifficultyChange(next.leadingZeroNibbles(), next, status);
+    }
+
+    private void applyDifficulty(Block block, DifficultyChange change) {
+        setZeroesInHash(change.zeroesInHash());
+        if (retargeter != null) {
+            if (block.getTarget() == null) {
+                retargeter.clear();
+            } else {
+                retargeter.add(block.getTarget(), block.getGenerateNanos());
+            }
         }
-        return chain.getLast();
+        target = change.target();
     }
 
-    void adjustZeroesInHash(Block block) {
+    private DifficultyChange planZeroesInHash(Block block) {
+        int zeroes = getZeroesInHash();
         if (block.getGenerateSeconds() > ONE_MINUTE) {
-            decreaseNumberOfZeros();
-            block.setNumberOfZerosStatus("N was decreased by 1");
-            return;
+            return new DifficultyChange(max(0, zeroes - 1), target, "N was decreased by 1");
         }
         if (block.getZeroesInHash() == MAX_NUMBERS_OF_ZEROES) {
-            block.setNumberOfZerosStatus("N stays the same");
-            return;
+            return new DifficultyChange(zeroes, target, "N stays the same");
         }
         if (block.getGenerateSeconds() < FIFTEEN_SECONDS) {
-            increaseNumberOfZeros();
-            block.setNumberOfZerosStatus("N was increased to " + getZeroesInHash());
-        } else {
-            block.setNumberOfZerosStatus("N stays the same");
+            return new DifficultyChange(zeroes + 1, target, "N was increased to " + (zeroes + 1));
+        }
+        return new DifficultyChange(zeroes, target, "N stays the same");
+    }
+
+    /**
+     * Size and last block hash of the chain, replaced as a whole on every
+     * append so that readers see both without taking the chain lock.
+     */
+    private record Tip(int size, Hash256 hash) {
+
+        static final Tip EMPTY = new Tip(0, Hash256.ZERO);
+    }
+
+    private record DifficultyChange(int zeroesInHash, Target target, String status) { }
+
+    private record Checkpoint(long height, Hash256 blockHash) {
+
+        Checkpoint {
+            if (height <= 0) {
+                throw new IllegalArgumentException("Checkpoint height must be positive: " + height);
+            }
+        }
+    }
+
+    /**
+     * The first {@code height} blocks of the chain as far as they have been
+     * validated: the hash of the last one and the retargeting replayed over
+     * them.
+     */
+    private static final class ValidatedPrefix {
+
+        private final Retargeter source;
+        private final Retargeter replay;
+        private int height;
+        private byte[] hash;
+        private Target expectedTarget;
+
+        private ValidatedPrefix(Retargeter retargeter) {
+            this.source = retargeter;
+            this.replay = retargeter == null ? null : retargeter.restart();
         }
     }
 }
@@ -1,11 +1,27 @@
 package com.vitaliebocicov.chainpay;
 
+import com.vitaliebocicov.chainpay.model.Hash256;
 import com.vitaliebocicov.chainpay.mining.Miner;
+import com.vitaliebocicov.chainpay.mining.NonceSearch;
 import com.vitaliebocicov.chainpay.security.KeysGenerator;
-
+import com.vitaliebocicov.chainpay.security.SignatureScheme;
+import com.vitaliebocicov.chainpay.store.BlockStore;
+import com.vitaliebocicov.chainpay.store.KeyPairStore;
+import com.vitaliebocicov.chainpay.store.SnapshotStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.Thread.currentThread;
@@ -13,9 +29,25 @@ import static java.lang.Thread.currentThread;
 
 public final class Main {
 
-    private static final int NUMBER_OF_MINERS = 10;
+    private static final int DEFAULT_NUMBER_OF_MINERS = 10;
     private static final int TEN_MINUTES = 60 * 10;
     private static final int CHAIN_SIZE = 15;
+    private static final String STORE_DIR_PROPERTY = "chainpay.store.dir";
+    private static final String STORE_SYNC_MILLIS_PROPERTY = "chainpay.store.syncMillis";
+    private static final long DEFAULT_STORE_SYNC_MILLIS = 100;
+    private static final String SNAPSHOT_INTERVAL_PROPERTY = "chainpay.snapshot.interval";
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+    private static final String MINING_THREADS_PROPERTY = "chainpay.mining.threads";
+    private static final String METRICS_PORT_PROPERTY = "chainpay.metrics.port";
+    private static final String DIFFICULTY_PROPERTY = "chainpay.difficulty";
+    private static final String TARGET_DIFFICULTY = "target";
+    private static final String BLOCK_MILLIS_PROPERTY = "chainpay.difficulty.blockMillis";
+    private static final long DEFAULT_BLOCK_MILLIS = 30_000;
+    private static final String RETARGET_WINDOW_PROPERTY = "chainpay.difficulty.window";
+    private static final int DEFAULT_RETARGET_WINDOW = 10;
+    private static final String ASSUME_VALID_PROPERTY = "chainpay.assumeValid";
+    private static final String SIGNATURE_SCHEME_PROPERTY = "chainpay.signature.scheme";
+    private static final String MINERS_PROPERTY = "chainpay.miners";
 
     private Main() { }
 
@@ -23,21 +55,40 @@ public final class Main {
         ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         System.out.println("Available processord: " + Runtime.getRuntime().availableProcessors());
         Blockchain blockchain = Blockchain.getInstance(CHAIN_SIZE);
+        if (TARGET_DIFFICULTY.equals(System.getProperty(DIFFICULTY_PROPERTY))) {
+            blockchain.useTargetDifficulty(
+                    Duration.ofMillis(Long.getLong(BLOCK_MILLIS_PROPERTY, DEFAULT_BLOCK_MILLIS)),
+                    Integer.getInteger(RETARGET_WINDOW_PROPERTY, DEFAULT_RETARGET_WINDOW));
+        }
+        String assumeValid = System.getProperty(ASSUME_VALID_PROPERTY);
+        if (assumeValid != null) {
+            setAssumeValid(blockchain, assumeValid);
+        }
+        BlockStore store = openStore(blockchain);
         KeysGenerator keysGenerator;
         try {
-            keysGenerator = new KeysGenerator();
+            keysGenerator = new KeysGenerator(SignatureScheme.valueOf(System.getProperty(
+                    SIGNATURE_SCHEME_PROPERTY, SignatureScheme.DEFAULT.name()).toUpperCase(Locale.ROOT)));
         } catch (NoSuchAlgorithmException e) {
             System.out.println(e.getMessage());
             throw new RuntimeException(e.getMessage());
         }
+        int numberOfMiners = Integer.getInteger(MINERS_PROPERTY, DEFAULT_NUMBER_OF_MINERS);
+        List<KeyPair> minerKeys = createMinerKeys(numberOfMiners, keysGenerator);
 
-        Miner[] miners = new Miner[NUMBER_OF_MINERS];
+        BlockSequencer sequencer = new BlockSequencer(blockchain, BlockSequencer.DEFAULT_CAPACITY);
+        Miner[] miners = new Miner[numberOfMiners];
+        int miningThreads = Integer.getInteger(MINING_THREADS_PROPERTY, 1);
+        ForkJoinPool miningPool = miningThreads > 1 ? new ForkJoinPool(miningThreads) : null;
 
-        for (int i = 0; i < NUMBER_OF_MINERS; i++) {
-            miners[i] = new Miner(i, keysGenerator);
+        for (int i = 0; i < numberOfMiners; i++) {
+            NonceSearch search = miningPool == null ? null : new NonceSearch(miningPool, miningThreads);
+            miners[i] = new Miner(i, minerKeys.get(i), search, sequencer);
         }
 
-        for (int i = 0; i < NUMBER_OF_MINERS; i++) {
+        MetricsServer metricsServer = startMetricsServer(blockchain, miners);
+
+        for (int i = 0; i < numberOfMiners; i++) {
             miners[i].setContacts(miners);
             executor.submit(miners[i]);
         }
@@ -53,12 +104,116 @@ public final class Main {
             currentThread().interrupt();
         }
 
+        if (miningPool != null) {
+            miningPool.shutdown();
+        }
+        sequencer.close();
+
         blockchain.print();
 
-        for (int i = 0; i < NUMBER_OF_MINERS; i++) {
+        long templates = 0;
+        long templateLatencyNanos = 0;
+        for (int i = 0; i < numberOfMiners; i++) {
             miners[i].printAmount();
+            templates += miners[i].getTemplateCount();
+            templateLatencyNanos += miners[i].getTemplateLatencyNanos();
+        }
+        if (templates > 0) {
+            System.out.println("Average time from block acceptance to next template: "
+                    + TimeUnit.NANOSECONDS.toMicros(templateLatencyNanos / templates) + " us");
+        }
+
+        System.out.println("Chain valid: " + blockchain.isChainValidIncremental());
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        closeStore(store);
+        System.out.println("Signature cache hits: " + blockchain.getSignatureCache().getHits()
+                + ", misses: " + blockchain.getSignatureCache().getMisses());
+    }
+
+    private static void setAssumeValid(Blockchain blockchain, String assumeValid) {
+        int separator = assumeValid.indexOf(':');
+        try {
+            if (separator < 0) {
+                throw new IllegalArgumentException("missing ':'");
+            }
+            blockchain.setAssumeValid(Long.parseLong(assumeValid.substring(0, separator)),
+                    Hash256.fromHex(assumeValid.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("-D" + ASSUME_VALID_PROPERTY + " must be <height>:<hash>, got '"
+                    + assumeValid + "': " + e.getMessage(), e);
+        }
+    }
+
+    private static BlockStore openStore(Blockchain blockchain) {
+        String directory = System.getProperty(STORE_DIR_PROPERTY);
+        if (directory == null) {
+            return null;
+        }
+        Duration syncInterval = Duration.ofMillis(Long.getLong(STORE_SYNC_MILLIS_PROPERTY, DEFAULT_STORE_SYNC_MILLIS));
+        int snapshotInterval = Integer.getInteger(SNAPSHOT_INTERVAL_PROPERTY, DEFAULT_SNAPSHOT_INTERVAL);
+        try {
+            BlockStore store = new BlockStore(Path.of(directory), syncInterval);
+            SnapshotStore snapshots = snapshotInterval > 0 ? new SnapshotStore(Path.of(directory), snapshotInterval) : null;
+            long startNanos = System.nanoTime();
+            blockchain.attachStore(store, snapshots);
+            System.out.println("Loaded " + blockchain.getSize() + " blocks from " + directory + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+            long validationStartNanos = System.nanoTime();
+            boolean valid = blockchain.isChainValidIncremental();
+            System.out.println("Stored chain valid: " + valid + " ("
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - validationStartNanos) + " ms)");
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Key pairs of the miners, generated in parallel; with a store directory
+     * they are kept in its {@link KeyPairStore}, so restarts reuse them.
+     */
+    private static List<KeyPair> createMinerKeys(int count, KeysGenerator keysGenerator) {
+        long startNanos = System.nanoTime();
+        String directory = System.getProperty(STORE_DIR_PROPERTY);
+        List<KeyPair> keys;
+        try {
+            keys = directory == null
+                    ? keysGenerator.createKeyPairs(count, ForkJoinPool.commonPool())
+                    : new KeyPairStore(Path.of(directory)).loadOrCreate(count, keysGenerator, ForkJoinPool.commonPool());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Prepared " + count + " miner identities in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms");
+        return keys;
+    }
+
+    private static MetricsServer startMetricsServer(Blockchain blockchain, Miner[] miners) {
+        Integer port = Integer.getInteger(METRICS_PORT_PROPERTY);
+        if (port == null) {
+            return null;
+        }
+        try {
+            MetricsServer server = new MetricsServer(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), port), blockchain, List.of(miners));
+            System.out.println("Serving metrics at http://" + server.getAddress().getHostString() + ":"
+                    + server.getAddress().getPort() + MetricsServer.PATH);
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        System.out.println("Chain valid: " + blockchain.isChainValid());
+    private static void closeStore(BlockStore store) {
+        if (store == null) {
+            return;
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
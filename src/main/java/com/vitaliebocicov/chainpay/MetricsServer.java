@@ -0,0 +1,153 @@
+package com.vitaliebocicov.chainpay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vitaliebocicov.chainpay.mining.Miner;
+import com.vitaliebocicov.chainpay.monitoring.LatencyHistogram;
+import com.vitaliebocicov.chainpay.monitoring.NodeMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the node's metrics at {@code /metrics} in the Prometheus text
+ * format. Values are read when scraped; the only state kept here is the
+ * previous hash count of every miner, from which the hash rate gauge is
+ * computed.
+ */
+public final class MetricsServer implements Closeable {
+
+    public static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final Blockchain blockchain;
+    private final List<Miner> miners;
+    private final Map<String, long[]> previousHashCounts = new HashMap<>();
+    private final HttpServer server;
+
+    public MetricsServer(InetSocketAddress address, Blockchain blockchain, List<Miner> miners) throws IOException {
+        this.blockchain = blockchain;
+        this.miners = List.copyOf(miners);
+        long now = System.nanoTime();
+        for (Miner miner : this.miners) {
+            previousHashCounts.put(miner.getMinerId(), new long[] {miner.getHashCount(), now});
+        }
+        this.server = HttpServer.create(address, 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    synchronized String scrape() {
+        StringBuilder out = new StringBuilder();
+        writeMiners(out);
+
+        NodeMetrics metrics = blockchain.getMetrics();
+        header(out, "chainpay_blocks_total", "counter", "Blocks handed to the chain, by outcome.");
+        sample(out, "chainpay_blocks_total{result=\"accepted\"}", metrics.getBlocksAccepted());
+        sample(out, "chainpay_blocks_total{result=\"rejected\"}", metrics.getBlocksRejected());
+        writeHistogram(out, "chainpay_block_interval_seconds", "Time between consecutive accepted blocks.",
+                metrics.getBlockInterval());
+
+        header(out, "chainpay_block_height", "gauge", "Id of the last accepted block.");
+        sample(out, "chainpay_block_height", blockchain.getBlockCounter());
+        header(out, "chainpay_validated_height", "gauge", "Blocks checked by the last incremental validation.");
+        sample(out, "chainpay_validated_height", blockchain.getValidatedHeight());
+        header(out, "chainpay_zeroes_in_hash", "gauge", "Leading zero hex digits the next block hash needs.");
+        sample(out, "chainpay_zeroes_in_hash", blockchain.getZeroesInHash());
+
+        header(out, "chainpay_mempool_messages", "gauge", "Messages waiting to be mined, by queue.");
+        sample(out, "chainpay_mempool_messages{queue=\"current\"}", blockchain.getCurrentBlockMessageCount());
+        sample(out, "chainpay_mempool_messages{queue=\"previous\"}", blockchain.getPreviousBlockMessageCount());
+        header(out, "chainpay_messages_total", "counter", "Messages offered to the node, by admission outcome.");
+        sample(out, "chainpay_messages_total{result=\"accepted\"}", metrics.getMessagesAccepted());
+        sample(out, "chainpay_messages_total{result=\"rejected\"}", metrics.getMessagesRejected());
+        writeSummary(out, "chainpay_signature_verification_seconds",
+                "Signature verification time of admitted messages.", metrics.getSignatureVerification());
+        return out.toString();
+    }
+
+    private void writeMiners(StringBuilder out) {
+        long now = System.nanoTime();
+        StringBuilder rates = new StringBuilder();
+        header(out, "chainpay_miner_hashes_total", "counter", "Nonces hashed by each miner.");
+        header(rates, "chainpay_miner_hash_rate", "gauge", "Hashes per second of each miner since the previous scrape.");
+        for (Miner miner : miners) {
+            String label = "{miner=\"" + miner.getMinerId() + "\"}";
+            long hashes = miner.getHashCount();
+            long[] previous = previousHashCounts.get(miner.getMinerId());
+            double seconds = (now - previous[1]) / NANOS_PER_SECOND;
+            sample(out, "chainpay_miner_hashes_total" + label, hashes);
+            sample(rates, "chainpay_miner_hash_rate" + label, seconds > 0 ? (hashes - previous[0]) / seconds : 0);
+            previous[0] = hashes;
+            previous[1] = now;
+        }
+        out.append(rates);
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String help,
+                                       LatencyHistogram.Snapshot snapshot) {
+        header(out, name, "histogram", help);
+        long[] bounds = snapshot.bounds();
+        for (int i = 0; i < bounds.length; i++) {
+            sample(out, name + "_bucket{le=\"" + bounds[i] / NANOS_PER_SECOND + "\"}", snapshot.cumulativeCount(i));
+        }
+        sample(out, name + "_bucket{le=\"+Inf\"}", snapshot.count());
+        sample(out, name + "_sum", snapshot.sumNanos() / NANOS_PER_SECOND);
+        sample(out, name + "_count", snapshot.count());
+    }
+
+    private static void writeSummary(StringBuilder out, String name, String help,
+                                     LatencyHistogram.Snapshot snapshot) {
+        header(out, name, "summary", help);
+        for (double quantile : QUANTILES) {
+            sample(out, name + "{quantile=\"" + quantile + "\"}", snapshot.percentile(quantile) / NANOS_PER_SECOND);
+        }
+        sample(out, name + "_sum", snapshot.sumNanos() / NANOS_PER_SECOND);
+        sample(out, name + "_count", snapshot.count());
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String series, long value) {
+        out.append(series).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String series, double value) {
+        out.append(series).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,110 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.model.Target;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Moving-average retargeting over the last {@code window} blocks: the next
+ * target is their average target scaled by their average generation time
+ * over the desired block interval. A block found twice as fast as desired
+ * halves the target, i.e. doubles the expected work. One step never moves
+ * the target by more than {@link #MAX_STEP} in either direction, so a
+ * single outlier cannot swing it.
+ */
+final class Retargeter {
+
+    static final int MAX_STEP = 4;
+
+    private final long blockIntervalNanos;
+    private final int window;
+    private final Deque<Sample> samples = new ArrayDeque<>();
+    private BigInteger targetSum = BigInteger.ZERO;
+    private long nanosSum;
+
+    Retargeter(Duration blockInterval, int window) {
+        if (blockInterval.isNegative() || blockInterval.isZero()) {
+            throw new IllegalArgumentException("Block interval must be positive: " + blockInterval);
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.blockIntervalNanos = blockInterval.toNanos();
+        this.window = window;
+    }
+
+    /**
+     * An empty retargeter with the same interval and window.
+     */
+    Retargeter restart() {
+        return new Retargeter(Duration.ofNanos(blockIntervalNanos), window);
+    }
+
+    void add(Target target, long generateNanos) {
+        Sample sample = new Sample(target.toBigInteger(), Math.max(1, generateNanos));
+        samples.addLast(sample);
+        targetSum = targetSum.add(sample.target());
+        nanosSum += sample.nanos();
+        if (samples.size() > window) {
+            Sample oldest = samples.removeFirst();
+            targetSum = targetSum.subtract(oldest.target());
+            nanosSum -= oldest.nanos();
+        }
+    }
+
+    void clear() {
+        samples.clear();
+        targetSum = BigInteger.ZERO;
+        nanosSum = 0;
+    }
+
+    /**
+     * Target for the block after the last one added, {@code current} when none was.
+     */
+    Target next(Target current) {
+        if (samples.isEmpty()) {
+            return current;
+        }
+        return next(current, targetSum, nanosSum, samples.size());
+    }
+
+    /**
+     * What {@link #next(Target)} returns after {@link #add(Target, long)},
+     * without adding the sample.
+     */
+    Target nextAfter(Target target, long generateNanos) {
+        BigInteger targets = targetSum.add(target.toBigInteger());
+        long nanos = nanosSum + Math.max(1, generateNanos);
+        int count = samples.size() + 1;
+        if (count > window) {
+            Sample oldest = samples.getFirst();
+            targets = targets.subtract(oldest.target());
+            nanos -= oldest.nanos();
+            count--;
+        }
+        return next(target, targets, nanos, count);
+    }
+
+    private Target next(Target current, BigInteger targets, long nanos, int sampleCount) {
+        BigInteger count = BigInteger.valueOf(sampleCount);
+        BigInteger next = targets.multiply(BigInteger.valueOf(nanos))
+                .divide(count.multiply(count).multiply(BigInteger.valueOf(blockIntervalNanos)));
+        BigInteger step = BigInteger.valueOf(MAX_STEP);
+        BigInteger lowest = current.scale(BigInteger.ONE, step).toBigInteger();
+        BigInteger highest = current.scale(step, BigInteger.ONE).toBigInteger();
+        return Target.of(next.max(lowest).min(highest));
+    }
+
+    int getWindow() {
+        return window;
+    }
+
+    Duration getBlockInterval() {
+        return Duration.ofNanos(blockIntervalNanos);
+    }
+
+    private record Sample(BigInteger target, long nanos) { }
+}
@@ -0,0 +1,59 @@
+package com.vitaliebocicov.chainpay.ledger;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running account balances, updated once per accepted block so that
+ * balance lookups do not have to walk the chain.
+ */
+public final class AccountLedger {
+
+    private final Map<String, Integer> balances = new ConcurrentHashMap<>();
+    private final int rewardAmount;
+
+    public AccountLedger(int rewardAmount) {
+        this.rewardAmount = rewardAmount;
+    }
+
+    public void applyBlock(Block block) {
+        credit(block.getMinerId(), rewardAmount);
+        for (Message msg : block.getMessages()) {
+            Transaction transaction = msg.getTransaction();
+            if (transaction == null) {
+                continue;
+            }
+            credit(transaction.sender(), -transaction.virtualCoinsAmount());
+            if (!transaction.receiver().equals(transaction.sender())) {
+                credit(transaction.receiver(), transaction.virtualCoinsAmount());
+            }
+        }
+    }
+
+    public int getBalance(String user) {
+        return balances.getOrDefault(user, 0);
+    }
+
+    /**
+     * Copy of every non-default balance.
+     */
+    public Map<String, Integer> getBalances() {
+        return Map.copyOf(balances);
+    }
+
+    /**
+     * Replaces all balances, e.g. with ones read from a snapshot.
+     */
+    public void restore(Map<String, Integer> snapshot) {
+        balances.clear();
+        balances.putAll(snapshot);
+    }
+
+    private void credit(String user, int amount) {
+        balances.merge(user, amount, Integer::sum);
+    }
+}
@@ -1,9 +1,15 @@
 package com.vitaliebocicov.chainpay.mining;
 
+import com.vitaliebocicov.chainpay.BlockSequencer;
 import com.vitaliebocicov.chainpay.Blockchain;
 import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.model.Target;
+import com.vitaliebocicov.chainpay.monitoring.MiningAttemptEvent;
 import com.vitaliebocicov.chainpay.security.KeysGenerator;
 import com.vitaliebocicov.chainpay.util.TransactionUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.security.KeyPair;
 import java.util.ArrayList;
@@ -11,21 +17,59 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+import static org.apache.logging.log4j.util.Unbox.box;
 
 public final class Miner extends Thread {
 
     public static final int MILISECONDS_IN_SECOND = 1000;
-    public static final int ONE_SECOND = 1000;
+    static final int ENGINE_BATCH = 256;
     public static final int BOUND = 50;
+    private static final Logger LOGGER = LogManager.getLogger(Miner.class);
     private final String id;
     private final Blockchain blockchain;
     private final KeyPair keys;
+    private final NonceSearch search;
+    private final BlockSequencer sequencer;
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder templates = new LongAdder();
+    private final LongAdder templateLatencyNanos = new LongAdder();
     private List<Miner> contacts;
 
     public Miner(int id, KeysGenerator keysGenerator) {
+        this(id, keysGenerator, null);
+    }
+
+    /**
+     * A miner that searches each block on the workers of {@code search};
+     * with a {@code null} search it hashes on its own thread.
+     */
+    public Miner(int id, KeysGenerator keysGenerator, NonceSearch search) {
+        this(id, keysGenerator, search, null);
+    }
+
+    /**
+     * A miner that submits found blocks to {@code sequencer}; with a
+     * {@code null} sequencer it accepts them into the chain itself.
+     */
+    public Miner(int id, KeysGenerator keysGenerator, NonceSearch search, BlockSequencer sequencer) {
+        this(id, keysGenerator.createKeyPair(), search, sequencer);
+    }
+
+    /**
+     * A miner signing with {@code keys}, e.g. generated ahead of time or
+     * loaded from a {@link com.vitaliebocicov.chainpay.store.KeyPairStore}.
+     */
+    public Miner(int id, KeyPair keys, NonceSearch search, BlockSequencer sequencer) {
         this.id = "miner" + id;
         this.blockchain = Blockchain.getInstance();
-        this.keys = keysGenerator.createKeyPair();
+        this.keys = keys;
+        this.search = search;
+        this.sequencer = sequencer;
     }
 
     @Override
@@ -33,7 +77,7 @@ public final class Miner extends Thread {
         while (blockchain.getSize() < blockchain.getChainSize()) {
             while (blockchain.isMagicNumberFound()) {
                 try {
-                    sleep(ONE_SECOND);
+                    blockchain.awaitMagicNumberCleared();
                 } catch (InterruptedException e) {
                     currentThread().interrupt();
                     return;
@@ -43,31 +87,82 @@ public final class Miner extends Thread {
                 break;
             }
             Block block = generate();
-            if (block != null) {
+            if (block == null) {
+                continue;
+            }
+            if (sequencer == null) {
                 blockchain.acceptBlock(block);
+            } else {
+                // The writer clears the found flag once the block is applied or rejected.
+                sequencer.submit(block);
             }
         }
     }
 
     public Block generate() {
-        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         long blockId = blockchain.getBlockCounter() + 1;
-        Block block = new Block(blockId,
-                blockchain.getLastBlockHash(),
-                blockchain.getPreviousBlockMessages(),
-                id,
-                blockchain.getZeroesInHash(),
-                blockchain.getMaxMessageIdPreviousBlock(),
-                blockchain.getRewardAmount());
-        boolean isMagicNumberFound = findMagicNumber(block, blockchain.getZeroesInHash(), ThreadLocalRandom.current());
-        long endTime = System.currentTimeMillis();
-        block.setGeneratedSeconds((endTime - startTime) / MILISECONDS_IN_SECOND);
+        Target target = blockchain.getTarget();
+        Block block;
+        if (target == null) {
+            block = new Block(blockId,
+                    blockchain.getLastBlockHash(),
+                    blockchain.getPreviousBlockMessages(),
+                    id,
+                    blockchain.getZeroesInHash(),
+                    blockchain.getMaxMessageIdPreviousBlock(),
+                    blockchain.getRewardAmount(),
+                    HashVersion.latest());
+        } else {
+            block = new Block(blockId,
+                    blockchain.getLastBlockHash(),
+                    blockchain.getPreviousBlockMessages(),
+                    id,
+                    blockchain.getMaxMessageIdPreviousBlock(),
+                    blockchain.getRewardAmount(),
+                    target);
+        }
+        recordTemplateLatency();
+        boolean isMagicNumberFound = findMagicNumber(block, block.getZeroesInHash(), ThreadLocalRandom.current());
+        long generateNanos = System.nanoTime() - startNanos;
+        block.setGeneratedSeconds(TimeUnit.NANOSECONDS.toSeconds(generateNanos));
+        block.setGenerateNanos(generateNanos);
         if (isMagicNumberFound) {
             return block;
         }
         return null;
     }
 
+    private void recordTemplateLatency() {
+        long acceptedNanos = blockchain.getTipAcceptedNanos();
+        if (acceptedNanos != 0) {
+            templates.increment();
+            templateLatencyNanos.add(System.nanoTime() - acceptedNanos);
+        }
+    }
+
+    /**
+     * Nonces hashed by this miner so far, including those of a parallel
+     * search still running.
+     */
+    public long getHashCount() {
+        return search == null ? hashes.sum() : hashes.sum() + search.getAttempts();
+    }
+
+    /**
+     * Number of block templates built after a block was accepted.
+     */
+    public long getTemplateCount() {
+        return templates.sum();
+    }
+
+    /**
+     * Total time from the acceptance of the tip to each of those templates.
+     */
+    public long getTemplateLatencyNanos() {
+        return templateLatencyNanos.sum();
+    }
+
     public String getMinerId() {
         return id;
     }
@@ -82,27 +177,57 @@ public final class Miner extends Thread {
         return new ArrayList<>(contacts);
     }
 
+    /**
+     * Scans the nonces from a random starting point on, so no nonce is
+     * tried twice for the same template.
+     */
     boolean findMagicNumber(Block block, int numberOfZeros, Random random) {
+        MiningAttemptEvent event = new MiningAttemptEvent();
+        event.begin();
+        long hashesBefore = getHashCount();
+        boolean found = searchMagicNumber(block, numberOfZeros, random);
+        if (event.shouldCommit()) {
+            event.emit(id, block.getId(), numberOfZeros, getHashCount() - hashesBefore, outcome(block, found));
+        }
+        return found;
+    }
+
+    private String outcome(Block block, boolean found) {
+        if (found) {
+            return MiningAttemptEvent.FOUND;
+        }
+        return blockchain.getBlockCounter() + 1 != block.getId() ? MiningAttemptEvent.STALE : MiningAttemptEvent.LOST;
+    }
+
+    private boolean searchMagicNumber(Block block, int numberOfZeros, Random random) {
         final double chanceToSendMessage = 1 / Math.pow(10, numberOfZeros + 1);
-        String zeroesInHash = "0".repeat(numberOfZeros);
-        String hashCode;
+        long firstNonce = random.nextLong();
 
-        System.out.println(id + " searching for block: " + block.getId());
+        LOGGER.debug("event=search_started miner={} block={} zeroes={}", id, box(block.getId()), box(numberOfZeros));
 
-        while (!blockchain.isMagicNumberFound()) {
-            long magicNumber = random.nextLong();
-            block.setMagicNumber(magicNumber);
-            hashCode = block.getHashCode();
+        if (search != null) {
+            return findMagicNumberInParallel(block, numberOfZeros, chanceToSendMessage, firstNonce, random);
+        }
 
+        Target target = block.getTarget();
+        NonceEngine engine = NonceEngine.forTemplate(block.getHashPrefix(), block.getHashVersion());
+        // Rolled once per batch, so the send chance is scaled to a batch.
+        double chancePerBatch = chanceToSendMessage * ENGINE_BATCH;
+        for (long batchStart = firstNonce; !blockchain.isMagicNumberFound(); batchStart += ENGINE_BATCH) {
             if (blockchain.getBlockCounter() + 1 != block.getId()) {
                 break;
             }
 
-            if (random.nextDouble(1) < chanceToSendMessage) {
+            if (random.nextDouble(1) < chancePerBatch) {
                 sendVirtualCoins(random);
             }
 
-            if (hashCode.startsWith(zeroesInHash) && !blockchain.isMagicNumberFound()) {
+            int index = target == null
+                    ? engine.findFirst(batchStart, ENGINE_BATCH, numberOfZeros)
+                    : engine.findFirst(batchStart, ENGINE_BATCH, target);
+            hashes.add(index >= 0 ? index + 1 : ENGINE_BATCH);
+            if (index >= 0 && !blockchain.isMagicNumberFound()) {
+                block.setMagicNumber(batchStart + index);
                 blockchain.setMagicNumberFound(true);
                 return true;
             }
@@ -111,10 +236,48 @@ public final class Miner extends Thread {
         return false;
     }
 
+    /**
+     * Hands the template to the workers of {@link #search} a span at a time,
+     * which with the default span is a single search. While they hash, this
+     * thread rolls for transfers on the nonces they report, once per
+     * {@link #ENGINE_BATCH} as the single-threaded search does, so the
+     * workers only hash.
+     */
+    private boolean findMagicNumberInParallel(Block block, int numberOfZeros, double chanceToSendMessage,
+                                              long firstNonce, Random random) {
+        BooleanSupplier cancelled = () -> blockchain.isMagicNumberFound()
+                || blockchain.getBlockCounter() + 1 != block.getId();
+        LongConsumer rollForTransfers = hashed -> {
+            for (long left = hashed; left > 0; left -= ENGINE_BATCH) {
+                if (random.nextDouble(1) < chanceToSendMessage * Math.min(left, ENGINE_BATCH)) {
+                    sendVirtualCoins(random);
+                }
+            }
+        };
+        Target target = block.getTarget();
+        byte[] prefix = block.getHashPrefix();
+        HashVersion version = block.getHashVersion();
+        long span = search.getSpan();
+        for (long start = firstNonce; !cancelled.getAsBoolean() && !currentThread().isInterrupted(); start += span) {
+            Long magicNumber = target == null
+                    ? search.find(prefix, version, numberOfZeros, start, span, cancelled, rollForTransfers)
+                    : search.find(prefix, version, target, start, span, cancelled, rollForTransfers);
+            if (magicNumber != null && !blockchain.isMagicNumberFound()) {
+                block.setMagicNumber(magicNumber);
+                blockchain.setMagicNumberFound(true);
+                return true;
+            }
+        }
+        return false;
+    }
+
     void sendVirtualCoins(Random random) {
-        System.out.println("SENDING");
+        if (contacts == null || contacts.isEmpty()) {
+            return;
+        }
         Miner receiver = contacts.get(random.nextInt(contacts.size()));
         int amountToSend = random.nextInt(0, BOUND) + 1;
+        LOGGER.debug("event=coins_sent sender={} receiver={} amount={}", id, receiver.getMinerId(), box(amountToSend));
         TransactionUtil.sendVirtualCoins(this, receiver, amountToSend, keys);
     }
 
@@ -0,0 +1,63 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.model.Target;
+
+/**
+ * Hashes runs of consecutive nonces for one block template. Instances are
+ * not thread-safe; every mining thread creates its own with
+ * {@link #forTemplate(byte[], HashVersion)}.
+ * <p>
+ * The engine is picked with {@code -Dchainpay.mining.engine}: {@code scalar}
+ * (the default) hashes one nonce at a time with {@link NonceHasher};
+ * {@code vector} hashes several nonces per step in SIMD lanes and needs
+ * {@code --add-modules jdk.incubator.vector}. Without the module, and for
+ * {@link HashVersion#STRING} templates, whose decimal nonces differ in
+ * length, the vector engine falls back to the scalar one.
+ */
+public interface NonceEngine {
+
+    String ENGINE_PROPERTY = "chainpay.mining.engine";
+    String VECTOR = "vector";
+
+    /**
+     * Index of the first nonce in {@code [firstNonce, firstNonce + count)}
+     * whose hash has {@code zeroes} leading zero hex digits, or -1.
+     */
+    int findFirst(long firstNonce, int count, int zeroes);
+
+    /**
+     * Index of the first nonce in {@code [firstNonce, firstNonce + count)}
+     * whose hash meets {@code target}, or -1. Only nonces with as many
+     * leading zeroes as the target are compared to it in full.
+     */
+    default int findFirst(long firstNonce, int count, Target target) {
+        int zeroes = target.leadingZeroNibbles();
+        int offset = 0;
+        while (offset < count) {
+            int index = findFirst(firstNonce + offset, count - offset, zeroes);
+            if (index < 0) {
+                return -1;
+            }
+            if (target.isMetBy(hash(firstNonce + offset + index))) {
+                return offset + index;
+            }
+            offset += index + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Hash of a single nonce; the returned array may be reused by the next call.
+     */
+    byte[] hash(long nonce);
+
+    static NonceEngine forTemplate(byte[] prefix, HashVersion hashVersion) {
+        NonceHasher hasher = new NonceHasher(prefix, hashVersion);
+        if (VECTOR.equals(System.getProperty(ENGINE_PROPERTY)) && hashVersion != HashVersion.STRING
+                && NonceEngines.isVectorAvailable()) {
+            return NonceEngines.vector(hasher);
+        }
+        return NonceEngines.scalar(hasher);
+    }
+}
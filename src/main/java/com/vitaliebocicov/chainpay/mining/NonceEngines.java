@@ -0,0 +1,49 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.util.HashUtil;
+
+/**
+ * The {@link NonceEngine} implementations. The vector engine is only loaded
+ * reflectively, so that this class links without the incubator module.
+ */
+final class NonceEngines {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_ENGINE = "com.vitaliebocicov.chainpay.mining.VectorNonceEngine";
+    private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+
+    private NonceEngines() { }
+
+    static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    static NonceEngine scalar(NonceHasher hasher) {
+        return new NonceEngine() {
+            @Override
+            public int findFirst(long firstNonce, int count, int zeroes) {
+                for (int i = 0; i < count; i++) {
+                    if (HashUtil.hasLeadingZeroNibbles(hasher.hash(firstNonce + i), zeroes)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+
+            @Override
+            public byte[] hash(long nonce) {
+                return hasher.hash(nonce);
+            }
+        };
+    }
+
+    static NonceEngine vector(NonceHasher hasher) {
+        try {
+            return (NonceEngine) Class.forName(VECTOR_ENGINE)
+                    .getDeclaredConstructor(NonceHasher.class)
+                    .newInstance(hasher);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return scalar(hasher);
+        }
+    }
+}
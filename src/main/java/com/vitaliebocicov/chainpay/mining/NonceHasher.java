@@ -0,0 +1,186 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.HashVersion;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * SHA-256 of a fixed block prefix followed by a nonce, the same input
+ * {@link com.vitaliebocicov.chainpay.model.Block#getHash()} hashes: the nonce
+ * is appended in decimal for {@link HashVersion#STRING} blocks and as 8
+ * big-endian bytes for the binary versions.
+ * The full 64-byte chunks of the prefix are compressed once (the midstate);
+ * every nonce then only runs the remaining one or two chunks, reusing the
+ * same buffers. Instances are not thread-safe.
+ */
+public final class NonceHasher {
+
+    public static final int HASH_LENGTH = 32;
+    static final int CHUNK_LENGTH = 64;
+    static final int LENGTH_FIELD = 8;
+    private static final int MAX_NONCE_DIGITS = 20;
+
+    static final int[] K = {
+        0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+        0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+        0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+        0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+        0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+        0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+        0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+        0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    private static final int[] INITIAL_STATE = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    private final int[] midstate = INITIAL_STATE.clone();
+    private final HashVersion hashVersion;
+    private final long prefixLength;
+    private final int tailLength;
+    private final byte[] buffer = new byte[2 * CHUNK_LENGTH];
+    private final byte[] digits = new byte[MAX_NONCE_DIGITS];
+    private final int[] state = new int[INITIAL_STATE.length];
+    private final int[] schedule = new int[CHUNK_LENGTH];
+    private final byte[] hash = new byte[HASH_LENGTH];
+
+    public NonceHasher(String prefix) {
+        this(prefix.getBytes(StandardCharsets.UTF_8), HashVersion.STRING);
+    }
+
+    public NonceHasher(byte[] prefix, HashVersion hashVersion) {
+        this.hashVersion = hashVersion;
+        int fullChunks = prefix.length / CHUNK_LENGTH;
+        for (int i = 0; i < fullChunks; i++) {
+            compress(midstate, prefix, i * CHUNK_LENGTH);
+        }
+        this.prefixLength = prefix.length;
+        this.tailLength = prefix.length - fullChunks * CHUNK_LENGTH;
+        System.arraycopy(prefix, fullChunks * CHUNK_LENGTH, buffer, 0, tailLength);
+    }
+
+    /**
+     * Hashes the prefix followed by the encoded {@code nonce}.
+     * The returned array is reused by the next call.
+     */
+    public byte[] hash(long nonce) {
+        int digitsStart = hashVersion == HashVersion.STRING ? writeDecimal(nonce) : writeBigEndian(nonce);
+        int digitsLength = MAX_NONCE_DIGITS - digitsStart;
+        System.arraycopy(digits, digitsStart, buffer, tailLength, digitsLength);
+
+        int messageEnd = tailLength + digitsLength;
+        int chunks = messageEnd + 1 + LENGTH_FIELD > CHUNK_LENGTH ? 2 : 1;
+        int lengthOffset = chunks * CHUNK_LENGTH - LENGTH_FIELD;
+        buffer[messageEnd] = (byte) 0x80;
+        for (int i = messageEnd + 1; i < lengthOffset; i++) {
+            buffer[i] = 0;
+        }
+        long bitLength = (prefixLength + digitsLength) * Byte.SIZE;
+        for (int i = 0; i < LENGTH_FIELD; i++) {
+            buffer[lengthOffset + i] = (byte) (bitLength >>> (Byte.SIZE * (LENGTH_FIELD - 1 - i)));
+        }
+
+        System.arraycopy(midstate, 0, state, 0, state.length);
+        for (int i = 0; i < chunks; i++) {
+            compress(state, buffer, i * CHUNK_LENGTH);
+        }
+        for (int i = 0; i < state.length; i++) {
+            hash[4 * i] = (byte) (state[i] >>> 24);
+            hash[4 * i + 1] = (byte) (state[i] >>> 16);
+            hash[4 * i + 2] = (byte) (state[i] >>> 8);
+            hash[4 * i + 3] = (byte) state[i];
+        }
+        return hash;
+    }
+
+    /**
+     * State after compressing the full chunks of the prefix.
+     */
+    int[] midstate() {
+        return midstate.clone();
+    }
+
+    /**
+     * Prefix bytes after its last full chunk.
+     */
+    byte[] tail() {
+        return Arrays.copyOf(buffer, tailLength);
+    }
+
+    long prefixLength() {
+        return prefixLength;
+    }
+
+    private int writeBigEndian(long value) {
+        int pos = MAX_NONCE_DIGITS - Long.BYTES;
+        for (int i = 0; i < Long.BYTES; i++) {
+            digits[pos + i] = (byte) (value >>> (Byte.SIZE * (Long.BYTES - 1 - i)));
+        }
+        return pos;
+    }
+
+    private int writeDecimal(long value) {
+        // Works on the negative magnitude so that Long.MIN_VALUE needs no special case.
+        long remaining = value < 0 ? value : -value;
+        int pos = MAX_NONCE_DIGITS;
+        do {
+            digits[--pos] = (byte) ('0' - remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--pos] = '-';
+        }
+        return pos;
+    }
+
+    private void compress(int[] h, byte[] chunk, int offset) {
+        int[] w = schedule;
+        for (int i = 0; i < 16; i++) {
+            int p = offset + 4 * i;
+            w[i] = (chunk[p] & 0xff) << 24
+                    | (chunk[p + 1] & 0xff) << 16
+                    | (chunk[p + 2] & 0xff) << 8
+                    | chunk[p + 3] & 0xff;
+        }
+        for (int i = 16; i < CHUNK_LENGTH; i++) {
+            int s0 = Integer.rotateRight(w[i - 15], 7) ^ Integer.rotateRight(w[i - 15], 18) ^ (w[i - 15] >>> 3);
+            int s1 = Integer.rotateRight(w[i - 2], 17) ^ Integer.rotateRight(w[i - 2], 19) ^ (w[i - 2] >>> 10);
+            w[i] = w[i - 16] + s0 + w[i - 7] + s1;
+        }
+
+        int a = h[0];
+        int b = h[1];
+        int c = h[2];
+        int d = h[3];
+        int e = h[4];
+        int f = h[5];
+        int g = h[6];
+        int hh = h[7];
+        for (int i = 0; i < CHUNK_LENGTH; i++) {
+            int s1 = Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ (~e & g);
+            int t1 = hh + s1 + ch + K[i] + w[i];
+            int s0 = Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & b) ^ (a & c) ^ (b & c);
+            int t2 = s0 + maj;
+            hh = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + t2;
+        }
+        h[0] += a;
+        h[1] += b;
+        h[2] += c;
+        h[3] += d;
+        h[4] += e;
+        h[5] += f;
+        h[6] += g;
+        h[7] += hh;
+    }
+}
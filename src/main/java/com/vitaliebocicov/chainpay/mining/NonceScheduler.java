@@ -0,0 +1,149 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Splits the nonce space of one block template into disjoint ranges, one per
+ * worker. A worker takes batches from the front of its own range; once the
+ * range is used up it steals the back half of the largest range left, so no
+ * worker idles while nonces remain and no nonce is handed out twice.
+ * <p>
+ * The space is {@code size} consecutive nonces starting at {@code first},
+ * wrapping around at {@link Long#MAX_VALUE}.
+ */
+public final class NonceScheduler {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private final long first;
+    private final int batchSize;
+    private final Range[] ranges;
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+
+    public NonceScheduler(long first, long size, int workers, int batchSize) {
+        if (size < 0 || workers < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Invalid nonce space: size " + size + ", workers " + workers
+                    + ", batch size " + batchSize);
+        }
+        this.first = first;
+        this.batchSize = batchSize;
+        this.ranges = new Range[workers];
+        long share = size / workers;
+        long start = 0;
+        for (int i = 0; i < workers; i++) {
+            long end = i == workers - 1 ? size : start + share;
+            ranges[i] = new Range(start, end);
+            start = end;
+        }
+    }
+
+    /**
+     * Next nonces for {@code worker} to try, or {@code null} once every nonce
+     * in the space has been handed out.
+     */
+    public Batch claim(int worker) {
+        Range own = ranges[worker];
+        while (true) {
+            Batch batch = own.take(first, batchSize);
+            if (batch != null) {
+                claimed.add(batch.size());
+                return batch;
+            }
+            if (!steal(own)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Nonces handed out so far; never more than the size of the space.
+     */
+    public long getClaimed() {
+        return claimed.sum();
+    }
+
+    public long getSteals() {
+        return steals.sum();
+    }
+
+    private boolean steal(Range thief) {
+        while (true) {
+            Range victim = null;
+            long most = 0;
+            for (Range range : ranges) {
+                long remaining = range.remaining();
+                if (range != thief && remaining > most) {
+                    victim = range;
+                    most = remaining;
+                }
+            }
+            if (victim == null) {
+                return false;
+            }
+            long[] stolen = victim.splitOffBack(batchSize);
+            if (stolen != null) {
+                thief.reset(stolen[0], stolen[1]);
+                steals.increment();
+                return true;
+            }
+            // The victim was drained or split by someone else meanwhile; look again.
+        }
+    }
+
+    /**
+     * {@code size} nonces starting at {@code first}.
+     */
+    public record Batch(long first, int size) {
+        public long nonce(int index) {
+            return first + index;
+        }
+    }
+
+    /**
+     * Offsets {@code [next, end)} into the nonce space.
+     */
+    private static final class Range {
+        private long next;
+        private long end;
+
+        Range(long next, long end) {
+            this.next = next;
+            this.end = end;
+        }
+
+        synchronized long remaining() {
+            return end - next;
+        }
+
+        synchronized Batch take(long first, int batchSize) {
+            if (next == end) {
+                return null;
+            }
+            int size = (int) Math.min(batchSize, end - next);
+            Batch batch = new Batch(first + next, size);
+            next += size;
+            return batch;
+        }
+
+        /**
+         * Gives up the back half of the range, or all of it when that is
+         * less than two batches.
+         */
+        synchronized long[] splitOffBack(int batchSize) {
+            long remaining = end - next;
+            if (remaining == 0) {
+                return null;
+            }
+            long from = remaining < 2L * batchSize ? next : next + remaining / 2;
+            long[] stolen = {from, end};
+            end = from;
+            return stolen;
+        }
+
+        synchronized void reset(long from, long to) {
+            next = from;
+            end = to;
+        }
+    }
+}
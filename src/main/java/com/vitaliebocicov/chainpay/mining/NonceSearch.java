@@ -0,0 +1,226 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.model.Target;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Searches one block template's nonce space with several workers on a
+ * fork/join pool. A {@link NonceScheduler} gives every worker its own
+ * nonces, so the workers never hash the same input twice. Each worker keeps
+ * its engine for the whole search, and the calling thread only waits, so
+ * workers never wait for each other.
+ */
+public final class NonceSearch {
+
+    /**
+     * Nonces a miner searches per template: the space from its random start
+     * on, which no search gets through.
+     */
+    public static final long WHOLE_SPACE = Long.MAX_VALUE;
+    private static final long POLL_MILLIS = 10;
+    private static final LongConsumer NO_PROGRESS = hashed -> { };
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final int batchSize;
+    private final long span;
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+
+    public NonceSearch(ForkJoinPool pool, int workers) {
+        this(pool, workers, NonceScheduler.DEFAULT_BATCH_SIZE);
+    }
+
+    public NonceSearch(ForkJoinPool pool, int workers, int batchSize) {
+        this(pool, workers, batchSize, WHOLE_SPACE);
+    }
+
+    /**
+     * A search whose {@link #getSpan()} is {@code span} nonces instead of
+     * {@link #WHOLE_SPACE}, so that a miner's workers run out of nonces and
+     * steal from each other.
+     */
+    public NonceSearch(ForkJoinPool pool, int workers, int batchSize, long span) {
+        this.pool = pool;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.span = span;
+    }
+
+    /**
+     * Returns a nonce whose hash has {@code zeroes} leading zero hex digits,
+     * trying {@code size} nonces from {@code firstNonce} on; {@code null} when
+     * none does or when {@code cancelled}, checked once per batch, turns true.
+     */
+    public Long find(byte[] prefix, HashVersion hashVersion, int zeroes, long firstNonce, long size,
+                     BooleanSupplier cancelled) {
+        return find(prefix, hashVersion, zeroes, firstNonce, size, cancelled, NO_PROGRESS);
+    }
+
+    /**
+     * As {@link #find(byte[], HashVersion, int, long, long, BooleanSupplier)},
+     * calling {@code progress} on this thread while it waits, and once at the
+     * end, with the nonces hashed since its last call.
+     */
+    public Long find(byte[] prefix, HashVersion hashVersion, int zeroes, long firstNonce, long size,
+                     BooleanSupplier cancelled, LongConsumer progress) {
+        return find(prefix, hashVersion, (engine, first, count) -> engine.findFirst(first, count, zeroes),
+                firstNonce, size, cancelled, progress);
+    }
+
+    /**
+     * As {@link #find(byte[], HashVersion, int, long, long, BooleanSupplier)},
+     * for a nonce whose hash meets {@code target}.
+     */
+    public Long find(byte[] prefix, HashVersion hashVersion, Target target, long firstNonce, long size,
+                     BooleanSupplier cancelled) {
+        return find(prefix, hashVersion, target, firstNonce, size, cancelled, NO_PROGRESS);
+    }
+
+    /**
+     * As {@link #find(byte[], HashVersion, int, long, long, BooleanSupplier, LongConsumer)},
+     * for a nonce whose hash meets {@code target}.
+     */
+    public Long find(byte[] prefix, HashVersion hashVersion, Target target, long firstNonce, long size,
+                     BooleanSupplier cancelled, LongConsumer progress) {
+        return find(prefix, hashVersion, (engine, first, count) -> engine.findFirst(first, count, target),
+                firstNonce, size, cancelled, progress);
+    }
+
+    private Long find(byte[] prefix, HashVersion hashVersion, BatchMatcher matcher, long firstNonce, long size,
+                      BooleanSupplier cancelled, LongConsumer progress) {
+        NonceScheduler scheduler = new NonceScheduler(firstNonce, size, workers, batchSize);
+        SearchState state = new SearchState(workers);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            tasks.add(pool.submit(() -> {
+                try {
+                    search(worker, scheduler, NonceEngine.forTemplate(prefix, hashVersion), matcher, cancelled,
+                            state);
+                } catch (RuntimeException | Error e) {
+                    state.finished.countDown();
+                    throw e;
+                } finally {
+                    state.exit();
+                }
+            }));
+        }
+        long reported = 0;
+        try {
+            while (!state.finished.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                long hashed = state.hashed.sum();
+                progress.accept(hashed - reported);
+                reported = hashed;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Workers still running stop at their next batch; those not started yet never do.
+            state.stop.set(true);
+            tasks.forEach(task -> task.cancel(false));
+        }
+        progress.accept(state.hashed.sum() - reported);
+        steals.add(scheduler.getSteals());
+        for (ForkJoinTask<?> task : tasks) {
+            if (task.isCompletedAbnormally() && !(task.getException() instanceof CancellationException)) {
+                throw new IllegalStateException("Nonce search failed", task.getException());
+            }
+        }
+        Long nonce = state.found.get();
+        return nonce != null && !cancelled.getAsBoolean() && !Thread.currentThread().isInterrupted() ? nonce : null;
+    }
+
+    private void search(int worker, NonceScheduler scheduler, NonceEngine engine, BatchMatcher matcher,
+                        BooleanSupplier cancelled, SearchState state) {
+        while (!state.stop.get()) {
+            if (cancelled.getAsBoolean()) {
+                state.finished.countDown();
+                return;
+            }
+            NonceScheduler.Batch batch = scheduler.claim(worker);
+            if (batch == null) {
+                return;
+            }
+            int index = matcher.findFirst(engine, batch.first(), batch.size());
+            if (index >= 0) {
+                state.add(index + 1);
+                if (state.found.compareAndSet(null, batch.nonce(index))) {
+                    state.finished.countDown();
+                }
+                return;
+            }
+            state.add(batch.size());
+        }
+    }
+
+    /**
+     * What the workers of one search share with the thread waiting for them.
+     * {@code finished} opens once a nonce is found, a worker sees the search
+     * cancelled, or every worker has run out of nonces.
+     */
+    private final class SearchState {
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final AtomicReference<Long> found = new AtomicReference<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final LongAdder hashed = new LongAdder();
+        final AtomicInteger running;
+
+        SearchState(int workers) {
+            running = new AtomicInteger(workers);
+        }
+
+        void add(long nonces) {
+            hashed.add(nonces);
+            attempts.add(nonces);
+        }
+
+        void exit() {
+            if (running.decrementAndGet() == 0) {
+                finished.countDown();
+            }
+        }
+    }
+
+    /**
+     * The difficulty check of one search, applied to a batch.
+     */
+    private interface BatchMatcher {
+        int findFirst(NonceEngine engine, long firstNonce, int count);
+    }
+
+    /**
+     * Nonces a miner hands to one search before starting another.
+     */
+    public long getSpan() {
+        return span;
+    }
+
+    /**
+     * Hashes computed by all searches so far.
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * Ranges taken over from another worker by all searches so far.
+     */
+    public long getSteals() {
+        return steals.sum();
+    }
+}
@@ -0,0 +1,198 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link NonceEngine} hashing one nonce per SIMD lane: the lanes share the
+ * prefix midstate and differ only in the message words holding the 8-byte
+ * big-endian nonce, so every round runs once for all lanes. Nonces left
+ * over after the last full step are hashed by the scalar {@link NonceHasher}.
+ * Loaded by {@link NonceEngines} only when {@code jdk.incubator.vector} is
+ * present.
+ */
+final class VectorNonceEngine implements NonceEngine {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    static final int LANES = SPECIES.length();
+    private static final int WORDS_PER_CHUNK = NonceHasher.CHUNK_LENGTH / Integer.BYTES;
+    private static final int STATE_WORDS = 8;
+    private static final int NIBBLES_PER_WORD = 8;
+    private static final int BITS_PER_NIBBLE = 4;
+
+    private final NonceHasher scalar;
+    private final int[] midstate;
+    private final int[] template;
+    private final int chunks;
+    private final int nonceOffset;
+    private final int[] schedule = new int[NonceHasher.CHUNK_LENGTH * LANES];
+    private final IntVector[] state = new IntVector[STATE_WORDS];
+
+    VectorNonceEngine(NonceHasher scalar) {
+        this.scalar = scalar;
+        this.midstate = scalar.midstate();
+        byte[] tail = scalar.tail();
+        this.nonceOffset = tail.length;
+        int messageEnd = tail.length + Long.BYTES;
+        this.chunks = messageEnd + 1 + NonceHasher.LENGTH_FIELD > NonceHasher.CHUNK_LENGTH ? 2 : 1;
+        byte[] padded = new byte[chunks * NonceHasher.CHUNK_LENGTH];
+        System.arraycopy(tail, 0, padded, 0, tail.length);
+        padded[messageEnd] = (byte) 0x80;
+        long bitLength = (scalar.prefixLength() + Long.BYTES) * Byte.SIZE;
+        for (int i = 0; i < NonceHasher.LENGTH_FIELD; i++) {
+            padded[padded.length - 1 - i] = (byte) (bitLength >>> (Byte.SIZE * i));
+        }
+        this.template = new int[chunks * WORDS_PER_CHUNK];
+        for (int i = 0; i < template.length; i++) {
+            template[i] = (padded[4 * i] & 0xff) << 24
+                    | (padded[4 * i + 1] & 0xff) << 16
+                    | (padded[4 * i + 2] & 0xff) << 8
+                    | padded[4 * i + 3] & 0xff;
+        }
+    }
+
+    @Override
+    public int findFirst(long firstNonce, int count, int zeroes) {
+        if (zeroes > STATE_WORDS * NIBBLES_PER_WORD) {
+            return -1;
+        }
+        int index = 0;
+        for (; index + LANES <= count; index += LANES) {
+            hashLanes(firstNonce + index);
+            int lane = firstMatchingLane(zeroes);
+            if (lane >= 0) {
+                return index + lane;
+            }
+        }
+        for (; index < count; index++) {
+            if (HashUtil.hasLeadingZeroNibbles(scalar.hash(firstNonce + index), zeroes)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public byte[] hash(long nonce) {
+        return scalar.hash(nonce);
+    }
+
+    /**
+     * Hashes {@link #LANES} nonces from {@code firstNonce} on; word {@code w}
+     * of lane {@code l}'s hash is {@code words[w * LANES + l]}.
+     */
+    void hash(long firstNonce, int[] words) {
+        hashLanes(firstNonce);
+        for (int w = 0; w < STATE_WORDS; w++) {
+            state[w].intoArray(words, w * LANES);
+        }
+    }
+
+    private int firstMatchingLane(int zeroes) {
+        VectorMask<Integer> matches = SPECIES.maskAll(true);
+        for (int w = 0; w * NIBBLES_PER_WORD < zeroes; w++) {
+            int nibbles = Math.min(NIBBLES_PER_WORD, zeroes - w * NIBBLES_PER_WORD);
+            int shift = Integer.SIZE - BITS_PER_NIBBLE * nibbles;
+            matches = matches.and(state[w].lanewise(VectorOperators.LSHR, shift).eq(0));
+            if (!matches.anyTrue()) {
+                return -1;
+            }
+        }
+        return matches.firstTrue();
+    }
+
+    private void hashLanes(long firstNonce) {
+        for (int w = 0; w < STATE_WORDS; w++) {
+            state[w] = IntVector.broadcast(SPECIES, midstate[w]);
+        }
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            loadChunk(chunk, firstNonce);
+            compress();
+        }
+    }
+
+    private void loadChunk(int chunk, long firstNonce) {
+        for (int j = 0; j < WORDS_PER_CHUNK; j++) {
+            int word = chunk * WORDS_PER_CHUNK + j;
+            int wordStart = word * Integer.BYTES;
+            int base = template[word];
+            boolean holdsNonce = wordStart < nonceOffset + Long.BYTES && wordStart + Integer.BYTES > nonceOffset;
+            for (int lane = 0; lane < LANES; lane++) {
+                schedule[j * LANES + lane] = holdsNonce ? base | nonceBits(firstNonce + lane, wordStart) : base;
+            }
+        }
+        for (int i = WORDS_PER_CHUNK; i < NonceHasher.CHUNK_LENGTH; i++) {
+            IntVector w15 = IntVector.fromArray(SPECIES, schedule, (i - 15) * LANES);
+            IntVector w2 = IntVector.fromArray(SPECIES, schedule, (i - 2) * LANES);
+            IntVector s0 = w15.lanewise(VectorOperators.ROR, 7)
+                    .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.ROR, 18))
+                    .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.LSHR, 3));
+            IntVector s1 = w2.lanewise(VectorOperators.ROR, 17)
+                    .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.ROR, 19))
+                    .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.LSHR, 10));
+            IntVector.fromArray(SPECIES, schedule, (i - 16) * LANES)
+                    .add(s0)
+                    .add(IntVector.fromArray(SPECIES, schedule, (i - 7) * LANES))
+                    .add(s1)
+                    .intoArray(schedule, i * LANES);
+        }
+    }
+
+    /**
+     * The bits of {@code nonce} that fall into the word starting at byte {@code wordStart}.
+     */
+    private int nonceBits(long nonce, int wordStart) {
+        int bits = 0;
+        for (int b = 0; b < Integer.BYTES; b++) {
+            int k = wordStart + b - nonceOffset;
+            if (k >= 0 && k < Long.BYTES) {
+                int value = (int) (nonce >>> (Byte.SIZE * (Long.BYTES - 1 - k))) & 0xff;
+                bits |= value << (Byte.SIZE * (Integer.BYTES - 1 - b));
+            }
+        }
+        return bits;
+    }
+
+    private void compress() {
+        IntVector a = state[0];
+        IntVector b = state[1];
+        IntVector c = state[2];
+        IntVector d = state[3];
+        IntVector e = state[4];
+        IntVector f = state[5];
+        IntVector g = state[6];
+        IntVector h = state[7];
+        for (int i = 0; i < NonceHasher.CHUNK_LENGTH; i++) {
+            IntVector s1 = e.lanewise(VectorOperators.ROR, 6)
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 11))
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 25));
+            IntVector ch = e.and(f).lanewise(VectorOperators.XOR, e.not().and(g));
+            IntVector t1 = h.add(s1).add(ch).add(NonceHasher.K[i])
+                    .add(IntVector.fromArray(SPECIES, schedule, i * LANES));
+            IntVector s0 = a.lanewise(VectorOperators.ROR, 2)
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 13))
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 22));
+            IntVector maj = a.and(b).lanewise(VectorOperators.XOR, a.and(c)).lanewise(VectorOperators.XOR, b.and(c));
+            IntVector t2 = s0.add(maj);
+            h = g;
+            g = f;
+            f = e;
+            e = d.add(t1);
+            d = c;
+            c = b;
+            b = a;
+            a = t1.add(t2);
+        }
+        state[0] = state[0].add(a);
+        state[1] = state[1].add(b);
+        state[2] = state[2].add(c);
+        state[3] = state[3].add(d);
+        state[4] = state[4].add(e);
+        state[5] = state[5].add(f);
+        state[6] = state[6].add(g);
+        state[7] = state[7].add(h);
+    }
+}
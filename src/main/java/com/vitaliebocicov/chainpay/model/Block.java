@@ -1,7 +1,10 @@
 package com.vitaliebocicov.chainpay.model;
 
+import com.vitaliebocicov.chainpay.util.HashUtil;
 import com.vitaliebocicov.chainpay.util.StringUtil;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -10,37 +13,112 @@ public final class Block {
     private final String minerId;
     private final long id;
     private final long timestamp;
-    private final String previousBlockHash;
+    private final Hash256 previousBlockHash;
     private long magicNumber;
     private long generateSeconds;
+    private long generateNanos;
     private String numberOfZerosStatus;
     private final List<Message> messages;
     private int zeroesInHash;
     private final long maxMessageIdPreviousBlock;
     private final int rewardAmount;
+    private final HashVersion hashVersion;
+    private final Target target;
     private final String staticHashData;
+    private final byte[] messagesHash;
+    private final MerkleTree messageTree;
+    private volatile byte[] header;
 
     public Block(long blockId,
-                 String previousBlockHash,
+                 Hash256 previousBlockHash,
                  List<Message> messages,
                  String minerId,
                  int zeroesInHash,
                  long maxMessageIdPreviousBlock,
                  int rewardAmount) {
+        this(blockId, previousBlockHash, messages, minerId, zeroesInHash, maxMessageIdPreviousBlock, rewardAmount,
+                HashVersion.STRING);
+    }
+
+    public Block(long blockId,
+                 Hash256 previousBlockHash,
+                 List<Message> messages,
+                 String minerId,
+                 int zeroesInHash,
+                 long maxMessageIdPreviousBlock,
+                 int rewardAmount,
+                 HashVersion hashVersion) {
+        this(blockId, new Date().getTime(), previousBlockHash, messages, minerId, zeroesInHash,
+                maxMessageIdPreviousBlock, rewardAmount, hashVersion, null);
+    }
+
+    /**
+     * A {@link HashVersion#TARGET} block, whose hash must not exceed {@code target}.
+     */
+    public Block(long blockId,
+                 Hash256 previousBlockHash,
+                 List<Message> messages,
+                 String minerId,
+                 long maxMessageIdPreviousBlock,
+                 int rewardAmount,
+                 Target target) {
+        this(blockId, new Date().getTime(), previousBlockHash, messages, minerId, target.leadingZeroNibbles(),
+                maxMessageIdPreviousBlock, rewardAmount, HashVersion.TARGET, target);
+    }
+
+    public Block(long blockId,
+                 long timestamp,
+                 Hash256 previousBlockHash,
+                 List<Message> messages,
+                 String minerId,
+                 int zeroesInHash,
+                 long maxMessageIdPreviousBlock,
+                 int rewardAmount,
+                 HashVersion hashVersion) {
+        this(blockId, timestamp, previousBlockHash, messages, minerId, zeroesInHash, maxMessageIdPreviousBlock,
+                rewardAmount, hashVersion, null);
+    }
+
+    public Block(long blockId,
+                 long timestamp,
+                 Hash256 previousBlockHash,
+                 List<Message> messages,
+                 String minerId,
+                 int zeroesInHash,
+                 long maxMessageIdPreviousBlock,
+                 int rewardAmount,
+                 HashVersion hashVersion,
+                 Target target) {
+        if ((hashVersion == HashVersion.TARGET) != (target != null)) {
+            throw new IllegalArgumentException("Only " + HashVersion.TARGET + " blocks carry a target");
+        }
         this.id = blockId;
         this.previousBlockHash = previousBlockHash;
         this.zeroesInHash = zeroesInHash;
         this.maxMessageIdPreviousBlock = maxMessageIdPreviousBlock;
         this.rewardAmount = rewardAmount;
-        this.timestamp = new Date().getTime();
+        this.timestamp = timestamp;
         this.minerId = minerId;
         this.messages = messages;
-        String messagesHash = computeMessagesHash(messages);
-        this.staticHashData = String.valueOf(id)
-                + timestamp
-                + previousBlockHash
-                + messagesHash
-                + maxMessageIdPreviousBlock;
+        this.hashVersion = hashVersion;
+        this.target = target;
+        if (hashVersion == HashVersion.STRING) {
+            this.messagesHash = null;
+            this.messageTree = null;
+            this.staticHashData = String.valueOf(id)
+                    + timestamp
+                    + previousBlockHash
+                    + computeMessagesHash(messages)
+                    + maxMessageIdPreviousBlock;
+        } else if (hashVersion == HashVersion.BINARY) {
+            this.messagesHash = CanonicalCodec.messagesHash(messages);
+            this.messageTree = null;
+            this.staticHashData = null;
+        } else {
+            this.messageTree = MerkleTree.of(messages);
+            this.messagesHash = messageTree.root();
+            this.staticHashData = null;
+        }
     }
 
     String computeMessagesHash(List<Message> messages) {
@@ -51,15 +129,90 @@ public final class Block {
         return StringUtil.applySha256(messageData.toString());
     }
 
-    public String getPreviousBlockHash() {
+    public Hash256 getPreviousBlockHash() {
         return previousBlockHash;
     }
 
-    public String getHashCode() {
-        return StringUtil.applySha256(
-                staticHashData
-                        + magicNumber
-        );
+    public HashVersion getHashVersion() {
+        return hashVersion;
+    }
+
+    /**
+     * Legacy hash input of a {@link HashVersion#STRING} block, {@code null} otherwise.
+     */
+    public String getStaticHashData() {
+        return staticHashData;
+    }
+
+    /**
+     * The constant part of the hash input, which the magic number is appended to.
+     */
+    public byte[] getHashPrefix() {
+        if (hashVersion == HashVersion.STRING) {
+            return staticHashData.getBytes(StandardCharsets.UTF_8);
+        }
+        return binaryHeader().clone();
+    }
+
+    /**
+     * The target the block's hash must not exceed, {@code null} unless the
+     * block is {@link HashVersion#TARGET}; other blocks need
+     * {@link #getZeroesInHash()} leading zeroes instead.
+     */
+    public Target getTarget() {
+        return target;
+    }
+
+    /**
+     * Root of the Merkle tree over the block's messages, {@code null} unless
+     * its version {@link HashVersion#hasMerkleRoot() has one}.
+     */
+    public byte[] getMessagesRoot() {
+        return messageTree == null ? null : messagesHash.clone();
+    }
+
+    /**
+     * Proof that the message with the given id is in this block, to be checked
+     * against {@link #getMessagesRoot()}; {@code null} when the block has no
+     * such message or no Merkle root.
+     */
+    public MerkleProof getInclusionProof(long messageId) {
+        if (messageTree == null) {
+            return null;
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i).getId() == messageId) {
+                return messageTree.proof(i);
+            }
+        }
+        return null;
+    }
+
+    public Hash256 getHashCode() {
+        return Hash256.of(getHash());
+    }
+
+    public byte[] getHash() {
+        if (hashVersion == HashVersion.STRING) {
+            return HashUtil.sha256(
+                    staticHashData
+                            + magicNumber
+            );
+        }
+        byte[] prefix = binaryHeader();
+        return HashUtil.sha256(ByteBuffer.allocate(prefix.length + Long.BYTES)
+                .put(prefix)
+                .putLong(magicNumber)
+                .array());
+    }
+
+    private byte[] binaryHeader() {
+        byte[] cached = header;
+        if (cached == null) {
+            cached = CanonicalCodec.blockHeader(this, messagesHash);
+            header = cached;
+        }
+        return cached;
     }
 
     public void setGeneratedSeconds(long l) {
@@ -74,6 +227,17 @@ public final class Block {
         return generateSeconds;
     }
 
+    /**
+     * Nanoseconds the miner spent on the block, which the target retargeting averages.
+     */
+    public long getGenerateNanos() {
+        return generateNanos;
+    }
+
+    public void setGenerateNanos(long generateNanos) {
+        this.generateNanos = generateNanos;
+    }
+
     public long getId() {
         return this.id;
     }
@@ -86,6 +250,14 @@ public final class Block {
         return this.zeroesInHash;
     }
 
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getRewardAmount() {
+        return rewardAmount;
+    }
+
     public long getMaxMessageIdPreviousBlock() {
         return maxMessageIdPreviousBlock;
     }
@@ -128,5 +300,6 @@ public final class Block {
 
     public void setZeroesInHash(int zeroesInHash) {
         this.zeroesInHash = zeroesInHash;
+        this.header = null;
     }
 }
@@ -0,0 +1,248 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.security.KeyRegistry;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Canonical binary encoding of {@link Transaction}, {@link Message} and
+ * {@link Block}. Numbers are fixed-width big-endian, strings are UTF-8 and,
+ * like byte arrays, prefixed with their length as an unsigned varint;
+ * optional values are prefixed with a presence byte. Every top-level
+ * encoding starts with a type tag, and messages and blocks carry their
+ * {@link HashVersion}, so each value has exactly one encoding.
+ *
+ * <ul>
+ *     <li>transaction: {@code 'T' sender receiver amount:int}</li>
+ *     <li>signed message data: {@code 'S' version id:long transaction?}</li>
+ *     <li>message: {@code 'M' version id:long transaction? (keyAlgorithm keyBytes)? signature?}</li>
+ *     <li>block header: {@code 'H' version id:long timestamp:long previousHash minerId zeroes:int
+ *         maxMessageIdPreviousBlock:long reward:int target[32]? messagesHash[32]}</li>
+ *     <li>block: {@code 'B' version id:long timestamp:long previousHash minerId zeroes:int
+ *         maxMessageIdPreviousBlock:long reward:int target[32]? magicNumber:long generateSeconds:long
+ *         generateNanos:long? zeroesStatus? messageCount message*}</li>
+ * </ul>
+ *
+ * The fields marked {@code ?} without a presence byte, the target and the
+ * generation nanoseconds, are only written for {@link HashVersion#TARGET}.
+ *
+ * The hash of a {@link HashVersion#BINARY} or {@link HashVersion#MERKLE}
+ * block is the SHA-256 of its header followed by the magic number as 8
+ * big-endian bytes. The header's messages hash is a flat SHA-256 over the
+ * messages for BINARY and the {@link MerkleTree} root of their leaf hashes
+ * for MERKLE and TARGET.
+ */
+public final class CanonicalCodec {
+
+    private static final int TRANSACTION_TAG = 'T';
+    private static final int SIGNED_DATA_TAG = 'S';
+    private static final int MESSAGE_TAG = 'M';
+    private static final int HEADER_TAG = 'H';
+    private static final int BLOCK_TAG = 'B';
+    private static final int HEADER_PREFIX_BYTES = 2;
+    private static final int ROOT_BYTES = 32;
+
+    private CanonicalCodec() { }
+
+    public static byte[] encode(Transaction transaction) {
+        return writeTransaction(new CanonicalWriter(), transaction).toByteArray();
+    }
+
+    public static Transaction decodeTransaction(byte[] bytes) {
+        CanonicalReader reader = new CanonicalReader(bytes);
+        Transaction transaction = readTransaction(reader);
+        reader.requireEnd();
+        return transaction;
+    }
+
+    public static byte[] encode(Message message) {
+        return writeMessage(new CanonicalWriter(), message).toByteArray();
+    }
+
+    public static Message decodeMessage(byte[] bytes) {
+        CanonicalReader reader = new CanonicalReader(bytes);
+        Message message = readMessage(reader);
+        reader.requireEnd();
+        return message;
+    }
+
+    public static byte[] encode(Block block) {
+        CanonicalWriter writer = new CanonicalWriter().writeByte(BLOCK_TAG);
+        writeBlockFields(writer, block);
+        writer.writeLong(block.getMagicNumber())
+                .writeLong(block.getGenerateSeconds());
+        if (block.getHashVersion() == HashVersion.TARGET) {
+            writer.writeLong(block.getGenerateNanos());
+        }
+        writer.writeOptionalString(block.getNumberOfZerosStatus());
+        List<Message> messages = block.getMessages();
+        writer.writeVarInt(messages.size());
+        for (Message message : messages) {
+            writeMessage(writer, message);
+        }
+        return writer.toByteArray();
+    }
+
+    public static Block decodeBlock(byte[] bytes) {
+        CanonicalReader reader = new CanonicalReader(bytes);
+        expectTag(reader, BLOCK_TAG);
+        HashVersion version = HashVersion.fromCode(reader.readByte());
+        long id = reader.readLong();
+        long timestamp = reader.readLong();
+        Hash256 previousBlockHash = Hash256.fromHex(reader.readString());
+        String minerId = reader.readString();
+        int zeroesInHash = reader.readInt();
+        long maxMessageIdPreviousBlock = reader.readLong();
+        int rewardAmount = reader.readInt();
+        Target target = version == HashVersion.TARGET ? readTarget(reader) : null;
+        long magicNumber = reader.readLong();
+        long generateSeconds = reader.readLong();
+        long generateNanos = version == HashVersion.TARGET ? reader.readLong() : 0;
+        String numberOfZerosStatus = reader.readOptionalString();
+        int messageCount = reader.readVarInt();
+        List<Message> messages = new ArrayList<>(Math.min(messageCount, bytes.length));
+        for (int i = 0; i < messageCount; i++) {
+            messages.add(readMessage(reader));
+        }
+        reader.requireEnd();
+
+        Block block = new Block(id, timestamp, previousBlockHash, messages, minerId, zeroesInHash,
+                maxMessageIdPreviousBlock, rewardAmount, version, target);
+        block.setMagicNumber(magicNumber);
+        block.setGenerateSeconds(generateSeconds);
+        block.setGenerateNanos(generateNanos);
+        block.setNumberOfZerosStatus(numberOfZerosStatus);
+        return block;
+    }
+
+    /**
+     * The data the signature of a message newer than {@link HashVersion#STRING} covers.
+     */
+    static byte[] signingData(Message message) {
+        CanonicalWriter writer = new CanonicalWriter()
+                .writeByte(SIGNED_DATA_TAG)
+                .writeByte(message.getHashVersion().getCode())
+                .writeLong(message.getId());
+        return writeOptionalTransaction(writer, message.getTransaction()).toByteArray();
+    }
+
+    /**
+     * The constant part of the hash input of a block newer than {@link HashVersion#STRING}.
+     */
+    static byte[] blockHeader(Block block, byte[] messagesHash) {
+        CanonicalWriter writer = new CanonicalWriter().writeByte(HEADER_TAG);
+        writeBlockFields(writer, block);
+        return writer.writeRaw(messagesHash).toByteArray();
+    }
+
+    /**
+     * The messages root a block header with a {@link HashVersion#hasMerkleRoot() Merkle root} commits to.
+     */
+    public static byte[] messagesRoot(byte[] header) {
+        if (header.length < HEADER_PREFIX_BYTES + ROOT_BYTES || header[0] != HEADER_TAG) {
+            throw new IllegalArgumentException("Not a block header");
+        }
+        if (!HashVersion.fromCode(header[1]).hasMerkleRoot()) {
+            throw new IllegalArgumentException("Block header has no Merkle root");
+        }
+        return Arrays.copyOfRange(header, header.length - ROOT_BYTES, header.length);
+    }
+
+    /**
+     * The leaf a message contributes to a {@link MerkleTree}.
+     */
+    static byte[] messageLeafHash(Message message) {
+        return MerkleTree.leafHash(encode(message));
+    }
+
+    /**
+     * SHA-256 over the length-prefixed canonical encodings of the messages.
+     */
+    static byte[] messagesHash(List<Message> messages) {
+        CanonicalWriter writer = new CanonicalWriter();
+        for (Message message : messages) {
+            writer.writeBytes(encode(message));
+        }
+        return HashUtil.sha256(writer.toByteArray());
+    }
+
+    private static void writeBlockFields(CanonicalWriter writer, Block block) {
+        writer.writeByte(block.getHashVersion().getCode())
+                .writeLong(block.getId())
+                .writeLong(block.getTimestamp())
+                .writeString(block.getPreviousBlockHash().toString())
+                .writeString(block.getMinerId())
+                .writeInt(block.getZeroesInHash())
+                .writeLong(block.getMaxMessageIdPreviousBlock())
+                .writeInt(block.getRewardAmount());
+        if (block.getHashVersion() == HashVersion.TARGET) {
+            writer.writeRaw(block.getTarget().toBytes());
+        }
+    }
+
+    private static CanonicalWriter writeMessage(CanonicalWriter writer, Message message) {
+        writer.writeByte(MESSAGE_TAG)
+                .writeByte(message.getHashVersion().getCode())
+                .writeLong(message.getId());
+        writeOptionalTransaction(writer, message.getTransaction());
+        PublicKey publicKey = message.getPublicKey();
+        writer.writeBoolean(publicKey != null);
+        if (publicKey != null) {
+            writer.writeString(publicKey.getAlgorithm()).writeBytes(publicKey.getEncoded());
+        }
+        byte[] signature = message.getSignature();
+        writer.writeBoolean(signature != null);
+        if (signature != null) {
+            writer.writeBytes(signature);
+        }
+        return writer;
+    }
+
+    private static Message readMessage(CanonicalReader reader) {
+        expectTag(reader, MESSAGE_TAG);
+        HashVersion version = HashVersion.fromCode(reader.readByte());
+        long id = reader.readLong();
+        Transaction transaction = reader.readBoolean() ? readTransaction(reader) : null;
+        int keyId = reader.readBoolean()
+                ? KeyRegistry.getInstance().decode(reader.readString(), reader.readBytes())
+                : KeyRegistry.NO_KEY;
+        Message message = new Message(id, keyId, version);
+        message.setTransaction(transaction);
+        if (reader.readBoolean()) {
+            message.setSignature(reader.readBytes());
+        }
+        return message;
+    }
+
+    private static CanonicalWriter writeOptionalTransaction(CanonicalWriter writer, Transaction transaction) {
+        writer.writeBoolean(transaction != null);
+        return transaction == null ? writer : writeTransaction(writer, transaction);
+    }
+
+    private static CanonicalWriter writeTransaction(CanonicalWriter writer, Transaction transaction) {
+        return writer.writeByte(TRANSACTION_TAG)
+                .writeString(transaction.sender())
+                .writeString(transaction.receiver())
+                .writeInt(transaction.virtualCoinsAmount());
+    }
+
+    private static Target readTarget(CanonicalReader reader) {
+        return Target.fromBytes(reader.readRaw(Target.BYTES));
+    }
+
+    private static Transaction readTransaction(CanonicalReader reader) {
+        expectTag(reader, TRANSACTION_TAG);
+        return new Transaction(reader.readString(), reader.readString(), reader.readInt());
+    }
+
+    private static void expectTag(CanonicalReader reader, int tag) {
+        int actual = reader.readByte();
+        if (actual != tag) {
+            throw new IllegalArgumentException("Expected tag '" + (char) tag + "' but found " + actual);
+        }
+    }
+}
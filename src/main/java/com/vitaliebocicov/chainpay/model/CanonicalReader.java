@@ -0,0 +1,99 @@
+package com.vitaliebocicov.chainpay.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads what {@link CanonicalWriter} wrote, rejecting truncated or
+ * malformed input with an {@link IllegalArgumentException}.
+ */
+final class CanonicalReader {
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_CONTINUATION = 0x80;
+    private static final int MAX_VARINT_SHIFT = 28;
+
+    private final byte[] bytes;
+    private int position;
+
+    CanonicalReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    int readByte() {
+        require(1);
+        return bytes[position++] & 0xff;
+    }
+
+    boolean readBoolean() {
+        int value = readByte();
+        if (value > 1) {
+            throw new IllegalArgumentException("Malformed boolean at offset " + (position - 1));
+        }
+        return value == 1;
+    }
+
+    int readInt() {
+        require(Integer.BYTES);
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = value << Byte.SIZE | bytes[position++] & 0xff;
+        }
+        return value;
+    }
+
+    long readLong() {
+        require(Long.BYTES);
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = value << Byte.SIZE | bytes[position++] & 0xff;
+        }
+        return value;
+    }
+
+    int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift <= MAX_VARINT_SHIFT; shift += VARINT_PAYLOAD_BITS) {
+            int b = readByte();
+            value |= (b & (VARINT_CONTINUATION - 1)) << shift;
+            if ((b & VARINT_CONTINUATION) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed length at offset " + position);
+    }
+
+    byte[] readBytes() {
+        return readRaw(readVarInt());
+    }
+
+    byte[] readRaw(int length) {
+        require(length);
+        byte[] value = Arrays.copyOfRange(bytes, position, position + length);
+        position += length;
+        return value;
+    }
+
+    String readString() {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    String readOptionalString() {
+        return readBoolean() ? readString() : null;
+    }
+
+    void requireEnd() {
+        if (position != bytes.length) {
+            throw new IllegalArgumentException((bytes.length - position) + " trailing bytes");
+        }
+    }
+
+    private void require(int length) {
+        if (length < 0 || length > bytes.length - position) {
+            throw new IllegalArgumentException("Truncated input at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.vitaliebocicov.chainpay.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable big-endian byte sink for {@link CanonicalCodec}.
+ */
+final class CanonicalWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int VARINT_PAYLOAD_BITS = 7;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    CanonicalWriter writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    CanonicalWriter writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    CanonicalWriter writeInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            bytes[size++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    CanonicalWriter writeLong(long value) {
+        ensureCapacity(Long.BYTES);
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            bytes[size++] = (byte) (value >>> shift);
+        }
+        return this;
+    }
+
+    CanonicalWriter writeVarInt(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative length: " + value);
+        }
+        int remaining = value;
+        while (remaining >= VARINT_CONTINUATION) {
+            writeByte(remaining & (VARINT_CONTINUATION - 1) | VARINT_CONTINUATION);
+            remaining >>>= VARINT_PAYLOAD_BITS;
+        }
+        return writeByte(remaining);
+    }
+
+    CanonicalWriter writeBytes(byte[] value) {
+        writeVarInt(value.length);
+        return writeRaw(value);
+    }
+
+    CanonicalWriter writeRaw(byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+        return this;
+    }
+
+    CanonicalWriter writeString(String value) {
+        return writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    CanonicalWriter writeOptionalString(String value) {
+        writeBoolean(value != null);
+        return value == null ? this : writeString(value);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + extra));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.vitaliebocicov.chainpay.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable SHA-256 hash, held in four big-endian longs so that
+ * {@link #equals(Object)} and {@link #hashCode()} compare four words instead
+ * of 64 characters. The lower-case hex form is only built for display and
+ * for the encodings that have always carried hashes as strings.
+ * {@link #ZERO} stands for the previous hash of the first block and, as
+ * that hash always has, prints as {@code "0"}.
+ */
+public final class Hash256 {
+
+    public static final int BYTES = 32;
+    private static final int WORDS = BYTES / Long.BYTES;
+    private static final int HEX_LENGTH = 2 * BYTES;
+    private static final int NIBBLES_PER_WORD = 2 * Long.BYTES;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final byte[] HEX_VALUES = new byte[128];
+    private static final String ZERO_HEX = "0";
+
+    public static final Hash256 ZERO = new Hash256(0, 0, 0, 0);
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < HEX_DIGITS.length; i++) {
+            HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+            HEX_VALUES[Character.toUpperCase(HEX_DIGITS[i])] = (byte) i;
+        }
+    }
+
+    private final long word0;
+    private final long word1;
+    private final long word2;
+    private final long word3;
+
+    private Hash256(long word0, long word1, long word2, long word3) {
+        this.word0 = word0;
+        this.word1 = word1;
+        this.word2 = word2;
+        this.word3 = word3;
+    }
+
+    public static Hash256 of(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Hash must be " + BYTES + " bytes, got " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new Hash256(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Parses the form {@link #toString()} prints; {@code "0"} gives {@link #ZERO}.
+     */
+    public static Hash256 fromHex(String hex) {
+        if (ZERO_HEX.equals(hex)) {
+            return ZERO;
+        }
+        if (hex.length() != HEX_LENGTH) {
+            throw new IllegalArgumentException("Hash must be " + HEX_LENGTH + " hex digits: " + hex);
+        }
+        long[] words = new long[WORDS];
+        for (int i = 0; i < HEX_LENGTH; i++) {
+            char digit = hex.charAt(i);
+            int value = digit < HEX_VALUES.length ? HEX_VALUES[digit] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Not a hex digit '" + digit + "' in " + hex);
+            }
+            words[i / NIBBLES_PER_WORD] = words[i / NIBBLES_PER_WORD] << 4 | value;
+        }
+        return new Hash256(words[0], words[1], words[2], words[3]);
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BYTES];
+        for (int i = 0; i < BYTES; i++) {
+            bytes[i] = byteAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Whether this is the hash {@code bytes} hold, without copying them.
+     */
+    public boolean matches(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            return false;
+        }
+        for (int i = 0; i < BYTES; i++) {
+            if (bytes[i] != byteAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Hash256 hash
+                && word0 == hash.word0 && word1 == hash.word1 && word2 == hash.word2 && word3 == hash.word3;
+    }
+
+    @Override
+    public int hashCode() {
+        // Proof of work zeroes the leading bytes of block hashes; the last ones stay uniformly distributed.
+        return (int) word3;
+    }
+
+    @Override
+    public String toString() {
+        if (equals(ZERO)) {
+            return ZERO_HEX;
+        }
+        char[] hex = new char[HEX_LENGTH];
+        for (int i = 0; i < HEX_LENGTH; i++) {
+            int shift = 4 * (NIBBLES_PER_WORD - 1 - i % NIBBLES_PER_WORD);
+            hex[i] = HEX_DIGITS[(int) (word(i / NIBBLES_PER_WORD) >>> shift) & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private long word(int index) {
+        return switch (index) {
+            case 0 -> word0;
+            case 1 -> word1;
+            case 2 -> word2;
+            default -> word3;
+        };
+    }
+
+    private byte byteAt(int index) {
+        return (byte) (word(index / Long.BYTES) >>> (Byte.SIZE * (Long.BYTES - 1 - index % Long.BYTES)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.vitaliebocicov.chainpay.model;
+
+/**
+ * How a block's hash input and a message's signed data are encoded.
+ * Every block and message records its version, so chains mixing versions
+ * still validate.
+ */
+public enum HashVersion {
+    /**
+     * Concatenated strings: the block's static hash data followed by the
+     * decimal magic number, and {@code id + text + transaction hash} for messages.
+     */
+    STRING(1),
+    /**
+     * {@link CanonicalCodec} encoding: the block header followed by the
+     * magic number as 8 big-endian bytes, and the canonical message fields.
+     */
+    BINARY(2),
+    /**
+     * As {@link #BINARY}, but the header commits to the messages through the
+     * root of a {@link MerkleTree} over their leaf hashes, so inclusion of a
+     * single message can be proven with a {@link MerkleProof}.
+     */
+    MERKLE(3),
+    /**
+     * As {@link #MERKLE}, but the block header also carries the block's
+     * {@link Target}, which its hash must not exceed, instead of relying on
+     * the number of leading zeroes alone. Used for blocks only; messages
+     * keep {@link #latest()}.
+     */
+    TARGET(4);
+
+    private final int code;
+
+    HashVersion(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Whether the header commits to a {@link MerkleTree} root of the messages.
+     */
+    public boolean hasMerkleRoot() {
+        return this == MERKLE || this == TARGET;
+    }
+
+    /**
+     * Version used for newly created blocks and messages.
+     */
+    public static HashVersion latest() {
+        return MERKLE;
+    }
+
+    public static HashVersion fromCode(int code) {
+        for (HashVersion version : values()) {
+            if (version.code == code) {
+                return version;
+            }
+        }
+        throw new IllegalArgumentException("Unknown hash version: " + code);
+    }
+}
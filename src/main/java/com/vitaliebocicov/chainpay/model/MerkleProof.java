@@ -0,0 +1,53 @@
+package com.vitaliebocicov.chainpay.model;
+
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Proof that a leaf is at {@code leafIndex} in a {@link MerkleTree} of
+ * {@code treeSize} leaves: the sibling hashes from the leaf up to the root.
+ */
+public record MerkleProof(int leafIndex, int treeSize, List<byte[]> path) {
+
+    public MerkleProof {
+        path = List.copyOf(path);
+    }
+
+    /**
+     * Recomputes the root from the leaf and the path (RFC 9162, section
+     * 2.1.3.2) and compares it to {@code root}.
+     */
+    public boolean verify(byte[] leafHash, byte[] root) {
+        if (leafIndex < 0 || leafIndex >= treeSize) {
+            return false;
+        }
+        long index = leafIndex;
+        long lastIndex = treeSize - 1L;
+        byte[] hash = leafHash;
+        for (byte[] sibling : path) {
+            if (lastIndex == 0) {
+                return false;
+            }
+            if ((index & 1) == 1 || index == lastIndex) {
+                hash = MerkleTree.nodeHash(sibling, hash);
+                while ((index & 1) == 0 && index != 0) {
+                    index >>>= 1;
+                    lastIndex >>>= 1;
+                }
+            } else {
+                hash = MerkleTree.nodeHash(hash, sibling);
+            }
+            index >>>= 1;
+            lastIndex >>>= 1;
+        }
+        return lastIndex == 0 && MessageDigest.isEqual(hash, root);
+    }
+
+    /**
+     * Checks that {@code message} is in the block whose header (as returned by
+     * {@link Block#getHashPrefix()}) is {@code blockHeader}.
+     */
+    public boolean verify(Message message, byte[] blockHeader) {
+        return verify(message.getLeafHash(), CanonicalCodec.messagesRoot(blockHeader));
+    }
+}
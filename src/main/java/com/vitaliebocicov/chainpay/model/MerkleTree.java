@@ -0,0 +1,116 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.util.HashUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only Merkle tree over leaf hashes, shaped as in RFC 6962: the left
+ * subtree of a node over {@code n} leaves holds the largest power of two
+ * below {@code n}. Leaves and inner nodes are hashed with different prefix
+ * bytes, so a leaf can never be passed off as a node.
+ * <p>
+ * Appending keeps only the roots of the perfect subtrees covering the
+ * leaves so far (one per set bit of the size), so {@link #append(byte[])}
+ * costs amortized one node hash and {@link #root()} at most log2(n).
+ * Instances are not thread-safe.
+ */
+public final class MerkleTree {
+
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte NODE_PREFIX = 1;
+
+    private final List<byte[]> leaves = new ArrayList<>();
+    private final List<byte[]> peaks = new ArrayList<>();
+
+    public static MerkleTree of(List<Message> messages) {
+        MerkleTree tree = new MerkleTree();
+        for (Message message : messages) {
+            tree.append(message.getLeafHash());
+        }
+        return tree;
+    }
+
+    public void append(byte[] leafHash) {
+        long size = leaves.size();
+        leaves.add(leafHash);
+        byte[] node = leafHash;
+        for (long subtree = size; (subtree & 1) == 1; subtree >>>= 1) {
+            node = nodeHash(peaks.removeLast(), node);
+        }
+        peaks.add(node);
+    }
+
+    public int size() {
+        return leaves.size();
+    }
+
+    /**
+     * Root over all leaves; the hash of no input for an empty tree.
+     */
+    public byte[] root() {
+        if (peaks.isEmpty()) {
+            return HashUtil.sha256(new byte[0]);
+        }
+        byte[] root = peaks.getLast();
+        for (int i = peaks.size() - 2; i >= 0; i--) {
+            root = nodeHash(peaks.get(i), root);
+        }
+        return root.clone();
+    }
+
+    /**
+     * Audit path of the leaf at {@code index}, ordered from the leaf up.
+     */
+    public MerkleProof proof(int index) {
+        if (index < 0 || index >= leaves.size()) {
+            throw new IndexOutOfBoundsException("Leaf " + index + " outside tree of size " + leaves.size());
+        }
+        List<byte[]> path = new ArrayList<>();
+        collectPath(index, 0, leaves.size(), path);
+        return new MerkleProof(index, leaves.size(), path);
+    }
+
+    private void collectPath(int index, int from, int to, List<byte[]> path) {
+        int size = to - from;
+        if (size == 1) {
+            return;
+        }
+        int split = from + largestPowerOfTwoBelow(size);
+        if (index < split) {
+            collectPath(index, from, split, path);
+            path.add(subtreeRoot(split, to));
+        } else {
+            collectPath(index, split, to, path);
+            path.add(subtreeRoot(from, split));
+        }
+    }
+
+    private byte[] subtreeRoot(int from, int to) {
+        if (to - from == 1) {
+            return leaves.get(from);
+        }
+        int split = from + largestPowerOfTwoBelow(to - from);
+        return nodeHash(subtreeRoot(from, split), subtreeRoot(split, to));
+    }
+
+    private static int largestPowerOfTwoBelow(int size) {
+        return Integer.highestOneBit(size - 1);
+    }
+
+    public static byte[] leafHash(byte[] data) {
+        byte[] input = new byte[1 + data.length];
+        input[0] = LEAF_PREFIX;
+        System.arraycopy(data, 0, input, 1, data.length);
+        return HashUtil.sha256(input);
+    }
+
+    static byte[] nodeHash(byte[] left, byte[] right) {
+        byte[] input = new byte[1 + left.length + right.length];
+        input[0] = NODE_PREFIX;
+        System.arraycopy(left, 0, input, 1, left.length);
+        System.arraycopy(right, 0, input, 1 + left.length, right.length);
+        return HashUtil.sha256(input);
+    }
+}
@@ -1,5 +1,8 @@
 package com.vitaliebocicov.chainpay.model;
 
+import com.vitaliebocicov.chainpay.security.KeyRegistry;
+import com.vitaliebocicov.chainpay.security.SignatureScheme;
+
 import java.nio.charset.StandardCharsets;
 import java.security.PublicKey;
 import java.util.Arrays;
@@ -7,13 +10,24 @@ import java.util.Arrays;
 public final class Message {
     private final long id;
     private String text;
-    private final PublicKey publicKey;
+    private final int keyId;
+    private final HashVersion hashVersion;
     private Transaction transaction;
     private byte[] signature;
+    private volatile byte[] leafHash;
 
     public Message(long id, PublicKey publicKey) {
+        this(id, publicKey, HashVersion.STRING);
+    }
+
+    public Message(long id, PublicKey publicKey, HashVersion hashVersion) {
+        this(id, publicKey == null ? KeyRegistry.NO_KEY : KeyRegistry.getInstance().register(publicKey), hashVersion);
+    }
+
+    Message(long id, int keyId, HashVersion hashVersion) {
         this.id = id;
-        this.publicKey = publicKey;
+        this.keyId = keyId;
+        this.hashVersion = hashVersion;
     }
 
     public long getId() {
@@ -25,10 +39,34 @@ public final class Message {
     }
 
     public PublicKey getPublicKey() {
-        return this.publicKey;
+        return keyId == KeyRegistry.NO_KEY ? null : KeyRegistry.getInstance().getKey(keyId);
+    }
+
+    /**
+     * Id of the public key in the {@link KeyRegistry}, {@link KeyRegistry#NO_KEY} without one.
+     */
+    public int getKeyId() {
+        return keyId;
+    }
+
+    public HashVersion getHashVersion() {
+        return hashVersion;
+    }
+
+    /**
+     * The scheme the signature is made with, given by the public key; {@code null} without one.
+     */
+    public SignatureScheme getSignatureScheme() {
+        return keyId == KeyRegistry.NO_KEY ? null : KeyRegistry.getInstance().getScheme(keyId);
     }
 
+    /**
+     * The bytes the signature covers, encoded according to the message's {@link HashVersion}.
+     */
     public byte[] getData() {
+        if (hashVersion != HashVersion.STRING) {
+            return CanonicalCodec.signingData(this);
+        }
         byte[] data;
         if (transaction != null) {
             data = (id + text + transaction.getHashCode()).getBytes(StandardCharsets.UTF_8);
@@ -39,11 +77,28 @@ public final class Message {
     }
 
     public byte[] getSignature() {
+        if (this.signature == null) {
+            return null;
+        }
         return Arrays.copyOf(this.signature, this.signature.length);
     }
 
     public void setSignature(byte[] signature) {
         this.signature = signature;
+        this.leafHash = null;
+    }
+
+    /**
+     * Hash of the message's canonical encoding as a {@link MerkleTree} leaf,
+     * computed once.
+     */
+    public byte[] getLeafHash() {
+        byte[] cached = leafHash;
+        if (cached == null) {
+            cached = CanonicalCodec.messageLeafHash(this);
+            leafHash = cached;
+        }
+        return cached.clone();
     }
 
     public Transaction getTransaction() {
@@ -55,6 +110,7 @@ public final class Message {
             return;
         }
         this.transaction = transaction;
+        this.leafHash = null;
         this.setText(transaction.sender(), transaction.receiver(), transaction.virtualCoinsAmount());
     }
 
@@ -0,0 +1,98 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.util.StringUtil;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A 256-bit difficulty target: a block hash, read as an unsigned big-endian
+ * number, meets the target when it is not greater than it. Unlike a count
+ * of leading zero hex digits, which changes the work by a factor of 16 per
+ * step, a target can be scaled by any factor.
+ */
+public final class Target {
+
+    public static final int BYTES = 32;
+    private static final int NIBBLES = 2 * BYTES;
+    private static final BigInteger MAX_VALUE = BigInteger.ONE.shiftLeft(Byte.SIZE * BYTES).subtract(BigInteger.ONE);
+    public static final Target MAX = new Target(MAX_VALUE);
+
+    private final byte[] bytes;
+    private final BigInteger value;
+
+    private Target(BigInteger value) {
+        this.value = value;
+        this.bytes = new byte[BYTES];
+        byte[] magnitude = value.toByteArray();
+        int length = Math.min(magnitude.length, BYTES);
+        System.arraycopy(magnitude, magnitude.length - length, bytes, BYTES - length, length);
+    }
+
+    public static Target of(BigInteger value) {
+        if (value.signum() <= 0 || value.compareTo(MAX_VALUE) > 0) {
+            throw new IllegalArgumentException("Target out of range: " + value);
+        }
+        return new Target(value);
+    }
+
+    public static Target fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Target must be " + BYTES + " bytes, got " + bytes.length);
+        }
+        return of(new BigInteger(1, bytes));
+    }
+
+    /**
+     * The target met by exactly the hashes with {@code zeroes} leading zero hex digits.
+     */
+    public static Target ofLeadingZeroes(int zeroes) {
+        if (zeroes < 0 || zeroes >= NIBBLES) {
+            throw new IllegalArgumentException("Zeroes out of range: " + zeroes);
+        }
+        return new Target(MAX_VALUE.shiftRight(4 * zeroes));
+    }
+
+    public boolean isMetBy(byte[] hash) {
+        return Arrays.compareUnsigned(hash, bytes) <= 0;
+    }
+
+    /**
+     * Leading zero hex digits every hash meeting this target has.
+     */
+    public int leadingZeroNibbles() {
+        return (Byte.SIZE * BYTES - value.bitLength()) / 4;
+    }
+
+    /**
+     * This target times {@code numerator / denominator}, kept within
+     * {@code [1, MAX]}.
+     */
+    public Target scale(BigInteger numerator, BigInteger denominator) {
+        BigInteger scaled = value.multiply(numerator).divide(denominator);
+        return new Target(scaled.max(BigInteger.ONE).min(MAX_VALUE));
+    }
+
+    public BigInteger toBigInteger() {
+        return value;
+    }
+
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Target target && value.equals(target.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.toHex(bytes);
+    }
+}
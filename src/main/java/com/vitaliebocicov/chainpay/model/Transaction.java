@@ -1,9 +1,9 @@
 package com.vitaliebocicov.chainpay.model;
 
-import com.vitaliebocicov.chainpay.util.StringUtil;
+import com.vitaliebocicov.chainpay.util.HashUtil;
 
 public record Transaction(String sender, String receiver, int virtualCoinsAmount) {
-    public String getHashCode() {
-        return StringUtil.applySha256(sender + receiver + virtualCoinsAmount);
+    public Hash256 getHashCode() {
+        return Hash256.of(HashUtil.sha256(sender + receiver + virtualCoinsAmount));
     }
 }
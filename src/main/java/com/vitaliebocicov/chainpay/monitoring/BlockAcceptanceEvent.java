@@ -0,0 +1,56 @@
+package com.vitaliebocicov.chainpay.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A block handed to {@code Blockchain.acceptBlock}, from the call to the
+ * release of the chain lock.
+ */
+@Name(BlockAcceptanceEvent.NAME)
+@Label("Block Acceptance")
+@Category({"ChainPay", "Chain"})
+@Description("Lock wait, validation time and difficulty change of a proposed block")
+@Enabled(false)
+@StackTrace(false)
+public final class BlockAcceptanceEvent extends Event {
+
+    public static final String NAME = "chainpay.BlockAcceptance";
+
+    @Label("Block Id")
+    private long blockId;
+
+    @Label("Accepted")
+    private boolean accepted;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    private long lockWait;
+
+    @Label("Validation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long validation;
+
+    @Label("Zeroes Before")
+    private int zeroesBefore;
+
+    @Label("Zeroes After")
+    private int zeroesAfter;
+
+    public void emit(long blockId, boolean accepted, long lockWaitNanos, long validationNanos,
+                     int zeroesBefore, int zeroesAfter) {
+        this.blockId = blockId;
+        this.accepted = accepted;
+        this.lockWait = lockWaitNanos;
+        this.validation = validationNanos;
+        this.zeroesBefore = zeroesBefore;
+        this.zeroesAfter = zeroesAfter;
+        commit();
+    }
+}
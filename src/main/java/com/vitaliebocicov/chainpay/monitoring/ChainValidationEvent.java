@@ -0,0 +1,46 @@
+package com.vitaliebocicov.chainpay.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A validation of the whole chain, or of the blocks added since the previous
+ * incremental validation.
+ */
+@Name(ChainValidationEvent.NAME)
+@Label("Chain Validation")
+@Category({"ChainPay", "Chain"})
+@Description("Validation of the blocks of the chain")
+@Enabled(false)
+@StackTrace(false)
+public final class ChainValidationEvent extends Event {
+
+    public static final String NAME = "chainpay.ChainValidation";
+
+    @Label("Blocks")
+    private int blocks;
+
+    @Label("Parallel")
+    @Description("Whether signatures were verified on a fork/join pool")
+    private boolean parallel;
+
+    @Label("Incremental")
+    @Description("Whether only blocks added since the previous validation were checked")
+    private boolean incremental;
+
+    @Label("Valid")
+    private boolean valid;
+
+    public void emit(int blocks, boolean parallel, boolean incremental, boolean valid) {
+        this.blocks = blocks;
+        this.parallel = parallel;
+        this.incremental = incremental;
+        this.valid = valid;
+        commit();
+    }
+}
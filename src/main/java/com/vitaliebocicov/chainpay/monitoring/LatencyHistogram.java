@@ -0,0 +1,106 @@
+package com.vitaliebocicov.chainpay.monitoring;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of nanosecond durations over fixed bucket bounds. Every bucket
+ * is a {@link LongAdder}, so concurrent recorders do not contend on a
+ * shared counter; a {@link Snapshot} reads the buckets without locking and
+ * may therefore miss values recorded while it is taken.
+ */
+public final class LatencyHistogram {
+
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param boundsNanos ascending upper bounds of the buckets; values above
+     *                    the last one go to an overflow bucket
+     */
+    public LatencyHistogram(long... boundsNanos) {
+        if (boundsNanos.length == 0) {
+            throw new IllegalArgumentException("At least one bucket bound is required");
+        }
+        for (int i = 1; i < boundsNanos.length; i++) {
+            if (boundsNanos[i] <= boundsNanos[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be ascending: " + Arrays.toString(boundsNanos));
+            }
+        }
+        this.bounds = boundsNanos.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Bounds {@code firstBoundNanos}, doubled {@code count - 1} times.
+     */
+    public static LatencyHistogram exponential(long firstBoundNanos, int count) {
+        long[] bounds = new long[count];
+        for (int i = 0; i < count; i++) {
+            bounds[i] = firstBoundNanos << i;
+        }
+        return new LatencyHistogram(bounds);
+    }
+
+    public void record(long nanos) {
+        int index = Arrays.binarySearch(bounds, nanos);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        sum.add(nanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(bounds.clone(), counts, sum.sum());
+    }
+
+    /**
+     * Bucket counts at one point in time; {@code counts[bounds.length]} is
+     * the overflow bucket.
+     */
+    public record Snapshot(long[] bounds, long[] counts, long sumNanos) {
+
+        public long count() {
+            return Arrays.stream(counts).sum();
+        }
+
+        /**
+         * Values at or below {@code bounds[index]}.
+         */
+        public long cumulativeCount(int index) {
+            long cumulative = 0;
+            for (int i = 0; i <= index; i++) {
+                cumulative += counts[i];
+            }
+            return cumulative;
+        }
+
+        /**
+         * Estimate of the {@code quantile} (between 0 and 1), interpolated
+         * linearly inside its bucket. Values in the overflow bucket are
+         * reported as the last bound; an empty snapshot reports 0.
+         */
+        public long percentile(double quantile) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            double rank = Math.max(1, Math.ceil(quantile * total));
+            long below = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                if (below + counts[i] >= rank) {
+                    long lower = i == 0 ? 0 : bounds[i - 1];
+                    return lower + Math.round((bounds[i] - lower) * (rank - below) / counts[i]);
+                }
+                below += counts[i];
+            }
+            return bounds[bounds.length - 1];
+        }
+    }
+}
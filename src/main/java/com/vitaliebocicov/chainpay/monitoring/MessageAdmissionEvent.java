@@ -0,0 +1,42 @@
+package com.vitaliebocicov.chainpay.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A message offered to {@code Blockchain.receiveMessage}.
+ */
+@Name(MessageAdmissionEvent.NAME)
+@Label("Message Admission")
+@Category({"ChainPay", "Messages"})
+@Description("Signature verification time and outcome of a received message")
+@Enabled(false)
+@StackTrace(false)
+public final class MessageAdmissionEvent extends Event {
+
+    public static final String NAME = "chainpay.MessageAdmission";
+
+    @Label("Message Id")
+    private long messageId;
+
+    @Label("Accepted")
+    private boolean accepted;
+
+    @Label("Signature Verification")
+    @Description("Zero when the message was rejected before its signature was checked")
+    @Timespan(Timespan.NANOSECONDS)
+    private long signatureVerification;
+
+    public void emit(long messageId, boolean accepted, long signatureVerificationNanos) {
+        this.messageId = messageId;
+        this.accepted = accepted;
+        this.signatureVerification = signatureVerificationNanos;
+        commit();
+    }
+}
@@ -0,0 +1,51 @@
+package com.vitaliebocicov.chainpay.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One miner's search over one block template.
+ */
+@Name(MiningAttemptEvent.NAME)
+@Label("Mining Attempt")
+@Category({"ChainPay", "Mining"})
+@Description("Nonces a miner tried for one block template and how the search ended")
+@Enabled(false)
+@StackTrace(false)
+public final class MiningAttemptEvent extends Event {
+
+    public static final String NAME = "chainpay.MiningAttempt";
+    public static final String FOUND = "found";
+    public static final String LOST = "lost";
+    public static final String STALE = "stale";
+
+    @Label("Miner")
+    private String minerId;
+
+    @Label("Block Id")
+    private long blockId;
+
+    @Label("Zeroes In Hash")
+    private int zeroesInHash;
+
+    @Label("Nonces Tried")
+    private long noncesTried;
+
+    @Label("Outcome")
+    @Description("found, lost to another miner's block, or stale after the tip moved")
+    private String outcome;
+
+    public void emit(String minerId, long blockId, int zeroesInHash, long noncesTried, String outcome) {
+        this.minerId = minerId;
+        this.blockId = blockId;
+        this.zeroesInHash = zeroesInHash;
+        this.noncesTried = noncesTried;
+        this.outcome = outcome;
+        commit();
+    }
+}
@@ -0,0 +1,69 @@
+package com.vitaliebocicov.chainpay.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters a node updates while it admits messages and accepts blocks.
+ * They are striped ({@link LongAdder}, {@link LatencyHistogram}), so
+ * recording costs the callers no shared cache line.
+ */
+public final class NodeMetrics {
+
+    private static final long FIRST_SIGNATURE_BOUND_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final int SIGNATURE_BUCKETS = 16;
+    private static final long FIRST_INTERVAL_BOUND_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int INTERVAL_BUCKETS = 14;
+
+    private final LongAdder messagesAccepted = new LongAdder();
+    private final LongAdder messagesRejected = new LongAdder();
+    private final LongAdder blocksAccepted = new LongAdder();
+    private final LongAdder blocksRejected = new LongAdder();
+    private final LatencyHistogram signatureVerification =
+            LatencyHistogram.exponential(FIRST_SIGNATURE_BOUND_NANOS, SIGNATURE_BUCKETS);
+    private final LatencyHistogram blockInterval =
+            LatencyHistogram.exponential(FIRST_INTERVAL_BOUND_NANOS, INTERVAL_BUCKETS);
+
+    public void recordAdmission(boolean accepted) {
+        (accepted ? messagesAccepted : messagesRejected).increment();
+    }
+
+    public void recordSignatureVerification(long nanos) {
+        signatureVerification.record(nanos);
+    }
+
+    public void recordBlock(boolean accepted) {
+        (accepted ? blocksAccepted : blocksRejected).increment();
+    }
+
+    /**
+     * Time between the acceptance of a block and the one before it.
+     */
+    public void recordBlockInterval(long nanos) {
+        blockInterval.record(nanos);
+    }
+
+    public long getMessagesAccepted() {
+        return messagesAccepted.sum();
+    }
+
+    public long getMessagesRejected() {
+        return messagesRejected.sum();
+    }
+
+    public long getBlocksAccepted() {
+        return blocksAccepted.sum();
+    }
+
+    public long getBlocksRejected() {
+        return blocksRejected.sum();
+    }
+
+    public LatencyHistogram.Snapshot getSignatureVerification() {
+        return signatureVerification.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getBlockInterval() {
+        return blockInterval.snapshot();
+    }
+}
@@ -0,0 +1,115 @@
+package com.vitaliebocicov.chainpay.security;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns public keys and gives each one a compact id, so that messages
+ * signed with the same key share a single {@link PublicKey} instance and
+ * refer to it by id. A key keeps its id, and the id its key, for the life of
+ * the process. With each key the registry keeps the key's
+ * {@link SignatureScheme}; the verifiers initialized with it are pooled,
+ * within a bound, by {@link SignatureContexts}.
+ */
+public final class KeyRegistry {
+
+    /**
+     * Id of no key, for unsigned messages.
+     */
+    public static final int NO_KEY = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final KeyRegistry INSTANCE = new KeyRegistry();
+
+    private final Map<PublicKey, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<ByteBuffer, Integer> encodedIds = new ConcurrentHashMap<>();
+    private volatile Entry[] entries = new Entry[INITIAL_CAPACITY];
+    private int size;
+
+    KeyRegistry() { }
+
+    public static KeyRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Id of {@code key}, registering it if no equal key is registered yet.
+     *
+     * @throws IllegalArgumentException if no {@link SignatureScheme} uses the key
+     */
+    public int register(PublicKey key) {
+        Integer id = ids.get(key);
+        return id != null ? id : add(key);
+    }
+
+    /**
+     * Id of the key with the given X.509 encoding. The key is only decoded
+     * the first time its encoding is seen.
+     *
+     * @throws IllegalArgumentException if the algorithm is unsupported or the encoding malformed
+     */
+    public int decode(String algorithm, byte[] encoded) {
+        Integer id = encodedIds.get(ByteBuffer.wrap(encoded));
+        if (id != null && getKey(id).getAlgorithm().equals(algorithm)) {
+            return id;
+        }
+        try {
+            return register(KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(encoded)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported key algorithm: " + algorithm, e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Malformed " + algorithm + " public key", e);
+        }
+    }
+
+    public PublicKey getKey(int id) {
+        return entry(id).key();
+    }
+
+    public SignatureScheme getScheme(int id) {
+        return entry(id).scheme();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private Entry entry(int id) {
+        Entry[] current = entries;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            throw new IllegalArgumentException("Unknown key id: " + id);
+        }
+        return current[id];
+    }
+
+    private synchronized int add(PublicKey key) {
+        Integer registered = ids.get(key);
+        if (registered != null) {
+            return registered;
+        }
+        Entry entry = new Entry(key, SignatureScheme.forKey(key));
+        Entry[] current = entries;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, 2 * current.length);
+        }
+        int id = size++;
+        current[id] = entry;
+        entries = current;
+        // Published through the maps only once the entry can be read by id.
+        ids.put(key, id);
+        byte[] encoded = key.getEncoded();
+        if (encoded != null) {
+            encodedIds.putIfAbsent(ByteBuffer.wrap(encoded), id);
+        }
+        return id;
+    }
+
+    private record Entry(PublicKey key, SignatureScheme scheme) { }
+}
@@ -1,20 +1,60 @@
 package com.vitaliebocicov.chainpay.security;
 
+import com.vitaliebocicov.chainpay.util.ContextPool;
+
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+/**
+ * Generates key pairs of one {@link SignatureScheme}. Generators are not
+ * thread-safe, so each thread borrows one from a {@link ContextPool} and
+ * threads generate in parallel instead of queueing behind a single one.
+ */
 public final class KeysGenerator {
 
-    private static final int KEY_LENGTH = 1024;
-    private final KeyPairGenerator keyGen;
+    private final SignatureScheme scheme;
+    private final ContextPool<KeyPairGenerator> generators = new ContextPool<>();
 
     public KeysGenerator() throws NoSuchAlgorithmException {
-        this.keyGen = KeyPairGenerator.getInstance("RSA");
-        this.keyGen.initialize(KEY_LENGTH);
+        this(SignatureScheme.DEFAULT);
+    }
+
+    public KeysGenerator(SignatureScheme scheme) throws NoSuchAlgorithmException {
+        this.scheme = scheme;
+        // Created up front so that an unsupported scheme fails here rather than on first use.
+        generators.offer(scheme.newKeyPairGenerator());
+    }
+
+    public SignatureScheme getScheme() {
+        return scheme;
+    }
+
+    public KeyPair createKeyPair() {
+        KeyPairGenerator keyGen = generators.poll();
+        if (keyGen == null) {
+            try {
+                keyGen = scheme.newKeyPairGenerator();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        KeyPair keys = keyGen.generateKeyPair();
+        generators.offer(keyGen);
+        return keys;
     }
 
-    public synchronized KeyPair createKeyPair() {
-       return this.keyGen.generateKeyPair();
+    /**
+     * {@code count} new key pairs, generated in parallel on {@code pool}.
+     */
+    public List<KeyPair> createKeyPairs(int count, ForkJoinPool pool) {
+        return pool.submit(() -> IntStream.range(0, count)
+                        .parallel()
+                        .mapToObj(i -> createKeyPair())
+                        .toList())
+                .join();
     }
 }
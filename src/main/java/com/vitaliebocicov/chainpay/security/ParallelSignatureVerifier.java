@@ -0,0 +1,74 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.model.Message;
+
+import java.io.Serial;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies message signatures on a fork/join pool, going through the
+ * given {@link SignatureCache}. The first invalid signature found stops
+ * every worker.
+ */
+public final class ParallelSignatureVerifier {
+
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    private ParallelSignatureVerifier() { }
+
+    public static boolean areSignaturesValid(List<Message> messages, SignatureCache cache, ForkJoinPool pool) {
+        AtomicBoolean failed = new AtomicBoolean(false);
+        pool.invoke(new VerifyTask(messages, cache, 0, messages.size(), failed));
+        return !failed.get();
+    }
+
+    private static final class VerifyTask extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Message> messages;
+        private final transient SignatureCache cache;
+        private final int from;
+        private final int to;
+        private final AtomicBoolean failed;
+
+        VerifyTask(List<Message> messages, SignatureCache cache, int from, int to, AtomicBoolean failed) {
+            this.messages = messages;
+            this.cache = cache;
+            this.from = from;
+            this.to = to;
+            this.failed = failed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                verifyRange();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new VerifyTask(messages, cache, from, middle, failed),
+                    new VerifyTask(messages, cache, middle, to, failed));
+        }
+
+        private void verifyRange() {
+            for (int i = from; i < to && !failed.get(); i++) {
+                try {
+                    if (!cache.isSignatureValid(messages.get(i))) {
+                        failed.set(true);
+                    }
+                } catch (NoSuchAlgorithmException | InvalidKeyException | SignatureException e) {
+                    failed.set(true);
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+}
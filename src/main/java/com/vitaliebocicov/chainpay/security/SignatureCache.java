@@ -0,0 +1,90 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of (message data, signature, public key id) tuples whose
+ * signature has already been verified, so that a message checked on
+ * admission is not verified again when its block is validated.
+ * Only valid signatures are cached. Entries are keyed by a SHA-256 digest
+ * of the tuple to keep the cache small.
+ */
+public final class SignatureCache {
+
+    public static final int DEFAULT_CAPACITY = 16_384;
+
+    private final Map<ByteBuffer, Boolean> verified;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SignatureCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SignatureCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public boolean isSignatureValid(Message message) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        byte[] signature = message.getSignature();
+        if (signature == null || message.getKeyId() == KeyRegistry.NO_KEY) {
+            return SignatureUtil.isSignatureValid(message);
+        }
+        ByteBuffer key = cacheKey(message.getData(), signature, message.getKeyId());
+        synchronized (verified) {
+            if (verified.get(key) != null) {
+                hits.increment();
+                return true;
+            }
+        }
+        misses.increment();
+        boolean valid = SignatureUtil.isSignatureValid(message);
+        if (valid) {
+            synchronized (verified) {
+                verified.put(key, Boolean.TRUE);
+            }
+        }
+        return valid;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (verified) {
+            return verified.size();
+        }
+    }
+
+    private static ByteBuffer cacheKey(byte[] data, byte[] signature, int keyId) {
+        // Key ids are never reused within the process, so they stand for the key's encoding.
+        return ByteBuffer.wrap(HashUtil.sha256(length(data), data, length(signature), signature,
+                ByteBuffer.allocate(Integer.BYTES).putInt(keyId).array()));
+    }
+
+    private static byte[] length(byte[] part) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(part.length).array();
+    }
+}
@@ -0,0 +1,91 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.util.ContextPool;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reusable {@link Signature} engines. Signing engines are pooled per scheme
+ * and initialized with the signer's key on every use. Verifying engines are
+ * pooled per {@link KeyRegistry registered} key and initialized once,
+ * because a completed verify leaves an engine ready to verify the next
+ * signature under the same key. Pools are kept for up to
+ * {@link #KEY_CAPACITY} keys and all dropped when a new key would exceed it.
+ */
+final class SignatureContexts {
+
+    static final int KEY_CAPACITY = 1024;
+
+    private static final Map<SignatureScheme, ContextPool<Signature>> SIGNERS = new EnumMap<>(SignatureScheme.class);
+    private static final ConcurrentMap<Integer, ContextPool<Signature>> VERIFIERS = new ConcurrentHashMap<>();
+
+    static {
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            SIGNERS.put(scheme, new ContextPool<>());
+        }
+    }
+
+    private SignatureContexts() { }
+
+    static byte[] sign(SignatureScheme scheme, PrivateKey privateKey, byte[] data)
+            throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        ContextPool<Signature> pool = SIGNERS.get(scheme);
+        Signature signer = pool.poll();
+        if (signer == null) {
+            signer = scheme.newSignature();
+        }
+        signer.initSign(privateKey);
+        signer.update(data);
+        byte[] signature = signer.sign();
+        pool.offer(signer);
+        return signature;
+    }
+
+    static boolean verify(int keyId, byte[] data, byte[] signature)
+            throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        ContextPool<Signature> pool = verifiers(keyId);
+        Signature verifier = pool.poll();
+        if (verifier == null) {
+            KeyRegistry registry = KeyRegistry.getInstance();
+            verifier = registry.getScheme(keyId).newSignature();
+            verifier.initVerify(registry.getKey(keyId));
+        }
+        verifier.update(data);
+        boolean valid;
+        try {
+            valid = verifier.verify(signature);
+        } catch (SignatureException e) {
+            // Unlike RSA, the curve schemes reject a malformed signature instead of failing to verify it.
+            // The engine's state is unspecified afterwards, so it is not pooled again.
+            return false;
+        }
+        pool.offer(verifier);
+        return valid;
+    }
+
+    static int cachedKeys() {
+        return VERIFIERS.size();
+    }
+
+    /**
+     * Verifiers initialized with the key {@code keyId}.
+     */
+    static ContextPool<Signature> verifiers(int keyId) {
+        ContextPool<Signature> pool = VERIFIERS.get(keyId);
+        if (pool != null) {
+            return pool;
+        }
+        if (VERIFIERS.size() >= KEY_CAPACITY) {
+            VERIFIERS.clear();
+        }
+        return VERIFIERS.computeIfAbsent(keyId, id -> new ContextPool<>(Runtime.getRuntime().availableProcessors()));
+    }
+}
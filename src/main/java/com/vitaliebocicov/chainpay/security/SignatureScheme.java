@@ -0,0 +1,89 @@
+package com.vitaliebocicov.chainpay.security;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.Key;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.NamedParameterSpec;
+import java.security.spec.RSAKeyGenParameterSpec;
+
+/**
+ * A signature algorithm and the key pairs it signs with, all provided by the
+ * JDK. Each key algorithm belongs to exactly one scheme, so a message's
+ * scheme follows from its public key, which the canonical encoding already
+ * carries; chains mixing schemes therefore still validate.
+ */
+public enum SignatureScheme {
+    /**
+     * SHA-256 with 1024-bit RSA and PKCS#1 v1.5 padding, the original scheme.
+     */
+    RSA("RSA", "SHA256withRSA", new RSAKeyGenParameterSpec(1024, RSAKeyGenParameterSpec.F4)),
+    /**
+     * ECDSA over NIST P-256 with SHA-256.
+     */
+    ECDSA_P256("EC", "SHA256withECDSA", new ECGenParameterSpec("secp256r1")),
+    /**
+     * EdDSA over Curve25519 (RFC 8032).
+     */
+    ED25519("EdDSA", "Ed25519", NamedParameterSpec.ED25519);
+
+    /**
+     * Scheme of newly generated keys. RSA keys are slow to generate, but with
+     * the JDK providers an RSA signature verifies far faster than a curve one,
+     * and nodes verify every message at least once.
+     */
+    public static final SignatureScheme DEFAULT = RSA;
+
+    private final String keyAlgorithm;
+    private final String signatureAlgorithm;
+    private final AlgorithmParameterSpec keyParameters;
+
+    SignatureScheme(String keyAlgorithm, String signatureAlgorithm, AlgorithmParameterSpec keyParameters) {
+        this.keyAlgorithm = keyAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.keyParameters = keyParameters;
+    }
+
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    public String getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    public KeyPairGenerator newKeyPairGenerator() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+        try {
+            generator.initialize(keyParameters);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new NoSuchAlgorithmException("No provider supports " + this + " keys", e);
+        }
+        return generator;
+    }
+
+    public Signature newSignature() throws NoSuchAlgorithmException {
+        return Signature.getInstance(signatureAlgorithm);
+    }
+
+    /**
+     * The scheme signing with {@code key}.
+     *
+     * @throws IllegalArgumentException if no scheme uses the key's algorithm
+     */
+    public static SignatureScheme forKey(Key key) {
+        String algorithm = key.getAlgorithm();
+        for (SignatureScheme scheme : values()) {
+            if (scheme.keyAlgorithm.equals(algorithm)) {
+                return scheme;
+            }
+        }
+        if (ED25519.signatureAlgorithm.equals(algorithm)) {
+            return ED25519;
+        }
+        throw new IllegalArgumentException("No signature scheme for " + algorithm + " keys");
+    }
+}
@@ -6,24 +6,26 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.SignatureException;
-import java.security.Signature;
 
 
+/**
+ * Signs and verifies messages with their {@link SignatureScheme}, on
+ * engines reused through {@link SignatureContexts}.
+ */
 public final class SignatureUtil {
 
     private SignatureUtil() { }
 
     public static byte[] signMessage(Message message, PrivateKey privateKey) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
-        Signature rsa = Signature.getInstance("SHA256withRSA");
-        rsa.initSign(privateKey);
-        rsa.update(message.getData());
-        return rsa.sign();
+        SignatureScheme scheme = message.getSignatureScheme();
+        return SignatureContexts.sign(scheme != null ? scheme : SignatureScheme.forKey(privateKey),
+                privateKey, message.getData());
     }
 
     public static boolean isSignatureValid(Message message) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
-        Signature sig = Signature.getInstance("SHA256withRSA");
-        sig.initVerify(message.getPublicKey());
-        sig.update(message.getData());
-        return sig.verify(message.getSignature());
+        if (message.getKeyId() == KeyRegistry.NO_KEY) {
+            throw new InvalidKeyException("Message " + message.getId() + " has no public key");
+        }
+        return SignatureContexts.verify(message.getKeyId(), message.getData(), message.getSignature());
     }
 }
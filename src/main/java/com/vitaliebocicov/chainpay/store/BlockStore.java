@@ -0,0 +1,253 @@
+package com.vitaliebocicov.chainpay.store;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.CanonicalCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only block store made of numbered segment files. Each record is
+ * {@code [payload length][CRC32 of payload][payload]}, the payload being the
+ * block's {@link CanonicalCodec} encoding. Segments are read
+ * through memory mapping on {@link #load()}; appended records are buffered
+ * and written and fsynced together every sync interval (or on every append
+ * when the interval is zero). A torn record at the end of the last segment,
+ * left by a crash in the middle of a write, is cut off when loading. So is a
+ * zero-filled tail, left when the file grew but its data never reached the
+ * disk, and a record in the last segment that does not decode.
+ */
+public final class BlockStore implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "blocks-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Duration syncInterval;
+    private final ScheduledExecutorService flusher;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private FileChannel segment;
+    private int segmentIndex;
+    private long segmentSize;
+    private boolean loaded;
+    private boolean closed;
+    private IOException syncFailure;
+
+    public BlockStore(Path directory, Duration syncInterval) throws IOException {
+        this(directory, syncInterval, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public BlockStore(Path directory, Duration syncInterval, long segmentBytes) throws IOException {
+        if (syncInterval.isNegative()) {
+            throw new IllegalArgumentException("Sync interval must not be negative: " + syncInterval);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.syncInterval = syncInterval;
+        this.segmentBytes = segmentBytes;
+        if (syncInterval.isZero()) {
+            this.flusher = null;
+        } else {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "block-store-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = Math.max(1, syncInterval.toMillis());
+            flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reads every stored block in order and positions the store for appending.
+     * Must be called once, before the first {@link #append(Block)}.
+     */
+    public synchronized List<Block> load() throws IOException {
+        if (loaded) {
+            throw new IllegalStateException("Block store already loaded");
+        }
+        List<Path> segments = listSegments();
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            long validBytes = readSegment(segments.get(i), blocks, last);
+            long fileBytes = Files.size(segments.get(i));
+            if (validBytes < fileBytes) {
+                if (!last) {
+                    throw new IOException("Corrupt record in " + segments.get(i) + " at offset " + validBytes);
+                }
+                try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                    channel.force(true);
+                }
+            }
+        }
+        segmentIndex = segments.isEmpty() ? 0 : segmentNumber(segments.getLast());
+        openSegment();
+        loaded = true;
+        return blocks;
+    }
+
+    /**
+     * Queues the block for writing. It becomes durable at the next sync.
+     */
+    public synchronized void append(Block block) throws IOException {
+        if (!loaded || closed) {
+            throw new IllegalStateException("Block store is not open for appending");
+        }
+        if (syncFailure != null) {
+            throw new IOException("Background sync failed", syncFailure);
+        }
+        byte[] payload = CanonicalCodec.encode(block);
+        ensurePendingCapacity(HEADER_BYTES + payload.length);
+        pending.putInt(payload.length);
+        pending.putInt(checksum(payload));
+        pending.put(payload);
+        if (flusher == null) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all queued records and fsyncs the current segment.
+     */
+    public synchronized void flush() throws IOException {
+        if (segment == null || pending.position() == 0) {
+            return;
+        }
+        pending.flip();
+        while (pending.hasRemaining()) {
+            int recordBytes = HEADER_BYTES + pending.getInt(pending.position());
+            if (segmentSize > 0 && segmentSize + recordBytes > segmentBytes) {
+                segment.force(true);
+                segment.close();
+                segmentIndex++;
+                openSegment();
+            }
+            ByteBuffer record = pending.slice(pending.position(), recordBytes);
+            while (record.hasRemaining()) {
+                segmentSize += segment.write(record);
+            }
+            pending.position(pending.position() + recordBytes);
+        }
+        pending.clear();
+        segment.force(false);
+    }
+
+    public Duration getSyncInterval() {
+        return syncInterval;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+        if (segment != null) {
+            segment.close();
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            syncFailure = e;
+        }
+    }
+
+    /**
+     * Adds the blocks of the segment and returns the offset after the last
+     * whole record. In the last segment a record that does not decode ends
+     * the valid records as a torn one does; elsewhere it fails the load.
+     */
+    private long readSegment(Path path, List<Block> blocks, boolean last) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                // No block encodes to nothing, and zeroes pass the check: the CRC32 of no bytes is 0.
+                if (length <= 0 || length > buffer.remaining()) {
+                    return start;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                if (checksum(payload) != crc) {
+                    return start;
+                }
+                try {
+                    blocks.add(CanonicalCodec.decodeBlock(payload));
+                } catch (IllegalArgumentException e) {
+                    if (last) {
+                        return start;
+                    }
+                    throw new IOException("Undecodable block in " + path + " at offset " + start, e);
+                }
+            }
+            return buffer.position();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(segmentName(segmentIndex));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentSize = segment.size();
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void ensurePendingCapacity(int bytes) {
+        if (pending.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + bytes));
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+
+    private static int segmentNumber(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static String segmentName(int index) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,208 @@
+package com.vitaliebocicov.chainpay.store;
+
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.security.SignatureScheme;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the key pairs of the node's miners in a single file, so that a
+ * restarted node signs with the same identities instead of generating new
+ * ones. The file holds {@code [payload length][CRC32 of payload][payload]},
+ * the payload naming the {@link SignatureScheme} of the keys, then listing
+ * each pair's X.509 public key and PKCS#8 private key in miner order. Like a {@link SnapshotStore} file it
+ * is written to a temporary file, fsynced and renamed into place; where the
+ * file system supports it, only the owner can read it. The private keys
+ * are not encrypted.
+ */
+public final class KeyPairStore {
+
+    static final String FILE_NAME = "keys.bin";
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String OWNER_ONLY = "rw-------";
+
+    private final Path file;
+
+    public KeyPairStore(Path directory) throws IOException {
+        this.file = Files.createDirectories(directory).resolve(FILE_NAME);
+    }
+
+    /**
+     * The first {@code count} stored key pairs, after generating the missing
+     * ones in parallel on {@code pool} and storing them with the rest.
+     *
+     * @throws IOException if the stored keys are not of the generator's
+     *                     scheme, as well as for the reasons {@link #load}
+     *                     gives
+     */
+    public synchronized List<KeyPair> loadOrCreate(int count, KeysGenerator generator, ForkJoinPool pool)
+            throws IOException {
+        List<KeyPair> keys = new ArrayList<>(load(generator.getScheme()));
+        if (keys.size() < count) {
+            keys.addAll(generator.createKeyPairs(count - keys.size(), pool));
+            save(generator.getScheme(), keys);
+        }
+        return List.copyOf(keys.subList(0, count));
+    }
+
+    /**
+     * The stored key pairs of {@code scheme}, none when nothing was stored yet.
+     *
+     * @throws IOException if the file is torn or corrupt, or holds keys of
+     *                     another scheme; the identities in it are not
+     *                     silently replaced
+     */
+    public synchronized List<KeyPair> load(SignatureScheme scheme) throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        ByteBuffer record = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (record.remaining() < HEADER_BYTES) {
+            throw new IOException("Truncated key store " + file);
+        }
+        int length = record.getInt();
+        int crc = record.getInt();
+        if (length != record.remaining()) {
+            throw new IOException("Truncated key store " + file);
+        }
+        byte[] payload = new byte[length];
+        record.get(payload);
+        if (checksum(payload) != crc) {
+            throw new IOException("Corrupt key store " + file);
+        }
+        return decode(payload, scheme);
+    }
+
+    /**
+     * Replaces the stored key pairs with {@code keys}, all of {@code scheme}.
+     *
+     * @throws IllegalArgumentException if a key pair is of another scheme
+     */
+    public synchronized void save(SignatureScheme scheme, List<KeyPair> keys) throws IOException {
+        for (KeyPair pair : keys) {
+            if (SignatureScheme.forKey(pair.getPublic()) != scheme) {
+                throw new IllegalArgumentException("Not a " + scheme + " key pair: " + pair.getPublic().getAlgorithm());
+            }
+        }
+        byte[] payload = encode(scheme, keys);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .flip();
+        Path temporary = file.resolveSibling(FILE_NAME + TEMPORARY_SUFFIX);
+        Files.deleteIfExists(temporary);
+        try (FileChannel channel = FileChannel.open(temporary, Set.of(StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE), ownerOnly())) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static byte[] encode(SignatureScheme scheme, List<KeyPair> keys) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeUTF(scheme.name());
+            out.writeInt(keys.size());
+            for (KeyPair pair : keys) {
+                writeBytes(out, pair.getPublic().getEncoded());
+                writeBytes(out, pair.getPrivate().getEncoded());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<KeyPair> decode(byte[] payload, SignatureScheme scheme) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int format = in.readUnsignedByte();
+        if (format != FORMAT) {
+            throw new IOException("Unknown key store format " + format);
+        }
+        String stored = in.readUTF();
+        if (!scheme.name().equals(stored)) {
+            throw new IOException("Key store " + file + " holds " + stored + " keys, not " + scheme
+                    + "; move it away to generate new identities");
+        }
+        int count = in.readInt();
+        List<KeyPair> keys = new ArrayList<>(Math.min(count, payload.length));
+        KeyFactory factory;
+        try {
+            factory = KeyFactory.getInstance(scheme.getKeyAlgorithm());
+        } catch (GeneralSecurityException e) {
+            throw new IOException("No provider reads " + scheme + " keys", e);
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] publicKey = readBytes(in);
+            byte[] privateKey = readBytes(in);
+            try {
+                keys.add(new KeyPair(factory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                        factory.generatePrivate(new PKCS8EncodedKeySpec(privateKey))));
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Unreadable " + scheme + " key pair " + i, e);
+            }
+        }
+        if (in.available() != 0) {
+            throw new IOException("Trailing bytes in key store");
+        }
+        return keys;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Bad key length " + length);
+        }
+        return in.readNBytes(length);
+    }
+
+    private FileAttribute<?>[] ownerOnly() {
+        if (!file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(OWNER_ONLY))};
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,24 @@
+package com.vitaliebocicov.chainpay.store;
+
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.Target;
+
+import java.util.Map;
+
+/**
+ * Chain state after the first {@code height} blocks: account balances, the
+ * message-id high-water mark and the difficulty. {@code blockHash} is the
+ * hash of the last of those blocks, so a snapshot only applies to a chain
+ * that contains that block at that height. {@code target} is {@code null}
+ * for chains using leading zeroes.
+ */
+public record LedgerSnapshot(long height, Hash256 blockHash, Map<String, Integer> balances,
+                             long maxMessageIdPreviousBlock, int zeroesInHash, Target target) {
+
+    public LedgerSnapshot {
+        if (height <= 0) {
+            throw new IllegalArgumentException("Snapshot height must be positive: " + height);
+        }
+        balances = Map.copyOf(balances);
+    }
+}
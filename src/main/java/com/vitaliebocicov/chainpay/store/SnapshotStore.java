@@ -0,0 +1,197 @@
+package com.vitaliebocicov.chainpay.store;
+
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.Target;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the latest {@link LedgerSnapshot}s next to a {@link BlockStore}, one
+ * file per snapshot named after its height. A file holds
+ * {@code [payload length][CRC32 of payload][payload]} and is written to a
+ * temporary file, fsynced and renamed into place, so a crash leaves either
+ * the whole snapshot or none. Only the newest {@link #RETAINED} snapshots
+ * are kept: if the blocks of the newest one did not reach the block store
+ * before a crash, the one before it still applies.
+ */
+public final class SnapshotStore {
+
+    public static final int RETAINED = 2;
+    private static final int FORMAT = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int interval;
+
+    /**
+     * @param interval number of accepted blocks between two snapshots
+     */
+    public SnapshotStore(Path directory, int interval) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + interval);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.interval = interval;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public boolean isDue(long height) {
+        return height % interval == 0;
+    }
+
+    /**
+     * Durably writes the snapshot and removes all but the newest {@link #RETAINED} ones.
+     */
+    public synchronized void save(LedgerSnapshot snapshot) throws IOException {
+        byte[] payload = encode(snapshot);
+        ByteBuffer record = ByteBuffer.allocate(BlockStore.HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .flip();
+        Path file = directory.resolve(snapshotName(snapshot.height()));
+        Path temporary = directory.resolve(file.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        List<Path> snapshots = listSnapshots();
+        for (Path old : snapshots.subList(Math.min(RETAINED, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    /**
+     * Every readable snapshot, newest first. Torn or corrupt files are skipped.
+     */
+    public synchronized List<LedgerSnapshot> load() throws IOException {
+        List<LedgerSnapshot> snapshots = new ArrayList<>();
+        for (Path file : listSnapshots()) {
+            LedgerSnapshot snapshot = read(file);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    private static LedgerSnapshot read(Path file) throws IOException {
+        ByteBuffer record = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (record.remaining() < BlockStore.HEADER_BYTES) {
+            return null;
+        }
+        int length = record.getInt();
+        int crc = record.getInt();
+        if (length != record.remaining()) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        record.get(payload);
+        if (checksum(payload) != crc) {
+            return null;
+        }
+        try {
+            return decode(payload);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(LedgerSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeLong(snapshot.height());
+            out.writeUTF(snapshot.blockHash().toString());
+            out.writeLong(snapshot.maxMessageIdPreviousBlock());
+            out.writeInt(snapshot.zeroesInHash());
+            out.writeBoolean(snapshot.target() != null);
+            if (snapshot.target() != null) {
+                out.write(snapshot.target().toBytes());
+            }
+            out.writeInt(snapshot.balances().size());
+            for (Map.Entry<String, Integer> balance : snapshot.balances().entrySet()) {
+                out.writeUTF(balance.getKey());
+                out.writeInt(balance.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static LedgerSnapshot decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int format = in.readUnsignedByte();
+        if (format != FORMAT) {
+            throw new IOException("Unknown snapshot format " + format);
+        }
+        long height = in.readLong();
+        Hash256 blockHash = Hash256.fromHex(in.readUTF());
+        long maxMessageId = in.readLong();
+        int zeroesInHash = in.readInt();
+        Target target = null;
+        if (in.readBoolean()) {
+            byte[] targetBytes = new byte[Target.BYTES];
+            in.readFully(targetBytes);
+            target = Target.fromBytes(targetBytes);
+        }
+        int accounts = in.readInt();
+        Map<String, Integer> balances = new HashMap<>();
+        for (int i = 0; i < accounts; i++) {
+            balances.put(in.readUTF(), in.readInt());
+        }
+        if (in.available() != 0) {
+            throw new IOException("Trailing bytes in snapshot");
+        }
+        return new LedgerSnapshot(height, blockHash, balances, maxMessageId, zeroesInHash, target);
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                            && path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+    }
+
+    static String snapshotName(long height) {
+        return String.format("%s%012d%s", SNAPSHOT_PREFIX, height, SNAPSHOT_SUFFIX);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
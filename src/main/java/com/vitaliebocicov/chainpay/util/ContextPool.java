@@ -0,0 +1,78 @@
+package com.vitaliebocicov.chainpay.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free pool of reusable, non-thread-safe contexts such as
+ * {@link java.security.MessageDigest} or {@link java.security.Signature}
+ * engines. A context is confined to the thread that polled it until it is
+ * offered back. The pool holds a few slots per processor and a thread
+ * starts probing at the slot its id maps to, so platform threads mostly get
+ * their own context back, while any number of virtual threads share the
+ * same slots instead of each keeping a thread-local copy. When the probed
+ * slots are empty, {@link #poll()} returns {@code null} and the caller
+ * creates a context; when they are full, an offered context is dropped.
+ *
+ * @param <T> type of the pooled contexts
+ */
+public final class ContextPool<T> {
+
+    private static final int SLOTS_PER_PROCESSOR = 4;
+    private static final int PROBES = 4;
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    public ContextPool() {
+        this(SLOTS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+    }
+
+    public ContextPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(capacity, PROBES) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * A pooled context now owned by the caller, {@code null} when none is free.
+     */
+    public T poll() {
+        int start = home();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (slots.getPlain(slot) != null) {
+                T context = slots.getAndSet(slot, null);
+                if (context != null) {
+                    return context;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands a context back; the caller must not use it afterwards.
+     */
+    public void offer(T context) {
+        int start = home();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & mask;
+            if (slots.getPlain(slot) == null && slots.compareAndSet(slot, null, context)) {
+                return;
+            }
+        }
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    private int home() {
+        long id = Thread.currentThread().threadId();
+        // Fibonacci hashing spreads consecutive thread ids over the slots.
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
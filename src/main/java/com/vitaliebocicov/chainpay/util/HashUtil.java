@@ -0,0 +1,89 @@
+package com.vitaliebocicov.chainpay.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helpers working on raw SHA-256 digests, so that hot paths can check
+ * difficulty and hash linkage without hex-encoding every hash. Digests are
+ * taken from a {@link ContextPool} rather than looked up per call.
+ */
+public final class HashUtil {
+
+    private static final int NIBBLES_PER_BYTE = 2;
+    private static final ContextPool<MessageDigest> SHA256 = new ContextPool<>();
+
+    private HashUtil() { }
+
+    public static byte[] sha256(String input) {
+        return sha256(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static byte[] sha256(byte[] input) {
+        MessageDigest digest = SHA256.poll();
+        if (digest == null) {
+            digest = newSha256();
+        }
+        // digest() resets the engine, so it can go straight back to the pool.
+        byte[] hash = digest.digest(input);
+        SHA256.offer(digest);
+        return hash;
+    }
+
+    /**
+     * SHA-256 over the concatenation of {@code parts}.
+     */
+    public static byte[] sha256(byte[]... parts) {
+        MessageDigest digest = SHA256.poll();
+        if (digest == null) {
+            digest = newSha256();
+        }
+        for (byte[] part : parts) {
+            digest.update(part);
+        }
+        byte[] hash = digest.digest();
+        SHA256.offer(digest);
+        return hash;
+    }
+
+    /**
+     * Number of leading zero hex digits of the hash, i.e. the length of the
+     * "0" prefix of {@link StringUtil#toHex(byte[])}.
+     */
+    public static int countLeadingZeroNibbles(byte[] hash) {
+        int count = 0;
+        for (byte b : hash) {
+            if (b != 0) {
+                return (b & 0xf0) == 0 ? count + 1 : count;
+            }
+            count += NIBBLES_PER_BYTE;
+        }
+        return count;
+    }
+
+    /**
+     * Same result as {@code toHex(hash).startsWith("0".repeat(zeroes))}, but
+     * only looks at the bytes it needs.
+     */
+    public static boolean hasLeadingZeroNibbles(byte[] hash, int zeroes) {
+        if (zeroes > NIBBLES_PER_BYTE * hash.length) {
+            return false;
+        }
+        int fullBytes = zeroes / NIBBLES_PER_BYTE;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[i] != 0) {
+                return false;
+            }
+        }
+        return zeroes % NIBBLES_PER_BYTE == 0 || (hash[fullBytes] & 0xf0) == 0;
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,24 +1,21 @@
 package com.vitaliebocicov.chainpay.util;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-
 public final class StringUtil {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private StringUtil() { }
 
     public static String applySha256(String input) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+        return toHex(HashUtil.sha256(input));
+    }
 
-            StringBuilder hexString = new StringBuilder(2 * hash.length);
-            for (byte elem : hash) {
-                hexString.append(String.format("%02x", elem));
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[2 * bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
         }
+        return new String(hex);
     }
 }
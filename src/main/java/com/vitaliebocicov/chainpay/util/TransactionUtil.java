@@ -2,6 +2,7 @@ package com.vitaliebocicov.chainpay.util;
 
 import com.vitaliebocicov.chainpay.Blockchain;
 import com.vitaliebocicov.chainpay.mining.Miner;
+import com.vitaliebocicov.chainpay.model.HashVersion;
 import com.vitaliebocicov.chainpay.model.Message;
 import com.vitaliebocicov.chainpay.model.Transaction;
 import com.vitaliebocicov.chainpay.security.SignatureUtil;
@@ -26,7 +27,7 @@ public final class TransactionUtil {
         if (amount > currentBalance + Blockchain.TESTING_VIRTUAL_COINS) {
             return;
         }
-        Message message = new Message(blockchain.getMessageCounter(), keys.getPublic());
+        Message message = new Message(blockchain.getMessageCounter(), keys.getPublic(), HashVersion.latest());
         message.setTransaction(new Transaction(sender.getMinerId(), receiver.getMinerId(), amount));
         try {
             message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
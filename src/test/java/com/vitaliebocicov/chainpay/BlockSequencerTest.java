@@ -0,0 +1,163 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.security.SignatureUtil;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockSequencerTest {
+
+    private Blockchain blockchain;
+    private BlockSequencer sequencer;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        Field instance = Blockchain.class.getDeclaredField("blockchain");
+        instance.setAccessible(true);
+        instance.set(null, null);
+        blockchain = Blockchain.getInstance(10);
+        sequencer = new BlockSequencer(blockchain, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequencer.close();
+    }
+
+    @Test
+    void testSubmittedBlockIsAccepted() throws Exception {
+        Block block = block(1, List.of());
+        blockchain.setMagicNumberFound(true);
+
+        assertTrue(sequencer.submit(block).get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, blockchain.getSize());
+        assertEquals(block.getHashCode(), blockchain.getLastBlockHash());
+        assertFalse(blockchain.isMagicNumberFound(), "Waiting miners should be released.");
+    }
+
+    @Test
+    void testBlockMissingItsDifficultyIsRejectedBeforeSequencing() {
+        Block block = block(1, List.of());
+        block.setZeroesInHash(HashUtil.countLeadingZeroNibbles(block.getHash()) + 1);
+        block.setMagicNumber(block.getMagicNumber() + 1);
+        while (HashUtil.hasLeadingZeroNibbles(block.getHash(), block.getZeroesInHash())) {
+            block.setMagicNumber(block.getMagicNumber() + 1);
+        }
+        blockchain.setMagicNumberFound(true);
+
+        CompletableFuture<Boolean> accepted = sequencer.submit(block);
+
+        assertTrue(accepted.isDone(), "Stateless checks should not wait for the writer.");
+        assertFalse(accepted.join());
+        assertEquals(0, blockchain.getSize());
+        assertEquals(1, blockchain.getMetrics().getBlocksRejected());
+        assertFalse(blockchain.isMagicNumberFound());
+    }
+
+    @Test
+    void testBlockWithForgedSignatureIsRejected() throws GeneralSecurityException {
+        KeyPair keys = new KeysGenerator().createKeyPair();
+        Message message = new Message(1, keys.getPublic());
+        message.setTransaction(new Transaction("miner1", "miner2", 10));
+        message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
+        message.setTransaction(new Transaction("miner1", "miner2", 1_000));
+
+        CompletableFuture<Boolean> accepted = sequencer.submit(block(1, List.of(message)));
+
+        assertTrue(accepted.isDone());
+        assertFalse(accepted.join());
+    }
+
+    @Test
+    void testOnlyOneCompetingBlockIsAccepted() throws Exception {
+        int miners = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(miners);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < miners; i++) {
+                Block block = new Block(1, Hash256.ZERO, List.of(), "miner" + i, 0, 0, 100);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return sequencer.submit(block).get(5, TimeUnit.SECONDS);
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                accepted += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, accepted, "Blocks for the same height should be applied one at a time.");
+            assertEquals(1, blockchain.getSize());
+            assertEquals(miners - 1, blockchain.getMetrics().getBlocksRejected());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReadersDoNotWaitForTheChainLock() throws Exception {
+        assertTrue(sequencer.submit(block(1, List.of())).get(5, TimeUnit.SECONDS));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            synchronized (blockchain) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        writer.start();
+        try {
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> read = CompletableFuture.supplyAsync(
+                    () -> blockchain.getSize() + " " + blockchain.getLastBlockHash());
+
+            assertEquals("1 " + blockchain.getLastBlockHash(), read.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            writer.join();
+        }
+    }
+
+    @Test
+    void testCloseAppliesSubmittedBlocks() {
+        CompletableFuture<Boolean> first = sequencer.submit(block(1, List.of()));
+
+        sequencer.close();
+
+        assertTrue(first.isDone());
+        assertTrue(first.join());
+    }
+
+    private Block block(long id, List<Message> messages) {
+        Block block = new Block(id, blockchain.getLastBlockHash(), messages, "miner1", 0, 0, 100);
+        block.setGenerateSeconds(30);
+        return block;
+    }
+}
@@ -2,24 +2,47 @@ package com.vitaliebocicov.chainpay;
 
 import com.vitaliebocicov.chainpay.mining.Miner;
 import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.HashVersion;
 import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Target;
 import com.vitaliebocicov.chainpay.model.Transaction;
+import com.vitaliebocicov.chainpay.monitoring.BlockAcceptanceEvent;
+import com.vitaliebocicov.chainpay.monitoring.ChainValidationEvent;
+import com.vitaliebocicov.chainpay.monitoring.MessageAdmissionEvent;
+import com.vitaliebocicov.chainpay.monitoring.NodeMetrics;
 import com.vitaliebocicov.chainpay.security.KeysGenerator;
 import com.vitaliebocicov.chainpay.security.SignatureUtil;
-import com.vitaliebocicov.chainpay.util.StringUtil;
+import com.vitaliebocicov.chainpay.store.BlockStore;
+import com.vitaliebocicov.chainpay.store.LedgerSnapshot;
+import com.vitaliebocicov.chainpay.store.SnapshotStore;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.security.*;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import java.lang.reflect.Field;
 
@@ -54,7 +77,7 @@ class BlockchainTest {
         message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
 
         block = new Block(1,
-                "0",
+                Hash256.ZERO,
                 List.of(message),
                 "miner1",
                 0,
@@ -105,6 +128,39 @@ class BlockchainTest {
         assertTrue(blockchain.isMagicNumberFound(), "magicNumberFound should be true when set.");
     }
 
+    @Test
+    void testAcceptBlockWakesWaitingMiners() throws InterruptedException {
+        blockchain.setMagicNumberFound(true);
+        Thread waiter = new Thread(() -> {
+            try {
+                blockchain.awaitMagicNumberCleared();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        blockchain.acceptBlock(block);
+        waiter.join(Duration.ofSeconds(5).toMillis());
+
+        assertFalse(waiter.isAlive(), "Waiting miner should wake when the block is accepted");
+        assertFalse(blockchain.isMagicNumberFound());
+        assertNotEquals(0, blockchain.getTipAcceptedNanos(), "Acceptance time should be recorded");
+    }
+
+    @Test
+    void testRejectedBlockClearsMagicNumberFound() throws InterruptedException {
+        Block stale = new Block(1, Hash256.fromHex("5a".repeat(32)), List.of(), "miner1", 0, 0, 100);
+        blockchain.setMagicNumberFound(true);
+
+        blockchain.acceptBlock(stale);
+
+        assertEquals(0, blockchain.getSize());
+        assertFalse(blockchain.isMagicNumberFound(), "Miners should not wait for a block that was rejected");
+        assertEquals(0, blockchain.getTipAcceptedNanos());
+        blockchain.awaitMagicNumberCleared();
+    }
+
     @Test
     void testBlockValidity() {
         blockchain.acceptBlock(block);
@@ -177,7 +233,7 @@ class BlockchainTest {
         Arrays.fill(invalidSignature, (byte) 1);
         invalidMessage.setSignature(invalidSignature);
 
-        Block testBlock = new Block(1, "0", List.of(invalidMessage), "miner1", 0, 0, 100);
+        Block testBlock = new Block(1, Hash256.ZERO, List.of(invalidMessage), "miner1", 0, 0, 100);
 
         assertFalse(blockchain.areValidBlockMessages(testBlock), "Block messages should be invalid due to incorrect signature.");
     }
@@ -205,6 +261,144 @@ class BlockchainTest {
         assertFalse(blockchain.getCurrentBlockMessages().contains(invalidMessage), "Invalid message should not be added.");
     }
 
+    @Test
+    void testAcceptBlockRecordsAcceptanceEvent(@TempDir Path recordingDirectory) throws IOException {
+        List<RecordedEvent> events = recordEvents(recordingDirectory, BlockAcceptanceEvent.NAME,
+                () -> blockchain.acceptBlock(block));
+
+        assertEquals(1, events.size());
+        RecordedEvent event = events.getFirst();
+        assertEquals(1L, event.getLong("blockId"));
+        assertTrue(event.getBoolean("accepted"));
+        assertEquals(0, event.getInt("zeroesBefore"));
+        assertEquals(blockchain.getZeroesInHash(), event.getInt("zeroesAfter"));
+        assertFalse(event.getDuration("lockWait").isNegative());
+    }
+
+    @Test
+    void testReceiveMessageRecordsAdmissionEvent(@TempDir Path recordingDirectory) throws IOException {
+        Message staleMessage = new Message(0, keys.getPublic());
+
+        List<RecordedEvent> events = recordEvents(recordingDirectory, MessageAdmissionEvent.NAME, () -> {
+            blockchain.receiveMessage(message);
+            blockchain.receiveMessage(staleMessage);
+        });
+
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).getBoolean("accepted"));
+        assertTrue(events.get(0).getDuration("signatureVerification").toNanos() > 0);
+        assertFalse(events.get(1).getBoolean("accepted"));
+        assertEquals(Duration.ZERO, events.get(1).getDuration("signatureVerification"),
+                "A stale message should be rejected before its signature is checked");
+    }
+
+    @Test
+    void testIsChainValidRecordsValidationEvent(@TempDir Path recordingDirectory) throws IOException {
+        blockchain.acceptBlock(block);
+
+        List<RecordedEvent> events = recordEvents(recordingDirectory, ChainValidationEvent.NAME, () -> {
+            blockchain.isChainValid();
+            blockchain.isChainValidParallel();
+        });
+
+        assertEquals(2, events.size());
+        assertFalse(events.get(0).getBoolean("parallel"));
+        assertTrue(events.get(1).getBoolean("parallel"));
+        events.forEach(event -> {
+            assertEquals(1, event.getInt("blocks"));
+            assertTrue(event.getBoolean("valid"));
+        });
+    }
+
+    @Test
+    void testConcurrentAdmissionKeepsEveryMessage() throws Exception {
+        List<Message> messages = acceptedMessages(1, 64);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (Message chainMessage : messages) {
+                results.add(executor.submit(() -> blockchain.receiveMessage(chainMessage)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(64, blockchain.getCurrentBlockMessageCount());
+        assertEquals(64, blockchain.getMetrics().getMessagesAccepted());
+    }
+
+    @Test
+    void testAdmissionDoesNotWaitForTheChainLock() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            synchronized (blockchain) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        writer.start();
+        try {
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Boolean> admitted = CompletableFuture.supplyAsync(() -> blockchain.receiveMessage(message));
+
+            assertTrue(admitted.get(5, TimeUnit.SECONDS), "Admission should not need the chain lock.");
+            assertTrue(blockchain.getMessageCounter() > 0);
+        } finally {
+            release.countDown();
+            writer.join();
+        }
+    }
+
+    @Test
+    void testReceiveMessageRecordsAdmissionMetrics() {
+        blockchain.receiveMessage(message);
+        blockchain.receiveMessage(new Message(0, keys.getPublic()));
+
+        NodeMetrics metrics = blockchain.getMetrics();
+        assertEquals(1, metrics.getMessagesAccepted());
+        assertEquals(1, metrics.getMessagesRejected());
+        assertEquals(1, metrics.getSignatureVerification().count(), "Only the admissible message is verified");
+        assertEquals(1, blockchain.getCurrentBlockMessageCount());
+    }
+
+    @Test
+    void testAcceptBlockRecordsBlockInterval() {
+        blockchain.acceptBlock(block);
+        Block next = new Block(2, block.getHashCode(), List.of(), "miner1", 0, 0, 100);
+        blockchain.setZeroesInHash(0);
+        blockchain.acceptBlock(next);
+        blockchain.acceptBlock(next);
+
+        NodeMetrics metrics = blockchain.getMetrics();
+        assertEquals(2, metrics.getBlocksAccepted());
+        assertEquals(1, metrics.getBlocksRejected());
+        assertEquals(1, metrics.getBlockInterval().count(), "The first block has no interval");
+    }
+
+    @Test
+    void testEventsAreDisabledByDefault(@TempDir Path recordingDirectory) throws IOException {
+        Path file = recordingDirectory.resolve("default.jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+            blockchain.receiveMessage(message);
+            blockchain.acceptBlock(block);
+            blockchain.isChainValid();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> event.getEventType().getName().startsWith("chainpay.")));
+    }
+
     @Test
     void testIsChainValidWithValidChainWithOneBlock() {
         blockchain.acceptBlock(block);
@@ -250,19 +444,19 @@ class BlockchainTest {
     }
 
     @Test
-    void testDecreaseNumberOfZeros() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        blockchain.setZeroesInHash(5);
-        Method decreaseNumberOfZerosMethod = Blockchain.class.getDeclaredMethod("decreaseNumberOfZeros");
-        decreaseNumberOfZerosMethod.setAccessible(true);  // Make the private method accessible
+    void testDecreaseNumberOfZeros() {
+        blockchain.setZeroesInHash(2);
 
-        decreaseNumberOfZerosMethod.invoke(blockchain);
-        assertEquals(4, blockchain.getZeroesInHash(), "Number of zeros should decrease by 1");
+        blockchain.acceptBlock(mineZeroesBlock(1, 65, 2));
+        assertEquals(1, blockchain.getSize());
+        assertEquals(1, blockchain.getZeroesInHash(), "Number of zeros should decrease by 1");
 
-        blockchain.setZeroesInHash(1);
-        decreaseNumberOfZerosMethod.invoke(blockchain);
+        blockchain.acceptBlock(mineZeroesBlock(2, 65, 1));
+        assertEquals(2, blockchain.getSize());
         assertEquals(0, blockchain.getZeroesInHash(), "Number of zeros should not go below 0");
 
-        decreaseNumberOfZerosMethod.invoke(blockchain);
+        blockchain.acceptBlock(mineZeroesBlock(3, 65, 0));
+        assertEquals(3, blockchain.getSize());
         assertEquals(0, blockchain.getZeroesInHash(), "Number of zeros should remain 0 when already at minimum");
     }
 
@@ -313,63 +507,421 @@ class BlockchainTest {
     @Test
     void testInvalidChainPreviousHash() {
         blockchain = Blockchain.getInstance(10);
-        Block genesisBlock = new Block(1, "0", new ArrayList<>(), "miner1", 0, 0, 100);
-        Block secondBlock = new Block(2, "0Valid", new ArrayList<>(), "miner1", 0, 0, 100);
+        Block genesisBlock = new Block(1, Hash256.ZERO, new ArrayList<>(), "miner1", 0, 0, 100);
+        genesisBlock.setGenerateSeconds(30);
+        blockchain.acceptBlock(genesisBlock);
+        Block secondBlock = new Block(2, genesisBlock.getHashCode(), new ArrayList<>(), "miner1", 0, 0, 100);
+        blockchain.acceptBlock(secondBlock);
+        assertTrue(blockchain.isChainValid(), "Chain should be valid before tampering.");
+
+        genesisBlock.setMagicNumber(genesisBlock.getMagicNumber() + 1);
+
+        assertFalse(blockchain.isChainValid(), "Chain should be invalid due to the invalid hash.");
+    }
+
+    @Test
+    void testInvalidChainDifficulty() {
+        blockchain = Blockchain.getInstance(10);
+        Block genesisBlock = new Block(1, Hash256.ZERO, new ArrayList<>(), "miner1", 0, 0, 100);
+        genesisBlock.setGenerateSeconds(30);
+        blockchain.acceptBlock(genesisBlock);
+        Block secondBlock = new Block(2, genesisBlock.getHashCode(), new ArrayList<>(), "miner1", 0, 0, 100);
+        blockchain.acceptBlock(secondBlock);
+
+        secondBlock.setZeroesInHash(HashUtil.countLeadingZeroNibbles(secondBlock.getHash()) + 1);
+
+        assertFalse(blockchain.isChainValid(), "Chain should be invalid when a block misses its difficulty.");
+    }
+
+    @Test
+    void testIsBlockValidRejectsInsufficientDifficulty() {
+        blockchain.setZeroesInHash(HashUtil.countLeadingZeroNibbles(block.getHash()) + 1);
+
+        assertFalse(blockchain.isBlockValid(block), "Block should be rejected when its hash misses the difficulty.");
+    }
+
+    @Test
+    void testChainValidationReusesAdmissionSignatureChecks() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        Block genesisBlock = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100);
+        genesisBlock.setGenerateSeconds(30);
+        blockchain.acceptBlock(genesisBlock);
+        Block testBlock = getBlockWithTwoMessages();
+        testBlock.getMessages().forEach(blockchain::receiveMessage);
+        Block secondBlock = new Block(2, blockchain.getLastBlockHash(), testBlock.getMessages(), "miner1", 0, 0, 100);
+        blockchain.acceptBlock(secondBlock);
+
+        assertTrue(blockchain.isChainValid());
+
+        assertEquals(2, blockchain.getSignatureCache().getMisses(), "Signatures should be verified once on admission.");
+        assertEquals(2, blockchain.getSignatureCache().getHits(), "Chain validation should hit the signature cache.");
+    }
+
+    @Test
+    void testIncrementalValidationOnlyChecksNewBlocks() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        acceptSignedChain(2, 1);
+        assertTrue(blockchain.isChainValidIncremental());
+        assertEquals(2, blockchain.getValidatedHeight());
+        assertEquals(1, blockchain.getSignatureCache().getMisses());
+
+        Block third = new Block(3, blockchain.getLastBlockHash(), acceptedMessages(3, 1), "miner1", 0, 2, 100);
+        third.setGenerateSeconds(30);
+        blockchain.acceptBlock(third);
+
+        assertTrue(blockchain.isChainValidIncremental());
+        assertEquals(3, blockchain.getValidatedHeight());
+        assertEquals(2, blockchain.getSignatureCache().getMisses(), "Only the new block's message should be checked.");
+        assertEquals(0, blockchain.getSignatureCache().getHits());
+    }
+
+    @Test
+    void testIncrementalValidationKeepsFailingOnInvalidBlock() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        acceptSignedChain(2, 1);
+        assertTrue(blockchain.isChainValidIncremental());
+
+        Block stale = new Block(3, blockchain.getLastBlockHash(), acceptedMessages(3, 1), "miner1", 0, 10, 100);
+        stale.setGenerateSeconds(30);
+        blockchain.acceptBlock(stale);
+
+        assertFalse(blockchain.isChainValidIncremental(), "Message ids below the watermark should be caught.");
+        assertFalse(blockchain.isChainValidIncremental(), "The invalid block should be checked again.");
+        assertEquals(2, blockchain.getValidatedHeight());
+    }
+
+    @Test
+    void testIncrementalValidationStartsOverWhenValidatedBlockChanges() {
+        Block first = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100);
+        first.setGenerateSeconds(30);
+        blockchain.acceptBlock(first);
+        Block second = new Block(2, blockchain.getLastBlockHash(), List.of(), "miner1", 0, 0, 100);
+        second.setGenerateSeconds(30);
+        blockchain.acceptBlock(second);
+        assertTrue(blockchain.isChainValidIncremental());
+
+        second.setZeroesInHash(MAX_NUMBER_OF_ZEROES);
+        second.setMagicNumber(second.getMagicNumber() + 1);
+
+        assertFalse(blockchain.isChainValidIncremental(), "A changed validated block should be noticed.");
+    }
+
+    @Test
+    void testAssumeValidSkipsSignaturesUpToCheckpoint() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        acceptSignedChain(3, 1);
+        blockchain.setAssumeValid(3, blockchain.getLastBlockHash());
+        long checks = blockchain.getSignatureCache().getHits() + blockchain.getSignatureCache().getMisses();
+
+        assertTrue(blockchain.isChainValidIncremental());
+
+        assertEquals(3, blockchain.getValidatedHeight());
+        assertEquals(checks, blockchain.getSignatureCache().getHits() + blockchain.getSignatureCache().getMisses(),
+                "No signature below the checkpoint should be verified.");
+    }
+
+    @Test
+    void testAssumeValidRejectsOtherBlockAtCheckpoint() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        acceptSignedChain(3, 1);
+        blockchain.setAssumeValid(2, blockchain.getLastBlockHash());
+
+        assertFalse(blockchain.isChainValidIncremental(), "The block at the checkpoint must have its hash.");
+        assertEquals(1, blockchain.getValidatedHeight());
+        assertThrows(IllegalArgumentException.class, () -> blockchain.setAssumeValid(0, Hash256.ZERO));
+    }
 
-        try (MockedStatic<StringUtil> mockedStatic = mockStatic(StringUtil.class)) {
-            mockedStatic.when(() -> StringUtil.applySha256(anyString()))
-                    .thenReturn("validHash")
-                    .thenReturn("validHash")
-                    .thenReturn("0Valid")
-                    .thenReturn("0Valid")
-                    .thenReturn("0InValid");
+    @Test
+    void testAttachStoreRestoresChainState(@TempDir Path storeDirectory) throws Exception {
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.attachStore(store);
+            acceptSignedChain(3, 2);
+        }
+        int size = blockchain.getSize();
+        Hash256 lastHash = blockchain.getLastBlockHash();
+        int zeroes = blockchain.getZeroesInHash();
+        int balance = blockchain.getVirtualCoinsAmount("miner1");
+
+        setUp();
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.attachStore(store);
+
+            assertEquals(size, blockchain.getSize(), "Chain size should be restored.");
+            assertEquals(3, blockchain.getBlockCounter(), "Block counter should be restored.");
+            assertEquals(lastHash, blockchain.getLastBlockHash(), "Chain head should be restored.");
+            assertEquals(zeroes, blockchain.getZeroesInHash(), "Difficulty should be restored.");
+            assertEquals(balance, blockchain.getVirtualCoinsAmount("miner1"), "Balances should be restored.");
+            assertEquals(6, blockchain.getMaxMessageIdPreviousBlock(), "Message id watermark should be restored.");
+            assertTrue(blockchain.getMessageCounter() > 6, "New message ids should follow the stored ones.");
+            assertTrue(blockchain.isChainValid(), "Restored chain should be valid.");
+            assertThrows(IllegalStateException.class, () -> blockchain.attachStore(store));
+        }
+    }
 
-            blockchain.acceptBlock(genesisBlock);
-            blockchain.acceptBlock(secondBlock);
+    @Test
+    void testBlockThatFailsToStoreLeavesChainUnchanged(@TempDir Path storeDirectory) throws Exception {
+        BlockStore store = new BlockStore(storeDirectory, Duration.ZERO);
+        blockchain.attachStore(store);
+        acceptSignedChain(1, 1);
+        store.close();
+        int size = blockchain.getSize();
+        Hash256 lastHash = blockchain.getLastBlockHash();
+        int zeroes = blockchain.getZeroesInHash();
+        int balance = blockchain.getVirtualCoinsAmount("miner1");
+        Block next = new Block(2, lastHash, List.of(), "miner1", 0, 1, 100);
+        next.setGenerateSeconds(5);
+        blockchain.setMagicNumberFound(true);
 
-            assertFalse(blockchain.isChainValid(), "Chain should be invalid due to the invalid hash.");
+        assertThrows(IllegalStateException.class, () -> blockchain.acceptBlock(next));
+
+        assertEquals(size, blockchain.getSize(), "A block that was not stored should not be in the chain.");
+        assertEquals(lastHash, blockchain.getLastBlockHash());
+        assertEquals(zeroes, blockchain.getZeroesInHash(), "Difficulty should not move for an unstored block.");
+        assertEquals(balance, blockchain.getVirtualCoinsAmount("miner1"), "The reward should not be paid.");
+        assertEquals(1, blockchain.getBlockCounter());
+        assertFalse(blockchain.isMagicNumberFound(), "Miners should resume after a failed write.");
+    }
+
+    @Test
+    void testAttachStoreResumesFromSnapshot(@TempDir Path storeDirectory) throws Exception {
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.attachStore(store, new SnapshotStore(storeDirectory, 2));
+            acceptSignedChain(5, 1);
+        }
+        Hash256 lastHash = blockchain.getLastBlockHash();
+        int zeroes = blockchain.getZeroesInHash();
+        int balance = blockchain.getVirtualCoinsAmount("miner1");
+        List<LedgerSnapshot> snapshots = new SnapshotStore(storeDirectory, 2).load();
+        assertEquals(List.of(4L, 2L), snapshots.stream().map(LedgerSnapshot::height).toList());
+
+        setUp();
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.attachStore(store, new SnapshotStore(storeDirectory, 2));
+
+            assertEquals(5, blockchain.getSize(), "Blocks covered by the snapshot should still be in the chain.");
+            assertEquals(5, blockchain.getBlockCounter());
+            assertEquals(lastHash, blockchain.getLastBlockHash());
+            assertEquals(zeroes, blockchain.getZeroesInHash(), "Difficulty should match a full replay.");
+            assertEquals(balance, blockchain.getVirtualCoinsAmount("miner1"), "Balances should match a full replay.");
+            assertEquals(5, blockchain.getMaxMessageIdPreviousBlock(), "Message id watermark should match a full replay.");
+            assertTrue(blockchain.isChainValid());
         }
     }
 
     @Test
-    void testAdjustZeroesInHash_DecreaseZeros() {
-        block.setGenerateSeconds(65);
+    void testSnapshotRestoresRetargeting(@TempDir Path storeDirectory) throws Exception {
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.useTargetDifficulty(Duration.ofSeconds(10), 3);
+            blockchain.attachStore(store, new SnapshotStore(storeDirectory, 2));
+            blockchain.acceptBlock(mineTargetBlock(1, Duration.ofSeconds(4)));
+            blockchain.acceptBlock(mineTargetBlock(2, Duration.ofSeconds(7)));
+            blockchain.acceptBlock(mineTargetBlock(3, Duration.ofSeconds(12)));
+        }
+        Target target = blockchain.getTarget();
 
-        blockchain.adjustZeroesInHash(block);
+        setUp();
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.useTargetDifficulty(Duration.ofSeconds(10), 3);
+            blockchain.attachStore(store, new SnapshotStore(storeDirectory, 2));
 
-        assertEquals("N was decreased by 1", block.getNumberOfZerosStatus());
+            assertEquals(target, blockchain.getTarget(), "Retargeting should continue from the snapshot.");
+            assertTrue(blockchain.isChainValid());
+        }
     }
 
     @Test
-    void testAdjustZeroesInHash_MaxZeroes() {
-        block.setGenerateSeconds(30);
-        block.setZeroesInHash(MAX_NUMBER_OF_ZEROES);
+    void testAttachStoreReplaysOnlyBlocksAfterSnapshot(@TempDir Path storeDirectory) throws Exception {
+        Hash256 secondHash;
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.attachStore(store);
+            acceptSignedChain(2, 1);
+            secondHash = blockchain.getLastBlockHash();
+            Block third = new Block(3, secondHash, List.of(), "miner1", 0, 2, 100);
+            third.setGenerateSeconds(30);
+            blockchain.acceptBlock(third);
+        }
+        // A balance no replay would produce shows that the snapshot, not the first two blocks, was used.
+        new SnapshotStore(storeDirectory, 2).save(new LedgerSnapshot(2, secondHash,
+                Map.of("miner1", 1_000), 0, blockchain.getZeroesInHash(), null));
+        new SnapshotStore(storeDirectory, 2).save(new LedgerSnapshot(3, Hash256.fromHex("5a".repeat(32)),
+                Map.of("miner1", 5_000), 0, 0, null));
+
+        setUp();
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.attachStore(store, new SnapshotStore(storeDirectory, 2));
+
+            assertEquals(3, blockchain.getSize());
+            assertEquals(1_000 + VIRTUAL_COINS_REWARD, blockchain.getVirtualCoinsAmount("miner1"),
+                    "The snapshot not matching the stored block should be skipped.");
+        }
+    }
 
-        blockchain.adjustZeroesInHash(block);
+    @Test
+    void testAttachStoreRejectsBlocksThatDoNotExtendTheChain(@TempDir Path storeDirectory) throws Exception {
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            store.load();
+            store.append(new Block(1, Hash256.fromHex("5a".repeat(32)), List.of(), "miner1", 0, 0, 100));
+        }
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            assertThrows(IOException.class, () -> blockchain.attachStore(store));
+        }
+    }
 
-        assertEquals("N stays the same", block.getNumberOfZerosStatus());
+    @Test
+    void testChainMixingHashVersionsIsValid() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        acceptSignedChain(2, 1);
+        Message binaryMessage = new Message(10, keys.getPublic(), HashVersion.BINARY);
+        binaryMessage.setTransaction(new Transaction("miner1", "miner2", 1));
+        binaryMessage.setSignature(SignatureUtil.signMessage(binaryMessage, keys.getPrivate()));
+        Block binaryBlock = new Block(3, blockchain.getLastBlockHash(), List.of(binaryMessage), "miner1", 0, 2, 100, HashVersion.BINARY);
+        binaryBlock.setGenerateSeconds(30);
+        blockchain.acceptBlock(binaryBlock);
+        Block legacyBlock = new Block(4, blockchain.getLastBlockHash(), List.of(), "miner1", 0, 10, 100);
+        blockchain.acceptBlock(legacyBlock);
+
+        assertEquals(4, blockchain.getSize());
+        assertTrue(blockchain.isChainValid(), "Chain mixing string and binary hashed blocks should be valid.");
+        assertTrue(blockchain.isChainValidParallel());
     }
 
     @Test
-    void testAdjustZeroesInHash_IncreaseZeros() {
-        blockchain = Blockchain.getInstance(10);
-        block.setGenerateSeconds(10);
-        block.setZeroesInHash(MAX_NUMBER_OF_ZEROES - 1);
+    void testTargetDifficultyAcceptsBlocksCarryingTheTarget() {
+        blockchain.useTargetDifficulty(Duration.ofSeconds(10), 2);
+        Target initial = blockchain.getTarget();
+        assertEquals(Target.ofLeadingZeroes(0), initial, "The first target should match the current zeroes.");
 
-        blockchain.adjustZeroesInHash(block);
+        Block first = mineTargetBlock(1, Duration.ofSeconds(10));
+        blockchain.acceptBlock(first);
+        assertEquals(1, blockchain.getSize());
+        assertEquals(HashVersion.TARGET, first.getHashVersion());
+        assertEquals(initial, blockchain.getTarget(), "A block on time should keep the target.");
+        assertEquals("Target stays the same", first.getNumberOfZerosStatus());
+
+        Block second = mineTargetBlock(2, Duration.ofMillis(2500));
+        blockchain.acceptBlock(second);
+        assertEquals(2, blockchain.getSize());
+        assertEquals(initial.scale(BigInteger.valueOf(5), BigInteger.valueOf(8)), blockchain.getTarget(),
+                "The target should follow the average time of the window.");
+        assertEquals("Target was lowered", second.getNumberOfZerosStatus());
+        assertTrue(blockchain.isChainValid());
+        assertTrue(blockchain.isChainValidParallel());
+    }
+
+    @Test
+    void testTargetDifficultyRejectsOtherDifficulties() {
+        blockchain.useTargetDifficulty(Duration.ofSeconds(10), 2);
+
+        Block wrongTarget = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 100, Target.ofLeadingZeroes(1));
+        Block zeroesBlock = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100);
 
-        assertEquals("N was increased to " + blockchain.getZeroesInHash(), block.getNumberOfZerosStatus());
+        assertFalse(blockchain.isBlockValid(wrongTarget), "A block must carry the current target.");
+        assertFalse(blockchain.isBlockValid(zeroesBlock), "New blocks must use the target.");
+        assertTrue(blockchain.isBlockValid(mineTargetBlock(1, Duration.ofSeconds(10))));
     }
 
     @Test
-    void testAdjustZeroesInHash_NoChange() {
-        blockchain = Blockchain.getInstance(10);
-        block.setGenerateSeconds(30);
-        block.setZeroesInHash(MAX_NUMBER_OF_ZEROES);
+    void testTargetDifficultyRejectsHashAboveTarget() {
+        blockchain.setZeroesInHash(MAX_NUMBER_OF_ZEROES);
+        blockchain.useTargetDifficulty(Duration.ofSeconds(10), 2);
+        Block unmined = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 100, blockchain.getTarget());
+
+        assertFalse(blockchain.getTarget().isMetBy(unmined.getHash()));
+        assertFalse(blockchain.isBlockValid(unmined), "A hash above the target should be rejected.");
+    }
+
+    @Test
+    void testIsChainValidReplaysRetargeting() {
+        blockchain.useTargetDifficulty(Duration.ofSeconds(10), 2);
+        Block first = mineTargetBlock(1, Duration.ofSeconds(5));
+        blockchain.acceptBlock(first);
+        blockchain.acceptBlock(mineTargetBlock(2, Duration.ofSeconds(10)));
+        assertTrue(blockchain.isChainValid());
+
+        first.setGenerateNanos(Duration.ofSeconds(20).toNanos());
 
-        blockchain.adjustZeroesInHash(block);
+        assertFalse(blockchain.isChainValid(), "A block carrying a target the chain does not lead to is invalid.");
+    }
+
+    @Test
+    void testAttachStoreReplaysTargets(@TempDir Path storeDirectory) throws Exception {
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.useTargetDifficulty(Duration.ofSeconds(10), 3);
+            blockchain.attachStore(store);
+            blockchain.acceptBlock(mineTargetBlock(1, Duration.ofSeconds(4)));
+            blockchain.acceptBlock(mineTargetBlock(2, Duration.ofSeconds(7)));
+        }
+        Target target = blockchain.getTarget();
+
+        setUp();
+        try (BlockStore store = new BlockStore(storeDirectory, Duration.ZERO)) {
+            blockchain.useTargetDifficulty(Duration.ofSeconds(10), 3);
+            blockchain.attachStore(store);
 
-        assertEquals("N stays the same", block.getNumberOfZerosStatus());
+            assertEquals(2, blockchain.getSize());
+            assertEquals(target, blockchain.getTarget(), "Retargeting should be replayed from the store.");
+            assertTrue(blockchain.isChainValid());
+        }
+    }
+
+    @Test
+    void testIsChainValidParallelWithEmptyChain() {
+        assertTrue(blockchain.isChainValidParallel(), "Empty chain should be valid in parallel mode.");
+    }
+
+    @Test
+    void testIsChainValidParallelMatchesSerial() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        List<Message> messages = acceptSignedChain(4, 5);
+
+        assertTrue(blockchain.isChainValid(), "Chain should be valid.");
+        assertTrue(blockchain.isChainValidParallel(), "Parallel validation should agree with serial validation.");
+
+        messages.getLast().setTransaction(new Transaction("miner1", "tampered", 1));
+
+        assertFalse(blockchain.isChainValid(), "Chain should be invalid after tampering.");
+        assertFalse(blockchain.isChainValidParallel(), "Parallel validation should detect the tampered signature.");
+    }
+
+    @Test
+    void testIsChainValidParallelDetectsInvalidMessageIds() throws NoSuchAlgorithmException, SignatureException, InvalidKeyException {
+        acceptSignedChain(2, 1);
+        Block lastBlock = new Block(3, blockchain.getLastBlockHash(), acceptedMessages(1, 1), "miner1", 0, 5, 100);
+        blockchain.acceptBlock(lastBlock);
+
+        assertFalse(blockchain.isChainValid(), "Serial validation should reject a stale message id.");
+        assertFalse(blockchain.isChainValidParallel(), "Parallel validation should reject a stale message id.");
+    }
+
+    @Test
+    void testAcceptedBlockAdjustsZeroes_DecreaseZeros() {
+        Block slowBlock = mineZeroesBlock(1, 65, 0);
+
+        blockchain.acceptBlock(slowBlock);
+
+        assertEquals("N was decreased by 1", slowBlock.getNumberOfZerosStatus());
+    }
+
+    @Test
+    void testAcceptedBlockAdjustsZeroes_MaxZeroes() {
+        Block maxBlock = mineZeroesBlock(1, 30, MAX_NUMBER_OF_ZEROES);
+
+        blockchain.acceptBlock(maxBlock);
+
+        assertEquals("N stays the same", maxBlock.getNumberOfZerosStatus());
+    }
+
+    @Test
+    void testAcceptedBlockAdjustsZeroes_IncreaseZeros() {
+        Block fastBlock = mineZeroesBlock(1, 10, MAX_NUMBER_OF_ZEROES - 1);
+
+        blockchain.acceptBlock(fastBlock);
+
+        assertEquals(1, blockchain.getZeroesInHash());
+        assertEquals("N was increased to " + blockchain.getZeroesInHash(), fastBlock.getNumberOfZerosStatus());
+    }
+
+    @Test
+    void testAcceptedBlockAdjustsZeroes_NoChange() {
+        Block steadyBlock = mineZeroesBlock(1, 30, 0);
+
+        blockchain.acceptBlock(steadyBlock);
+
+        assertEquals(0, blockchain.getZeroesInHash());
+        assertEquals("N stays the same", steadyBlock.getNumberOfZerosStatus());
     }
 
     @Test
@@ -382,7 +934,7 @@ class BlockchainTest {
         List<Message> messages = List.of(validMessage1);
         blockchain.receiveMessage(validMessage1);
 
-        Block testBlock = new Block(1, "0", messages, "miner1", 0, 0, 100);
+        Block testBlock = new Block(1, Hash256.ZERO, messages, "miner1", 0, 0, 100);
         blockchain.acceptBlock(testBlock);
 
         int minerCoins = blockchain.getVirtualCoinsAmount("miner1");
@@ -404,7 +956,7 @@ class BlockchainTest {
         blockchain.receiveMessage(validMessage1);
         blockchain.receiveMessage(validMessage2);
 
-        Block testBlock = new Block(1, "0", messages, "miner1", 0, 0, 100);
+        Block testBlock = new Block(1, Hash256.ZERO, messages, "miner1", 0, 0, 100);
         blockchain.acceptBlock(testBlock);
 
         int minerCoins = blockchain.getVirtualCoinsAmount("miner1");
@@ -422,7 +974,7 @@ class BlockchainTest {
         List<Message> messages = List.of(validMessage1);
         blockchain.receiveMessage(validMessage1);
 
-        Block testBlock = new Block(1, "0", messages, "otherMiner", 0, 0, 100);
+        Block testBlock = new Block(1, Hash256.ZERO, messages, "otherMiner", 0, 0, 100);
         blockchain.acceptBlock(testBlock);
 
         int userCoins = blockchain.getVirtualCoinsAmount("user2");
@@ -439,7 +991,7 @@ class BlockchainTest {
         List<Message> messages = List.of(validMessage1);
         blockchain.receiveMessage(validMessage1);
 
-        Block testBlock = new Block(1, "0", messages, "otherMiner", 0, 0, 100);
+        Block testBlock = new Block(1, Hash256.ZERO, messages, "otherMiner", 0, 0, 100);
         blockchain.acceptBlock(testBlock);
 
         int userCoins = blockchain.getVirtualCoinsAmount("user3");
@@ -458,7 +1010,7 @@ class BlockchainTest {
         List<Message> messages = List.of(validMessage1);
         blockchain.receiveMessage(validMessage1);
 
-        Block testBlock = new Block(1, "0", messages, "miner1", 0, 0, 100);
+        Block testBlock = new Block(1, Hash256.ZERO, messages, "miner1", 0, 0, 100);
         blockchain.acceptBlock(testBlock);
 
         int minerCoins = blockchain.getVirtualCoinsAmount("miner1");
@@ -466,6 +1018,68 @@ class BlockchainTest {
         assertEquals(VIRTUAL_COINS_REWARD, minerCoins, "Miner should have only the reward coins due to null transaction.");
     }
 
+    private Block mineZeroesBlock(long id, long generateSeconds, int zeroes) {
+        Block zeroesBlock = new Block(id, blockchain.getLastBlockHash(), List.of(), "miner1", zeroes, 0, 100);
+        zeroesBlock.setGenerateSeconds(generateSeconds);
+        long nonce = 0;
+        while (!HashUtil.hasLeadingZeroNibbles(zeroesBlock.getHash(), blockchain.getZeroesInHash())) {
+            zeroesBlock.setMagicNumber(++nonce);
+        }
+        return zeroesBlock;
+    }
+
+    private Block mineTargetBlock(long id, Duration generateTime) {
+        Block targetBlock = new Block(id, blockchain.getLastBlockHash(), List.of(), "miner1", 0, 100,
+                blockchain.getTarget());
+        targetBlock.setGenerateNanos(generateTime.toNanos());
+        long nonce = 0;
+        while (!blockchain.getTarget().isMetBy(targetBlock.getHash())) {
+            targetBlock.setMagicNumber(++nonce);
+        }
+        return targetBlock;
+    }
+
+    private List<Message> acceptSignedChain(int blocks, int messagesPerBlock) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        List<Message> allMessages = new ArrayList<>();
+        long nextMessageId = 1;
+        for (int i = 1; i <= blocks; i++) {
+            List<Message> messages = acceptedMessages(nextMessageId, messagesPerBlock);
+            Block chainBlock = new Block(i, blockchain.getLastBlockHash(), messages, "miner1", 0, nextMessageId - 1, 100);
+            chainBlock.setGenerateSeconds(30);
+            blockchain.acceptBlock(chainBlock);
+            allMessages.addAll(messages);
+            nextMessageId += messagesPerBlock;
+        }
+        assertEquals(blocks, blockchain.getSize());
+        return allMessages;
+    }
+
+    private List<Message> acceptedMessages(long firstId, int count) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        List<Message> messages = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            Message chainMessage = new Message(id, keys.getPublic());
+            chainMessage.setTransaction(new Transaction("miner1", "miner2", 1));
+            chainMessage.setSignature(SignatureUtil.signMessage(chainMessage, keys.getPrivate()));
+            messages.add(chainMessage);
+        }
+        return messages;
+    }
+
+    private static List<RecordedEvent> recordEvents(Path directory, String eventName, Runnable action)
+            throws IOException {
+        Path file = directory.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .toList();
+    }
+
     private Block getBlockWithTwoMessages() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
         Message validMessage1 = new Message(1, keys.getPublic());
         validMessage1.setTransaction(new Transaction("miner1", "miner2", 10));
@@ -476,7 +1090,7 @@ class BlockchainTest {
         validMessage2.setSignature(SignatureUtil.signMessage(validMessage2, keys.getPrivate()));
 
         return new Block(1,
-                "0",
+                Hash256.ZERO,
                 List.of(validMessage1, validMessage2),
                 "miner1",
                 0,
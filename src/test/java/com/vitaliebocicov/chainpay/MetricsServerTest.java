@@ -0,0 +1,112 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.mining.Miner;
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.monitoring.NodeMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsServerTest {
+
+    @Mock
+    private Blockchain blockchain;
+    @Mock
+    private Miner miner;
+
+    private final NodeMetrics metrics = new NodeMetrics();
+    private MetricsServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(miner.getMinerId()).thenReturn("miner0");
+        when(miner.getHashCount()).thenReturn(0L);
+        server = new MetricsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), blockchain, List.of(miner));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testScrapeExposesNodeMetrics() {
+        when(blockchain.getMetrics()).thenReturn(metrics);
+        when(blockchain.getZeroesInHash()).thenReturn(3);
+        when(blockchain.getBlockCounter()).thenReturn(12L);
+        when(blockchain.getValidatedHeight()).thenReturn(10);
+        when(blockchain.getCurrentBlockMessageCount()).thenReturn(4);
+        when(blockchain.getPreviousBlockMessageCount()).thenReturn(2);
+        when(miner.getHashCount()).thenReturn(5_000L);
+        metrics.recordAdmission(true);
+        metrics.recordAdmission(true);
+        metrics.recordAdmission(false);
+        metrics.recordSignatureVerification(15_000);
+        metrics.recordBlock(true);
+        metrics.recordBlockInterval(150_000_000);
+
+        String body = server.scrape();
+
+        assertTrue(body.contains("chainpay_miner_hashes_total{miner=\"miner0\"} 5000\n"));
+        assertTrue(body.contains("# TYPE chainpay_miner_hash_rate gauge\nchainpay_miner_hash_rate{miner=\"miner0\"} "));
+        assertTrue(body.contains("chainpay_zeroes_in_hash 3\n"));
+        assertTrue(body.contains("chainpay_block_height 12\n"));
+        assertTrue(body.contains("chainpay_validated_height 10\n"));
+        assertTrue(body.contains("chainpay_mempool_messages{queue=\"current\"} 4\n"));
+        assertTrue(body.contains("chainpay_mempool_messages{queue=\"previous\"} 2\n"));
+        assertTrue(body.contains("chainpay_messages_total{result=\"accepted\"} 2\n"));
+        assertTrue(body.contains("chainpay_messages_total{result=\"rejected\"} 1\n"));
+        assertTrue(body.contains("chainpay_signature_verification_seconds_count 1\n"));
+        assertTrue(body.contains("chainpay_signature_verification_seconds{quantile=\"0.99\"} 2.0E-5\n"));
+        assertTrue(body.contains("chainpay_block_interval_seconds_bucket{le=\"0.1\"} 0\n"));
+        assertTrue(body.contains("chainpay_block_interval_seconds_bucket{le=\"0.2\"} 1\n"));
+        assertTrue(body.contains("chainpay_block_interval_seconds_bucket{le=\"+Inf\"} 1\n"));
+        assertTrue(body.contains("chainpay_blocks_total{result=\"accepted\"} 1\n"));
+    }
+
+    @Test
+    void testHashRateCountsHashesSincePreviousScrape() {
+        when(blockchain.getMetrics()).thenReturn(metrics);
+        server.scrape();
+
+        String body = server.scrape();
+
+        assertTrue(body.contains("chainpay_miner_hash_rate{miner=\"miner0\"} 0.0\n"),
+                "No hashes between scrapes should give a zero rate");
+    }
+
+    @Test
+    void testServesMetricsOverHttp() throws IOException, InterruptedException {
+        when(blockchain.getMetrics()).thenReturn(metrics);
+        URI uri = URI.create("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + MetricsServer.PATH);
+
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain"));
+            assertTrue(response.body().contains("# TYPE chainpay_block_interval_seconds histogram"));
+
+            HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, post.statusCode());
+        }
+    }
+}
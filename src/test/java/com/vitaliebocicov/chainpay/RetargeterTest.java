@@ -0,0 +1,109 @@
+package com.vitaliebocicov.chainpay;
+
+import com.vitaliebocicov.chainpay.model.Target;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetargeterTest {
+
+    private static final Duration INTERVAL = Duration.ofSeconds(10);
+    private static final BigInteger HASH_SPACE = BigInteger.ONE.shiftLeft(256);
+
+    @Test
+    void testNextWithoutSamplesKeepsTarget() {
+        Target target = Target.ofLeadingZeroes(3);
+        assertEquals(target, new Retargeter(INTERVAL, 5).next(target));
+    }
+
+    @Test
+    void testNextScalesAverageTargetByAverageTime() {
+        Retargeter retargeter = new Retargeter(INTERVAL, 2);
+        Target target = Target.ofLeadingZeroes(4);
+
+        retargeter.add(target, INTERVAL.toNanos() / 2);
+        Target next = retargeter.next(target);
+
+        assertEquals(target.toBigInteger().shiftRight(1), next.toBigInteger(),
+                "A block found in half the interval should halve the target");
+    }
+
+    @Test
+    void testNextAfterPreviewsAddWithoutAdding() {
+        Retargeter retargeter = new Retargeter(INTERVAL, 2);
+        Retargeter added = new Retargeter(INTERVAL, 2);
+        Target target = Target.ofLeadingZeroes(4);
+        long[] nanos = {INTERVAL.toNanos() / 3, INTERVAL.toNanos() * 2, INTERVAL.toNanos() / 2};
+
+        for (long generateNanos : nanos) {
+            Target preview = retargeter.nextAfter(target, generateNanos);
+            added.add(target, generateNanos);
+            assertEquals(added.next(target), preview, "The preview should match adding, also once the window is full");
+            retargeter.add(target, generateNanos);
+            target = preview;
+        }
+        assertEquals(target, new Retargeter(INTERVAL, 2).nextAfter(target, INTERVAL.toNanos()),
+                "A block found in the interval should keep the target");
+    }
+
+    @Test
+    void testNextIsLimitedToMaxStep() {
+        Retargeter retargeter = new Retargeter(INTERVAL, 3);
+        Target target = Target.ofLeadingZeroes(4);
+
+        retargeter.add(target, 1);
+        assertEquals(target.toBigInteger().divide(BigInteger.valueOf(Retargeter.MAX_STEP)),
+                retargeter.next(target).toBigInteger());
+
+        retargeter.clear();
+        retargeter.add(target, INTERVAL.toNanos() * 1_000);
+        assertEquals(target.toBigInteger().multiply(BigInteger.valueOf(Retargeter.MAX_STEP)),
+                retargeter.next(target).toBigInteger());
+    }
+
+    @Test
+    void testOldSamplesLeaveTheWindow() {
+        Retargeter retargeter = new Retargeter(INTERVAL, 2);
+        Target target = Target.ofLeadingZeroes(4);
+
+        retargeter.add(target, INTERVAL.toNanos() * 3);
+        retargeter.add(target, INTERVAL.toNanos());
+        retargeter.add(target, INTERVAL.toNanos());
+
+        assertEquals(target, retargeter.next(target), "Only the last two blocks should count");
+        assertEquals(target, retargeter.restart().next(target), "A restarted retargeter has no samples");
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new Retargeter(Duration.ZERO, 5));
+        assertThrows(IllegalArgumentException.class, () -> new Retargeter(INTERVAL, 0));
+    }
+
+    @Test
+    void testIntervalsConvergeAfterHashRateChanges() {
+        Retargeter retargeter = new Retargeter(INTERVAL, 8);
+        Target target = Target.ofLeadingZeroes(5);
+        double hashesPerSecond = 50_000;
+
+        for (double rate : new double[] {hashesPerSecond, 4 * hashesPerSecond, hashesPerSecond / 3}) {
+            double lastInterval = 0;
+            for (int block = 0; block < 60; block++) {
+                // Expected block time at this rate: the hashes needed on average, 2^256 / target.
+                double expectedHashes = new BigDecimal(HASH_SPACE)
+                        .divide(new BigDecimal(target.toBigInteger()), MathContext.DECIMAL64)
+                        .doubleValue();
+                lastInterval = expectedHashes / rate;
+                retargeter.add(target, (long) (lastInterval * 1e9));
+                target = retargeter.next(target);
+            }
+            assertEquals(INTERVAL.toSeconds(), lastInterval, INTERVAL.toSeconds() * 0.05,
+                    "Block interval should settle near the desired one at " + rate + " H/s");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.vitaliebocicov.chainpay.ledger;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLedgerTest {
+
+    private static final int REWARD = 100;
+
+    private final AccountLedger ledger = new AccountLedger(REWARD);
+
+    @Test
+    void testUnknownUserHasZeroBalance() {
+        assertEquals(0, ledger.getBalance("nobody"), "Unknown user should have no coins");
+    }
+
+    @Test
+    void testMinerIsRewarded() {
+        ledger.applyBlock(new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, REWARD));
+        ledger.applyBlock(new Block(2, Hash256.ZERO, List.of(), "miner1", 0, 0, REWARD));
+
+        assertEquals(2 * REWARD, ledger.getBalance("miner1"), "Miner should get a reward per block");
+    }
+
+    @Test
+    void testTransactionsDebitSenderAndCreditReceiver() {
+        List<Message> messages = List.of(
+                message(1, new Transaction("miner1", "miner2", 10)),
+                message(2, new Transaction("miner2", "miner3", 25)),
+                message(3, null));
+
+        ledger.applyBlock(new Block(1, Hash256.ZERO, messages, "miner1", 0, 0, REWARD));
+
+        assertEquals(REWARD - 10, ledger.getBalance("miner1"));
+        assertEquals(10 - 25, ledger.getBalance("miner2"));
+        assertEquals(25, ledger.getBalance("miner3"));
+    }
+
+    @Test
+    void testSelfTransferOnlyDebitsSender() {
+        ledger.applyBlock(new Block(1, Hash256.ZERO, List.of(message(1, new Transaction("user", "user", 5))), "miner1", 0, 0, REWARD));
+
+        assertEquals(-5, ledger.getBalance("user"), "Self transfers are counted as a debit only");
+    }
+
+    private Message message(long id, Transaction transaction) {
+        Message message = new Message(id, null);
+        message.setTransaction(transaction);
+        return message;
+    }
+}
@@ -2,18 +2,31 @@ package com.vitaliebocicov.chainpay.mining;
 
 import com.vitaliebocicov.chainpay.Blockchain;
 import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.monitoring.MiningAttemptEvent;
 import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.util.StringUtil;
 import com.vitaliebocicov.chainpay.util.TransactionUtil;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.KeyPair;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -76,44 +89,202 @@ class MinerTest {
         when(blockchain.isMagicNumberFound()).thenReturn(false);
         when(blockchain.getBlockCounter()).thenReturn(0L);
         when(block.getId()).thenReturn(1L);
-        when(block.getHashCode()).thenReturn("00hash");
+        when(block.getHashPrefix()).thenReturn("prefix".getBytes(StandardCharsets.UTF_8));
+        when(block.getHashVersion()).thenReturn(HashVersion.STRING);
+        when(random.nextLong()).thenReturn(3L);
         when(random.nextDouble(1)).thenReturn(0.99);
 
         boolean result = miner.findMagicNumber(block, 2, random);
 
         assertTrue(result, "findMagicNumber should return true when the magic number is found");
+        verify(block).setMagicNumber(9L); // scans 3, 4, ..., sha256("prefix9") = 0043a47e...
+        verify(block, never()).setMagicNumber(3L);
+        verify(random, times(1)).nextDouble(1);
     }
 
     @Test
-    void testRunCallsAcceptBlock() throws InterruptedException {
+    void testFindMagicNumberRecordsMiningAttempt(@TempDir Path recordingDirectory) throws IOException {
+        Block block = mock(Block.class);
+        when(blockchain.isMagicNumberFound()).thenReturn(false);
+        when(blockchain.getBlockCounter()).thenReturn(0L);
+        when(block.getId()).thenReturn(1L);
+        when(block.getHashPrefix()).thenReturn("prefix".getBytes(StandardCharsets.UTF_8));
+        when(block.getHashVersion()).thenReturn(HashVersion.STRING);
+        when(random.nextLong()).thenReturn(3L);
+        when(random.nextDouble(1)).thenReturn(0.99);
+
+        Path file = recordingDirectory.resolve("mining.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(MiningAttemptEvent.NAME).withoutThreshold();
+            recording.start();
+            miner.findMagicNumber(block, 2, random);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(MiningAttemptEvent.NAME))
+                .toList();
+        assertEquals(1, events.size());
+        RecordedEvent event = events.getFirst();
+        assertEquals(miner.getMinerId(), event.getString("minerId"));
+        assertEquals(1L, event.getLong("blockId"));
+        assertEquals(7L, event.getLong("noncesTried"), "Nonces 3 to 9 should have been tried");
+        assertEquals(MiningAttemptEvent.FOUND, event.getString("outcome"));
+        assertEquals(7L, miner.getHashCount());
+    }
+
+    @Test
+    void testFindMagicNumberInParallel() {
+        try (MockedStatic<Blockchain> mockedBlockchain = mockStatic(Blockchain.class)) {
+            mockedBlockchain.when(Blockchain::getInstance).thenReturn(blockchain);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            Miner parallelMiner = new Miner(3, keysGenerator, new NonceSearch(pool, 2, 4));
+            Block block = mock(Block.class);
+            lenient().when(blockchain.getBlockCounter()).thenReturn(0L);
+            when(block.getId()).thenReturn(1L);
+            when(block.getHashPrefix()).thenReturn("prefix".getBytes(StandardCharsets.UTF_8));
+            when(block.getHashVersion()).thenReturn(HashVersion.STRING);
+            when(random.nextLong()).thenReturn(3L);
+
+            // Without contacts the workers' send rolls never send anything.
+            try {
+                assertTrue(parallelMiner.findMagicNumber(block, 2, random));
+            } finally {
+                pool.shutdown();
+            }
+
+            // Either worker may win the race, so only the hash of the winner is known.
+            ArgumentCaptor<Long> magicNumber = ArgumentCaptor.forClass(Long.class);
+            verify(block).setMagicNumber(magicNumber.capture());
+            assertTrue(StringUtil.applySha256("prefix" + magicNumber.getValue()).startsWith("00"));
+            verify(blockchain).setMagicNumberFound(true);
+        }
+    }
+
+    @Test
+    void testParallelSearchSendsCoinsFromTheMinerThread() {
+        try (MockedStatic<Blockchain> mockedBlockchain = mockStatic(Blockchain.class);
+             MockedStatic<TransactionUtil> transactions = mockStatic(TransactionUtil.class)) {
+            mockedBlockchain.when(Blockchain::getInstance).thenReturn(blockchain);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            Miner parallelMiner = new Miner(3, keysGenerator, new NonceSearch(pool, 2, 4));
+            Miner contact = mock(Miner.class);
+            when(contact.getMinerId()).thenReturn("miner4");
+            parallelMiner.setContacts(new Miner[] {contact});
+            Block block = mock(Block.class);
+            lenient().when(blockchain.getBlockCounter()).thenReturn(0L);
+            when(block.getId()).thenReturn(1L);
+            when(block.getHashPrefix()).thenReturn("prefix".getBytes(StandardCharsets.UTF_8));
+            when(block.getHashVersion()).thenReturn(HashVersion.STRING);
+            when(random.nextLong()).thenReturn(3L);
+            when(random.nextDouble(1)).thenReturn(0.0);
+
+            try {
+                assertTrue(parallelMiner.findMagicNumber(block, 2, random));
+            } finally {
+                pool.shutdown();
+            }
+
+            // The static mock only sees calls on this thread: a transfer sent by a worker would escape it.
+            transactions.verify(() -> TransactionUtil.sendVirtualCoins(eq(parallelMiner), eq(contact), anyInt(), any()),
+                    atLeastOnce());
+            verify(blockchain).setMagicNumberFound(true);
+        }
+    }
+
+    @Test
+    void testParallelSearchStealsWhenWorkersRunOutOfNonces() {
+        try (MockedStatic<Blockchain> mockedBlockchain = mockStatic(Blockchain.class)) {
+            mockedBlockchain.when(Blockchain::getInstance).thenReturn(blockchain);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            // Spans of 16 batches, so a template takes many spans and the workers drain each one.
+            NonceSearch search = new NonceSearch(pool, 2, 4, 64);
+            Miner parallelMiner = new Miner(3, keysGenerator, search);
+            Block block = mock(Block.class);
+            lenient().when(blockchain.getBlockCounter()).thenReturn(0L);
+            when(block.getId()).thenReturn(1L);
+            when(block.getHashPrefix()).thenReturn("prefix".getBytes(StandardCharsets.UTF_8));
+            when(block.getHashVersion()).thenReturn(HashVersion.STRING);
+            when(random.nextLong()).thenReturn(3L);
+
+            try {
+                assertTrue(parallelMiner.findMagicNumber(block, 3, random));
+            } finally {
+                pool.shutdown();
+            }
+
+            ArgumentCaptor<Long> magicNumber = ArgumentCaptor.forClass(Long.class);
+            verify(block).setMagicNumber(magicNumber.capture());
+            assertTrue(StringUtil.applySha256("prefix" + magicNumber.getValue()).startsWith("000"));
+            assertTrue(search.getSteals() > 0, "Workers that drain their range should steal from the others");
+            assertEquals(search.getAttempts(), parallelMiner.getHashCount());
+        }
+    }
+
+    @Test
+    void testRunCallsAcceptBlock() {
         when(blockchain.getSize()).thenReturn(0, 1, 3);
         when(blockchain.getChainSize()).thenReturn(1, 2, 2);
         when(blockchain.isMagicNumberFound()).thenReturn(false);
         when(blockchain.isMagicNumberFound()).thenReturn(false);
         when(blockchain.getBlockCounter()).thenReturn(0L);
+        when(blockchain.getLastBlockHash()).thenReturn(Hash256.ZERO);
 
-        Thread minerThread = new Thread(miner);
-        minerThread.start();
+        // Run on this thread, so the static mock also covers the transfer the search rolls for.
+        try (MockedStatic<TransactionUtil> transactions = mockStatic(TransactionUtil.class)) {
+            miner.run();
 
-        minerThread.join();
+            // With no zeroes required the first batch finds the block, after its sure roll for a transfer.
+            transactions.verify(() -> TransactionUtil.sendVirtualCoins(eq(miner), eq(contact), anyInt(), eq(keyPair)));
+        }
 
+        verify(blockchain, times(1)).acceptBlock(any());
     }
 
     @Test
-    void testRunCallsAcceptBlockWithSleep() throws InterruptedException {
+    void testRunWaitsWhileBlockIsPending() throws InterruptedException {
         when(blockchain.getSize()).thenReturn(0, 1, 3);
         when(blockchain.getChainSize()).thenReturn(1, 2, 2);
         when(blockchain.isMagicNumberFound()).thenReturn(true, false, false);
         when(blockchain.getBlockCounter()).thenReturn(0L);
+        when(blockchain.getLastBlockHash()).thenReturn(Hash256.ZERO);
 
-        Thread minerThread = new Thread(miner);
-        minerThread.start();
+        try (MockedStatic<TransactionUtil> transactions = mockStatic(TransactionUtil.class)) {
+            miner.run();
 
-        minerThread.join();
+            transactions.verify(() -> TransactionUtil.sendVirtualCoins(eq(miner), eq(contact), anyInt(), eq(keyPair)));
+        }
 
+        verify(blockchain, times(1)).awaitMagicNumberCleared();
         verify(blockchain, times(1)).acceptBlock(any());
     }
 
+    @Test
+    void testRunStopsWhenInterruptedWhileWaiting() throws InterruptedException {
+        when(blockchain.getSize()).thenReturn(0);
+        when(blockchain.getChainSize()).thenReturn(1);
+        when(blockchain.isMagicNumberFound()).thenReturn(true);
+        doThrow(new InterruptedException()).when(blockchain).awaitMagicNumberCleared();
+
+        miner.run();
+
+        assertTrue(Thread.interrupted(), "Interrupt status should be restored");
+        verify(blockchain, never()).acceptBlock(any());
+    }
+
+    @Test
+    void testGenerateRecordsTemplateLatency() {
+        when(blockchain.getTipAcceptedNanos()).thenReturn(System.nanoTime() - 1_000_000L);
+        when(blockchain.getLastBlockHash()).thenReturn(Hash256.ZERO);
+        when(blockchain.isMagicNumberFound()).thenReturn(true);
+
+        assertNull(miner.generate(), "Search should stop when another miner found the block");
+
+        assertEquals(1, miner.getTemplateCount());
+        assertTrue(miner.getTemplateLatencyNanos() >= 1_000_000L, "Latency should count from the block acceptance");
+    }
+
     @Test
     void testSendVirtualCoins() {
         try (MockedStatic<TransactionUtil> transactionUtilMockedStatic = mockStatic(TransactionUtil.class)) {
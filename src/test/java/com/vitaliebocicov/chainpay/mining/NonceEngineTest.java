@@ -0,0 +1,62 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.model.Target;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonceEngineTest {
+
+    private static final byte[] PREFIX = "prefix".getBytes();
+
+    @AfterEach
+    void clearProperty() {
+        System.clearProperty(NonceEngine.ENGINE_PROPERTY);
+    }
+
+    @Test
+    void testScalarEngineIsTheDefault() {
+        assertFalse(NonceEngine.forTemplate(PREFIX, HashVersion.BINARY) instanceof VectorNonceEngine);
+    }
+
+    @Test
+    void testVectorEngineSelectedForFixedWidthNonces() {
+        System.setProperty(NonceEngine.ENGINE_PROPERTY, NonceEngine.VECTOR);
+
+        assertTrue(NonceEngines.isVectorAvailable(), "Tests run with the vector module");
+        assertInstanceOf(VectorNonceEngine.class, NonceEngine.forTemplate(PREFIX, HashVersion.BINARY));
+        assertInstanceOf(VectorNonceEngine.class, NonceEngine.forTemplate(PREFIX, HashVersion.MERKLE));
+    }
+
+    @Test
+    void testStringTemplatesFallBackToScalarEngine() {
+        System.setProperty(NonceEngine.ENGINE_PROPERTY, NonceEngine.VECTOR);
+
+        NonceEngine engine = NonceEngine.forTemplate(PREFIX, HashVersion.STRING);
+
+        assertFalse(engine instanceof VectorNonceEngine);
+        assertEquals(3, engine.findFirst(6L, 10, 2), "sha256(\"prefix9\") starts with 00");
+    }
+
+    @Test
+    void testFindFirstWithTargetComparesPastTheLeadingZeroes() {
+        System.setProperty(NonceEngine.ENGINE_PROPERTY, NonceEngine.VECTOR);
+        // Between one and two leading zero digits: every hash meeting it starts with 0, not all with 0 do.
+        Target target = Target.ofLeadingZeroes(1).scale(BigInteger.ONE, BigInteger.valueOf(5));
+
+        for (HashVersion version : new HashVersion[] {HashVersion.STRING, HashVersion.MERKLE}) {
+            NonceEngine engine = NonceEngine.forTemplate(PREFIX, version);
+            int index = engine.findFirst(0L, 1_000, target);
+
+            assertTrue(index >= 0);
+            assertTrue(target.isMetBy(engine.hash(index)), "The nonce found should meet the target");
+            for (int i = 0; i < index; i++) {
+                assertFalse(target.isMetBy(engine.hash(i)), "No earlier nonce should meet the target");
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.util.StringUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonceHasherTest {
+
+    private static final long[] NONCES = {0L, 7L, -7L, 1234567890L, Long.MAX_VALUE, Long.MIN_VALUE, -1L};
+
+    @Test
+    void testHashMatchesStringSha256ForAllPrefixLengths() {
+        StringBuilder prefix = new StringBuilder();
+        for (int length = 0; length <= 200; length++) {
+            NonceHasher hasher = new NonceHasher(prefix.toString());
+            for (long nonce : NONCES) {
+                assertEquals(StringUtil.applySha256(prefix.toString() + nonce), StringUtil.toHex(hasher.hash(nonce)),
+                        "Hash should match for prefix length " + length + " and nonce " + nonce);
+            }
+            prefix.append((char) ('a' + length % 26));
+        }
+    }
+
+    @Test
+    void testHashMatchesBlockHashCode() {
+        Block block = new Block(42, Hash256.fromHex("00abcdef".repeat(8)), List.of(), "miner1", 3, 17, 100);
+        NonceHasher hasher = new NonceHasher(block.getStaticHashData());
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100; i++) {
+            long nonce = random.nextLong();
+            block.setMagicNumber(nonce);
+            assertEquals(block.getHashCode().toString(), StringUtil.toHex(hasher.hash(nonce)), "Hash should match Block.getHashCode");
+        }
+    }
+
+    @Test
+    void testHashMatchesBinaryBlockHash() {
+        for (int length = 0; length < 40; length++) {
+            Block block = new Block(42, Hash256.ZERO, List.of(), "m".repeat(length), 3, 17, 100, HashVersion.BINARY);
+            NonceHasher hasher = new NonceHasher(block.getHashPrefix(), block.getHashVersion());
+            for (long nonce : NONCES) {
+                block.setMagicNumber(nonce);
+                assertArrayEquals(block.getHash(), hasher.hash(nonce), "Hash should match for a binary block header");
+            }
+        }
+    }
+
+    @Test
+    void testHashReusesOutputBuffer() {
+        NonceHasher hasher = new NonceHasher("prefix");
+        assertSame(hasher.hash(1), hasher.hash(2), "Output buffer should be reused between calls");
+        assertEquals(NonceHasher.HASH_LENGTH, hasher.hash(3).length);
+    }
+}
@@ -0,0 +1,102 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonceSchedulerTest {
+
+    @Test
+    void testSingleWorkerScansInOrder() {
+        NonceScheduler scheduler = new NonceScheduler(100, 10, 1, 4);
+
+        assertEquals(new NonceScheduler.Batch(100, 4), scheduler.claim(0));
+        assertEquals(new NonceScheduler.Batch(104, 4), scheduler.claim(0));
+        assertEquals(new NonceScheduler.Batch(108, 2), scheduler.claim(0));
+        assertNull(scheduler.claim(0), "Exhausted space should hand out no more nonces");
+        assertEquals(10, scheduler.getClaimed());
+        assertEquals(0, scheduler.getSteals());
+    }
+
+    @Test
+    void testWorkersStartOnDisjointRanges() {
+        NonceScheduler scheduler = new NonceScheduler(0, 100, 4, 8);
+
+        assertEquals(0, scheduler.claim(0).first());
+        assertEquals(25, scheduler.claim(1).first());
+        assertEquals(50, scheduler.claim(2).first());
+        assertEquals(75, scheduler.claim(3).first());
+    }
+
+    @Test
+    void testIdleWorkerStealsBackHalf() {
+        NonceScheduler scheduler = new NonceScheduler(0, 64, 2, 4);
+        for (int i = 0; i < 8; i++) {
+            assertNotNull(scheduler.claim(1));
+        }
+
+        NonceScheduler.Batch stolen = scheduler.claim(1);
+
+        assertEquals(16, stolen.first(), "Worker 1 should take the back half of worker 0's range");
+        assertEquals(1, scheduler.getSteals());
+        assertEquals(0, scheduler.claim(0).first(), "Worker 0 keeps the front half");
+    }
+
+    @Test
+    void testSpaceWrapsAroundLongMaxValue() {
+        NonceScheduler scheduler = new NonceScheduler(Long.MAX_VALUE - 1, 4, 1, 4);
+
+        NonceScheduler.Batch batch = scheduler.claim(0);
+
+        assertEquals(Long.MAX_VALUE, batch.nonce(1));
+        assertEquals(Long.MIN_VALUE, batch.nonce(2));
+    }
+
+    @Test
+    void testConcurrentWorkersCoverSpaceExactlyOnce() throws InterruptedException {
+        int size = 200_000;
+        int workers = 4;
+        NonceScheduler scheduler = new NonceScheduler(0, size, workers, 16);
+        AtomicIntegerArray attempts = new AtomicIntegerArray(size);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            Thread thread = new Thread(() -> {
+                NonceScheduler.Batch batch;
+                while ((batch = scheduler.claim(worker)) != null) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        attempts.incrementAndGet((int) batch.nonce(i));
+                    }
+                    if (worker == 0) {
+                        Thread.yield(); // a slow worker, so the others run out and steal from it
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int duplicates = 0;
+        int missed = 0;
+        for (int i = 0; i < size; i++) {
+            duplicates += Math.max(0, attempts.get(i) - 1);
+            missed += attempts.get(i) == 0 ? 1 : 0;
+        }
+        assertEquals(0, duplicates, "No nonce should be tried twice");
+        assertEquals(0, missed, "Every nonce should be tried");
+        assertEquals(size, scheduler.getClaimed());
+    }
+
+    @Test
+    void testInvalidSpaceIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new NonceScheduler(0, 10, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new NonceScheduler(0, -1, 1, 4));
+    }
+}
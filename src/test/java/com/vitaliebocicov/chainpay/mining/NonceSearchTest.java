@@ -0,0 +1,86 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonceSearchTest {
+
+    private static final byte[] PREFIX = "prefix".getBytes(StandardCharsets.UTF_8);
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testFindsNonceWithEnoughZeroes() {
+        NonceSearch search = new NonceSearch(pool, 4, 8);
+        Block block = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.MERKLE);
+
+        Long nonce = search.find(block.getHashPrefix(), block.getHashVersion(), 3, 0, Long.MAX_VALUE, () -> false);
+
+        assertNotNull(nonce);
+        block.setMagicNumber(nonce);
+        assertTrue(HashUtil.hasLeadingZeroNibbles(block.getHash(), 3), "Found nonce should meet the difficulty");
+    }
+
+    @Test
+    void testSingleWorkerFindsFirstMatch() {
+        NonceSearch search = new NonceSearch(pool, 1, 4);
+
+        assertEquals(9L, search.find(PREFIX, HashVersion.STRING, 2, 3, 100, () -> false));
+        assertEquals(7, search.getAttempts(), "Nonces 3 to 9 should be tried once each");
+    }
+
+    @Test
+    void testExhaustedSpaceTriesEveryNonceOnce() {
+        NonceSearch search = new NonceSearch(pool, 4, 16);
+
+        assertNull(search.find(PREFIX, HashVersion.STRING, 64, 0, 10_000, () -> false));
+        assertEquals(10_000, search.getAttempts(), "Every nonce should be hashed exactly once");
+    }
+
+    @Test
+    void testCancelledSearchReturnsNull() {
+        NonceSearch search = new NonceSearch(pool, 2, 16);
+
+        assertNull(search.find(PREFIX, HashVersion.STRING, 64, 0, Long.MAX_VALUE, () -> true));
+        assertEquals(0, search.getAttempts());
+    }
+
+    @Test
+    void testProgressReportsEveryHashToTheCallingThread() {
+        NonceSearch search = new NonceSearch(pool, 4, 16);
+        Thread caller = Thread.currentThread();
+        LongAdder reported = new LongAdder();
+
+        assertNull(search.find(PREFIX, HashVersion.STRING, 64, 0, 200_000, () -> false, hashed -> {
+            assertSame(caller, Thread.currentThread(), "Progress should be reported on the calling thread");
+            reported.add(hashed);
+        }));
+        assertEquals(200_000, reported.sum());
+    }
+
+    @Test
+    void testFoundNonceMatchesHash() {
+        NonceSearch search = new NonceSearch(pool, 3, 32);
+
+        Long nonce = search.find(PREFIX, HashVersion.STRING, 3, -5000, Long.MAX_VALUE, () -> false);
+
+        assertNotNull(nonce);
+        assertTrue(HashUtil.hasLeadingZeroNibbles(HashUtil.sha256("prefix" + nonce), 3));
+    }
+}
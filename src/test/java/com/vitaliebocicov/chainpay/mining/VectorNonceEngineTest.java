@@ -0,0 +1,89 @@
+package com.vitaliebocicov.chainpay.mining;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorNonceEngineTest {
+
+    private static final long[] FIRST_NONCES = {0L, -3L, 1234567890L, Long.MAX_VALUE - 2, Long.MIN_VALUE};
+
+    @Test
+    void testLaneHashesMatchScalarHasherForAllPrefixLengths() {
+        for (int length = 0; length <= 200; length++) {
+            byte[] prefix = new byte[length];
+            for (int i = 0; i < length; i++) {
+                prefix[i] = (byte) (31 * i + length);
+            }
+            VectorNonceEngine engine = new VectorNonceEngine(new NonceHasher(prefix, HashVersion.BINARY));
+            NonceHasher hasher = new NonceHasher(prefix, HashVersion.BINARY);
+            for (long firstNonce : FIRST_NONCES) {
+                int[] words = new int[8 * VectorNonceEngine.LANES];
+                engine.hash(firstNonce, words);
+                for (int lane = 0; lane < VectorNonceEngine.LANES; lane++) {
+                    assertArrayEquals(hasher.hash(firstNonce + lane), laneHash(words, lane),
+                            "Lane " + lane + " should match for prefix length " + length);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testWinningNonceMatchesBlockHash() {
+        for (HashVersion version : List.of(HashVersion.BINARY, HashVersion.MERKLE)) {
+            Block block = new Block(42, Hash256.fromHex("00abcdef".repeat(8)), List.of(), "miner1", 2, 17, 100, version);
+            VectorNonceEngine engine = new VectorNonceEngine(new NonceHasher(block.getHashPrefix(), version));
+
+            int index = engine.findFirst(5L, 1 << 16, 2);
+
+            assertTrue(index >= 0, "A nonce with two leading zeroes should be found");
+            block.setMagicNumber(5L + index);
+            assertTrue(HashUtil.hasLeadingZeroNibbles(block.getHash(), 2), "The block hash should have the leading zeroes");
+        }
+    }
+
+    @Test
+    void testFindFirstAgreesWithScalarEngine() {
+        byte[] prefix = "prefix".getBytes();
+        NonceEngine scalar = NonceEngines.scalar(new NonceHasher(prefix, HashVersion.BINARY));
+        VectorNonceEngine vector = new VectorNonceEngine(new NonceHasher(prefix, HashVersion.BINARY));
+        int count = 10 * VectorNonceEngine.LANES + 3;
+
+        for (int zeroes = 0; zeroes <= 3; zeroes++) {
+            for (long first = 0; first < 2000; first += count) {
+                assertEquals(scalar.findFirst(first, count, zeroes), vector.findFirst(first, count, zeroes),
+                        "Engines should agree from " + first + " with " + zeroes + " zeroes");
+            }
+        }
+    }
+
+    @Test
+    void testFindFirstChecksRemainderWithScalarHasher() {
+        byte[] prefix = "prefix".getBytes();
+        VectorNonceEngine engine = new VectorNonceEngine(new NonceHasher(prefix, HashVersion.BINARY));
+
+        assertEquals(0, engine.findFirst(7L, 1, 0), "A single nonce should be hashed without a full step");
+        assertEquals(-1, engine.findFirst(7L, 0, 0), "An empty range should have no match");
+    }
+
+    @Test
+    void testFindFirstNeverMatchesMoreZeroesThanHashDigits() {
+        VectorNonceEngine engine = new VectorNonceEngine(new NonceHasher(new byte[0], HashVersion.BINARY));
+        assertEquals(-1, engine.findFirst(0L, 4 * VectorNonceEngine.LANES, 65));
+    }
+
+    private static byte[] laneHash(int[] words, int lane) {
+        ByteBuffer hash = ByteBuffer.allocate(NonceHasher.HASH_LENGTH);
+        for (int w = 0; w < 8; w++) {
+            hash.putInt(words[w * VectorNonceEngine.LANES + lane]);
+        }
+        return hash.array();
+    }
+}
@@ -1,5 +1,6 @@
 package com.vitaliebocicov.chainpay.model;
 
+import com.vitaliebocicov.chainpay.util.StringUtil;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
@@ -11,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class BlockTest {
 
+    private static final Hash256 PREVIOUS_BLOCK_HASH = Hash256.fromHex("ab".repeat(Hash256.BYTES));
+
     @Mock
     PublicKey publicKey;
 
@@ -31,8 +34,8 @@ class BlockTest {
     @Test
     void testGetPreviousBlockHash() {
         Block block = getBlock();
-        String previousBlockHash = block.getPreviousBlockHash();
-        assertEquals("previousBlockHash", previousBlockHash, "Previous block hash should be correct");
+        Hash256 previousBlockHash = block.getPreviousBlockHash();
+        assertEquals(PREVIOUS_BLOCK_HASH, previousBlockHash, "Previous block hash should be correct");
     }
 
     @Test
@@ -40,9 +43,17 @@ class BlockTest {
         Block block = getBlock();
 
         block.setMagicNumber(12345L);
-        String hashCode = block.getHashCode();
+        Hash256 hashCode = block.getHashCode();
         assertNotNull(hashCode, "Block hash should not be null");
-        assertFalse(hashCode.isEmpty(), "Block hash should not be empty");
+        assertEquals(64, hashCode.toString().length(), "Block hash should print as 64 hex digits");
+    }
+
+    @Test
+    void testGetHashMatchesGetHashCode() {
+        Block block = getBlock();
+
+        block.setMagicNumber(12345L);
+        assertEquals(block.getHashCode().toString(), StringUtil.toHex(block.getHash()), "Raw hash should encode to the hex hash");
     }
 
     @Test
@@ -112,11 +123,25 @@ class BlockTest {
     @Test
     void testToString() {
         Block block = getBlock();
-        System.out.println(block);
+        block.setMagicNumber(12345L);
+
+        String text = block.toString();
+        assertTrue(text.contains("\nHash of the previous block: \n" + "ab".repeat(Hash256.BYTES) + "\n"),
+                "Previous hash should print as hex");
+        assertTrue(text.contains("\nHash of the block: \n" + StringUtil.toHex(block.getHash()) + "\n"),
+                "Block hash should print as hex");
+    }
+
+    @Test
+    void testToStringOfFirstBlock() {
+        Block block = new Block(1L, Hash256.ZERO, new ArrayList<>(), "miner1", 0, 0, 100);
+
+        assertTrue(block.toString().contains("\nHash of the previous block: \n0\n"),
+                "The first block's previous hash should print as 0");
     }
 
     private Block getBlock() {
-        String previousBlockHash = "previousBlockHash";
+        Hash256 previousBlockHash = PREVIOUS_BLOCK_HASH;
         List<Message> messages = new ArrayList<>();
         String minerId = "miner1";
         int zeroesInHash = 3;
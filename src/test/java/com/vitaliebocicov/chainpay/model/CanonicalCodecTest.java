@@ -0,0 +1,184 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.security.SignatureScheme;
+import com.vitaliebocicov.chainpay.security.SignatureUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanonicalCodecTest {
+
+    private KeyPair keys;
+
+    @BeforeEach
+    void setUp() throws GeneralSecurityException {
+        keys = new KeysGenerator().createKeyPair();
+    }
+
+    @Test
+    void testTransactionRoundTrip() {
+        Transaction transaction = new Transaction("Alice", "Bob", 50);
+
+        byte[] encoded = CanonicalCodec.encode(transaction);
+
+        assertEquals(transaction, CanonicalCodec.decodeTransaction(encoded));
+        assertEquals(1 + 1 + 5 + 1 + 3 + Integer.BYTES, encoded.length, "Transaction should be tag, two strings and an int");
+    }
+
+    @Test
+    void testEncodingIsUnambiguous() {
+        assertFalse(Arrays.equals(CanonicalCodec.encode(new Transaction("ab", "c", 1)),
+                CanonicalCodec.encode(new Transaction("a", "bc", 1))), "Length prefixes should separate fields");
+        assertEquals(StringConcat.of("ab", "c", 1), StringConcat.of("a", "bc", 1), "The string encoding is ambiguous");
+    }
+
+    @Test
+    void testMessageRoundTripKeepsSignatureValid() throws GeneralSecurityException {
+        Message message = signedMessage(7, HashVersion.BINARY);
+
+        Message decoded = CanonicalCodec.decodeMessage(CanonicalCodec.encode(message));
+
+        assertEquals(message.getId(), decoded.getId());
+        assertEquals(message.getTransaction(), decoded.getTransaction());
+        assertEquals(message.getPublicKey(), decoded.getPublicKey());
+        assertEquals(HashVersion.BINARY, decoded.getHashVersion());
+        assertArrayEquals(message.getData(), decoded.getData());
+        assertTrue(SignatureUtil.isSignatureValid(decoded), "Decoded message should keep a valid signature");
+    }
+
+    @Test
+    void testMessageRoundTripKeepsSignatureScheme() throws GeneralSecurityException {
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            keys = new KeysGenerator(scheme).createKeyPair();
+            Message message = signedMessage(8, HashVersion.MERKLE);
+
+            Message decoded = CanonicalCodec.decodeMessage(CanonicalCodec.encode(message));
+
+            assertEquals(scheme, decoded.getSignatureScheme());
+            assertTrue(SignatureUtil.isSignatureValid(decoded), "Decoded " + scheme + " signature should stay valid");
+        }
+    }
+
+    @Test
+    void testUnsignedMessageRoundTrip() {
+        Message message = new Message(3, null, HashVersion.BINARY);
+
+        Message decoded = CanonicalCodec.decodeMessage(CanonicalCodec.encode(message));
+
+        assertNull(decoded.getPublicKey());
+        assertNull(decoded.getSignature());
+        assertNull(decoded.getTransaction());
+    }
+
+    @Test
+    void testBinarySigningDataDiffersFromLegacy() throws GeneralSecurityException {
+        Message legacy = signedMessage(1, HashVersion.STRING);
+        Message binary = signedMessage(1, HashVersion.BINARY);
+
+        assertArrayEquals(("1" + legacy.getText() + legacy.getTransaction().getHashCode()).getBytes(StandardCharsets.UTF_8),
+                legacy.getData(), "Legacy messages should keep the string signing data");
+        assertFalse(Arrays.equals(legacy.getData(), binary.getData()));
+        assertTrue(SignatureUtil.isSignatureValid(legacy));
+        assertTrue(SignatureUtil.isSignatureValid(binary));
+    }
+
+    @Test
+    void testBlockRoundTripKeepsHash() throws GeneralSecurityException {
+        for (HashVersion version : HashVersion.values()) {
+            Target target = version == HashVersion.TARGET ? Target.ofLeadingZeroes(4) : null;
+            Block block = new Block(5, 1_700_000_000_000L, Hash256.ZERO,
+                    List.of(signedMessage(1, version), signedMessage(2, version)), "miner3", 4, 0, 100, version, target);
+            block.setMagicNumber(-123_456_789L);
+            block.setGenerateSeconds(12);
+            block.setGenerateNanos(version == HashVersion.TARGET ? 12_345_678_901L : 0);
+            block.setNumberOfZerosStatus("N stays the same");
+
+            Block decoded = CanonicalCodec.decodeBlock(CanonicalCodec.encode(block));
+
+            assertEquals(version, decoded.getHashVersion());
+            assertEquals(target, decoded.getTarget());
+            assertEquals(block.getGenerateNanos(), decoded.getGenerateNanos());
+            assertEquals(block.getHashCode(), decoded.getHashCode(), "Decoded block should have the same hash");
+            assertEquals(block.toString(), decoded.toString());
+            assertArrayEquals(CanonicalCodec.encode(block), CanonicalCodec.encode(decoded), "Encoding should be canonical");
+        }
+    }
+
+    @Test
+    void testTargetBlockHashCoversTarget() {
+        Block block = new Block(1, 1000L, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.TARGET,
+                Target.ofLeadingZeroes(1));
+        Block easier = new Block(1, 1000L, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.TARGET,
+                Target.ofLeadingZeroes(0));
+
+        assertNotEquals(block.getHashCode(), easier.getHashCode(), "The target should be part of the hash input");
+        assertArrayEquals(block.getMessagesRoot(), CanonicalCodec.messagesRoot(block.getHashPrefix()),
+                "The messages root should still end the header");
+    }
+
+    @Test
+    void testOnlyTargetBlocksCarryTarget() {
+        assertThrows(IllegalArgumentException.class, () -> new Block(1, 1000L, Hash256.ZERO, List.of(), "miner1", 0, 0, 100,
+                HashVersion.TARGET, null));
+        assertThrows(IllegalArgumentException.class, () -> new Block(1, 1000L, Hash256.ZERO, List.of(), "miner1", 0, 0, 100,
+                HashVersion.MERKLE, Target.MAX));
+    }
+
+    @Test
+    void testBinaryBlockHashCoversHeaderFields() {
+        Block block = new Block(1, 1000L, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.BINARY);
+        Block otherMiner = new Block(1, 1000L, Hash256.ZERO, List.of(), "miner2", 0, 0, 100, HashVersion.BINARY);
+        Block otherTime = new Block(1, 1001L, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.BINARY);
+
+        assertNotEquals(block.getHashCode(), otherMiner.getHashCode(), "Miner id should be part of the hash");
+        assertNotEquals(block.getHashCode(), otherTime.getHashCode(), "Timestamp should be part of the hash");
+
+        Hash256 before = block.getHashCode();
+        block.setZeroesInHash(1);
+        assertNotEquals(before, block.getHashCode(), "Difficulty should be part of the hash");
+    }
+
+    @Test
+    void testMessagesRootIsReadFromHeader() throws GeneralSecurityException {
+        Block block = new Block(1, Hash256.ZERO, List.of(signedMessage(1, HashVersion.MERKLE)), "miner1", 0, 0, 100, HashVersion.MERKLE);
+        Block binary = new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.BINARY);
+
+        assertArrayEquals(block.getMessagesRoot(), CanonicalCodec.messagesRoot(block.getHashPrefix()));
+        assertNull(binary.getMessagesRoot());
+        assertThrows(IllegalArgumentException.class, () -> CanonicalCodec.messagesRoot(binary.getHashPrefix()));
+        assertThrows(IllegalArgumentException.class, () -> CanonicalCodec.messagesRoot(new byte[8]));
+    }
+
+    @Test
+    void testMalformedInputIsRejected() {
+        byte[] encoded = CanonicalCodec.encode(new Block(1, Hash256.ZERO, List.of(), "miner1", 0, 0, 100, HashVersion.BINARY));
+
+        assertThrows(IllegalArgumentException.class, () -> CanonicalCodec.decodeBlock(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> CanonicalCodec.decodeBlock(Arrays.copyOf(encoded, encoded.length + 1)));
+        assertThrows(IllegalArgumentException.class, () -> CanonicalCodec.decodeMessage(encoded));
+        assertThrows(IllegalArgumentException.class, () -> HashVersion.fromCode(99));
+    }
+
+    private Message signedMessage(long id, HashVersion version) throws GeneralSecurityException {
+        Message message = new Message(id, keys.getPublic(), version);
+        message.setTransaction(new Transaction("miner1", "miner2", 10));
+        message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
+        return message;
+    }
+
+    private static final class StringConcat {
+        private StringConcat() { }
+
+        static String of(String sender, String receiver, int amount) {
+            return sender + receiver + amount;
+        }
+    }
+}
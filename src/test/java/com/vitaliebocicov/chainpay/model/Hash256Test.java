@@ -0,0 +1,87 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import com.vitaliebocicov.chainpay.util.StringUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Hash256Test {
+
+    @Test
+    void testHexMatchesStringUtil() {
+        Random random = new Random(3);
+        byte[] bytes = new byte[Hash256.BYTES];
+        for (int i = 0; i < 1_000; i++) {
+            random.nextBytes(bytes);
+            Hash256 hash = Hash256.of(bytes);
+
+            assertEquals(StringUtil.toHex(bytes), hash.toString());
+            assertArrayEquals(bytes, hash.toBytes());
+            assertTrue(hash.matches(bytes));
+            assertEquals(hash, Hash256.fromHex(hash.toString()));
+            assertEquals(hash, Hash256.fromHex(hash.toString().toUpperCase()), "Hex digits are case-insensitive");
+        }
+    }
+
+    @Test
+    void testOfCopiesTheBytes() {
+        byte[] bytes = HashUtil.sha256("block");
+        Hash256 hash = Hash256.of(bytes);
+
+        bytes[0]++;
+
+        assertFalse(hash.matches(bytes));
+        assertNotEquals(hash, Hash256.of(bytes));
+        hash.toBytes()[0]++;
+        assertEquals(StringUtil.applySha256("block"), hash.toString(), "The hash should not change");
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        Hash256 hash = Hash256.of(HashUtil.sha256("block"));
+        Hash256 same = Hash256.fromHex(StringUtil.applySha256("block"));
+        Hash256 other = Hash256.of(HashUtil.sha256("other block"));
+
+        assertEquals(hash, same);
+        assertEquals(hash.hashCode(), same.hashCode());
+        assertNotEquals(hash, other);
+        assertNotEquals(hash, hash.toString(), "A hash never equals its hex string");
+    }
+
+    @Test
+    void testZeroPrintsAsTheFirstPreviousHash() {
+        assertEquals("0", Hash256.ZERO.toString());
+        assertSame(Hash256.ZERO, Hash256.fromHex("0"));
+        assertEquals(Hash256.ZERO, Hash256.of(new byte[Hash256.BYTES]));
+    }
+
+    @Test
+    void testRejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> Hash256.of(new byte[Hash256.BYTES - 1]));
+        assertThrows(IllegalArgumentException.class, () -> Hash256.fromHex("abc"));
+        assertThrows(IllegalArgumentException.class, () -> Hash256.fromHex("g".repeat(2 * Hash256.BYTES)));
+        assertThrows(IllegalArgumentException.class, () -> Hash256.fromHex("é".repeat(2 * Hash256.BYTES)));
+        assertFalse(Hash256.ZERO.matches(new byte[Hash256.BYTES + 1]));
+    }
+
+    @Test
+    void testHashCodeSpreadsMinedHashes() {
+        Random random = new Random(5);
+        byte[] bytes = new byte[Hash256.BYTES];
+        Set<Integer> hashCodes = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            random.nextBytes(bytes);
+            // Blocks mined at high difficulty share their leading bytes.
+            Arrays.fill(bytes, 0, 2 * Long.BYTES, (byte) 0);
+            hashCodes.add(Hash256.of(bytes).hashCode());
+        }
+
+        assertEquals(1_000, hashCodes.size(), "Hashes with zeroed leading bytes should not collide");
+    }
+}
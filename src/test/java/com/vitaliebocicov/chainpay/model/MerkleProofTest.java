@@ -0,0 +1,87 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.security.SignatureUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerkleProofTest {
+
+    private MerkleTree tree;
+    private byte[] root;
+
+    @BeforeEach
+    void setUp() {
+        tree = new MerkleTree();
+        for (int i = 0; i < 7; i++) {
+            tree.append(leaf(i));
+        }
+        root = tree.root();
+    }
+
+    @Test
+    void testWrongLeafIsRejected() {
+        assertFalse(tree.proof(3).verify(leaf(4), root));
+    }
+
+    @Test
+    void testWrongIndexIsRejected() {
+        MerkleProof proof = tree.proof(3);
+
+        assertFalse(new MerkleProof(2, proof.treeSize(), proof.path()).verify(leaf(3), root));
+        assertFalse(new MerkleProof(7, proof.treeSize(), proof.path()).verify(leaf(3), root));
+    }
+
+    @Test
+    void testWrongTreeSizeIsRejected() {
+        MerkleProof proof = tree.proof(6);
+
+        assertFalse(new MerkleProof(6, 8, proof.path()).verify(leaf(6), root));
+    }
+
+    @Test
+    void testTamperedPathIsRejected() {
+        MerkleProof proof = tree.proof(0);
+        List<byte[]> path = new ArrayList<>(proof.path());
+        byte[] sibling = path.getFirst().clone();
+        sibling[0] ^= 1;
+        path.set(0, sibling);
+
+        assertFalse(new MerkleProof(0, proof.treeSize(), path).verify(leaf(0), root));
+        assertFalse(new MerkleProof(0, proof.treeSize(), proof.path().subList(0, 1)).verify(leaf(0), root),
+                "Truncated path should be rejected");
+    }
+
+    @Test
+    void testVerifyMessageAgainstBlockHeader() throws GeneralSecurityException {
+        KeyPair keys = new KeysGenerator().createKeyPair();
+        List<Message> messages = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Message message = new Message(i, keys.getPublic(), HashVersion.MERKLE);
+            message.setTransaction(new Transaction("miner1", "miner" + i, i));
+            message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
+            messages.add(message);
+        }
+        Block block = new Block(2, Hash256.ZERO, messages, "miner1", 0, 0, 100, HashVersion.MERKLE);
+        byte[] header = block.getHashPrefix();
+
+        MerkleProof proof = block.getInclusionProof(4);
+
+        assertNotNull(proof);
+        assertEquals(3, proof.leafIndex());
+        assertTrue(proof.verify(messages.get(3), header), "Message should be proven against the block header");
+        assertFalse(proof.verify(messages.get(2), header), "Another message should not match the proof");
+        assertNull(block.getInclusionProof(6), "Missing message should have no proof");
+    }
+
+    private static byte[] leaf(int i) {
+        return MerkleTree.leafHash(new byte[] {(byte) i});
+    }
+}
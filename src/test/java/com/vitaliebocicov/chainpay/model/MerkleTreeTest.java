@@ -0,0 +1,84 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import com.vitaliebocicov.chainpay.util.StringUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerkleTreeTest {
+
+    // Leaves and roots of the RFC 6962 reference test vectors.
+    private static final String[] LEAVES = {
+        "", "00", "10", "2021", "3031", "40414243", "5051525354555657", "606162636465666768696a6b6c6d6e6f"
+    };
+
+    @Test
+    void testEmptyTreeRoot() {
+        assertArrayEquals(HashUtil.sha256(new byte[0]), new MerkleTree().root());
+        assertEquals(0, new MerkleTree().size());
+    }
+
+    @Test
+    void testRootMatchesReferenceVectors() {
+        MerkleTree tree = new MerkleTree();
+        for (String leaf : LEAVES) {
+            tree.append(MerkleTree.leafHash(HexFormat.of().parseHex(leaf)));
+            if (tree.size() == 1) {
+                assertEquals("6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d", StringUtil.toHex(tree.root()));
+            }
+        }
+
+        assertEquals("5dc9da79a70659a9ad559cb701ded9a2ab9d823aad2f4960cfe370eff4604328", StringUtil.toHex(tree.root()));
+    }
+
+    @Test
+    void testIncrementalRootMatchesRecursiveRoot() {
+        MerkleTree tree = new MerkleTree();
+        List<byte[]> leaves = new ArrayList<>();
+        for (int size = 1; size <= 70; size++) {
+            byte[] leaf = MerkleTree.leafHash(new byte[] {(byte) size});
+            leaves.add(leaf);
+            tree.append(leaf);
+
+            assertArrayEquals(recursiveRoot(leaves), tree.root(), "Root should match for " + size + " leaves");
+        }
+    }
+
+    @Test
+    void testEveryProofVerifies() {
+        MerkleTree tree = new MerkleTree();
+        for (int size = 1; size <= 40; size++) {
+            tree.append(MerkleTree.leafHash(new byte[] {(byte) size}));
+            byte[] root = tree.root();
+            for (int index = 0; index < size; index++) {
+                MerkleProof proof = tree.proof(index);
+                byte[] leaf = MerkleTree.leafHash(new byte[] {(byte) (index + 1)});
+
+                assertTrue(proof.verify(leaf, root), "Proof for leaf " + index + " of " + size + " should verify");
+                assertTrue(proof.path().size() <= 32 - Integer.numberOfLeadingZeros(size), "Proof should be logarithmic");
+            }
+        }
+    }
+
+    @Test
+    void testProofOutsideTreeIsRejected() {
+        MerkleTree tree = new MerkleTree();
+        tree.append(MerkleTree.leafHash(new byte[] {1}));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.proof(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.proof(-1));
+    }
+
+    private static byte[] recursiveRoot(List<byte[]> leaves) {
+        if (leaves.size() == 1) {
+            return leaves.getFirst();
+        }
+        int split = Integer.highestOneBit(leaves.size() - 1);
+        return MerkleTree.nodeHash(recursiveRoot(leaves.subList(0, split)), recursiveRoot(leaves.subList(split, leaves.size())));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.nio.charset.StandardCharsets;
 import java.security.PublicKey;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -73,6 +74,20 @@ class MessageTest {
         assertTrue(message.toString().contains("Alice send 50 VC to Bob"), "toString should contain transaction text");
     }
 
+    @Test
+    void testLeafHashFollowsContent() {
+        byte[] unsigned = message.getLeafHash();
+
+        message.setSignature(new byte[]{1, 2, 3, 4});
+        byte[] signed = message.getLeafHash();
+
+        assertArrayEquals(MerkleTree.leafHash(CanonicalCodec.encode(message)), signed, "Leaf should hash the canonical encoding");
+        assertFalse(Arrays.equals(unsigned, signed), "Leaf hash should change with the signature");
+
+        message.setTransaction(new Transaction("Alice", "Bob", 50));
+        assertFalse(Arrays.equals(signed, message.getLeafHash()), "Leaf hash should change with the transaction");
+    }
+
     private PublicKey getPublicKey() {
         return new PublicKey() {
             @Override
@@ -0,0 +1,81 @@
+package com.vitaliebocicov.chainpay.model;
+
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TargetTest {
+
+    @Test
+    void testLeadingZeroesTargetMatchesNibbleCheck() {
+        Random random = new Random(7);
+        byte[] hash = new byte[Target.BYTES];
+        for (int zeroes = 0; zeroes <= 4; zeroes++) {
+            Target target = Target.ofLeadingZeroes(zeroes);
+            assertEquals(zeroes, target.leadingZeroNibbles());
+            for (int i = 0; i < 2_000; i++) {
+                random.nextBytes(hash);
+                hash[0] &= (byte) (random.nextBoolean() ? 0x0f : 0xff);
+                hash[1] &= (byte) (random.nextBoolean() ? 0x00 : 0xff);
+                assertEquals(HashUtil.hasLeadingZeroNibbles(hash, zeroes), target.isMetBy(hash),
+                        "Target and nibble check should agree for " + zeroes + " zeroes");
+            }
+        }
+    }
+
+    @Test
+    void testIsMetByComparesUnsigned() {
+        Target target = Target.of(BigInteger.ONE.shiftLeft(255));
+        byte[] hash = new byte[Target.BYTES];
+
+        hash[0] = (byte) 0x80;
+        assertTrue(target.isMetBy(hash), "A hash equal to the target meets it");
+        hash[Target.BYTES - 1] = 1;
+        assertFalse(target.isMetBy(hash), "A hash above the target does not");
+        hash[0] = 0x7f;
+        assertTrue(target.isMetBy(hash));
+    }
+
+    @Test
+    void testScaleKeepsTargetInRange() {
+        Target half = Target.MAX.scale(BigInteger.ONE, BigInteger.TWO);
+        assertEquals(Target.MAX.toBigInteger().shiftRight(1), half.toBigInteger());
+        assertEquals(Target.MAX, half.scale(BigInteger.TEN, BigInteger.ONE), "Scaling up should stop at the maximum");
+        assertEquals(BigInteger.ONE, Target.of(BigInteger.TEN).scale(BigInteger.ONE, BigInteger.valueOf(100))
+                .toBigInteger(), "Scaling down should stop at one");
+    }
+
+    @Test
+    void testBytesRoundTrip() {
+        Target target = Target.of(new BigInteger("00ffee0000000000000000000000000000000000000000000000000000001234", 16));
+        byte[] bytes = target.toBytes();
+
+        assertEquals(Target.BYTES, bytes.length);
+        assertEquals(0, bytes[0]);
+        assertEquals(target, Target.fromBytes(bytes));
+        assertEquals("00ffee0000000000000000000000000000000000000000000000000000001234", target.toString());
+        assertEquals(2, target.leadingZeroNibbles());
+    }
+
+    @Test
+    void testRejectsOutOfRangeTargets() {
+        assertThrows(IllegalArgumentException.class, () -> Target.of(BigInteger.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> Target.of(BigInteger.ONE.shiftLeft(256)));
+        assertThrows(IllegalArgumentException.class, () -> Target.fromBytes(new byte[Target.BYTES]));
+        assertThrows(IllegalArgumentException.class, () -> Target.fromBytes(new byte[31]));
+        assertThrows(IllegalArgumentException.class, () -> Target.ofLeadingZeroes(64));
+    }
+
+    @Test
+    void testMaxIsMetByEveryHash() {
+        byte[] hash = new byte[Target.BYTES];
+        Arrays.fill(hash, (byte) 0xff);
+        assertTrue(Target.MAX.isMetBy(hash));
+        assertEquals(0, Target.MAX.leadingZeroNibbles());
+    }
+}
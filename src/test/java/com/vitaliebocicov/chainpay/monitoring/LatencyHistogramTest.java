@@ -0,0 +1,84 @@
+package com.vitaliebocicov.chainpay.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testRecordPutsValuesInTheirBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram(10, 20, 40);
+
+        histogram.record(0);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(40);
+        histogram.record(41);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertArrayEquals(new long[] {2, 1, 1, 1}, snapshot.counts(), "Bounds should be inclusive upper bounds");
+        assertEquals(5, snapshot.count());
+        assertEquals(102, snapshot.sumNanos());
+        assertEquals(3, snapshot.cumulativeCount(1));
+    }
+
+    @Test
+    void testExponentialDoublesBounds() {
+        LatencyHistogram.Snapshot snapshot = LatencyHistogram.exponential(5, 4).snapshot();
+        assertArrayEquals(new long[] {5, 10, 20, 40}, snapshot.bounds());
+    }
+
+    @Test
+    void testPercentileInterpolatesInsideBucket() {
+        LatencyHistogram histogram = new LatencyHistogram(100, 200);
+        for (int i = 0; i < 50; i++) {
+            histogram.record(50);
+            histogram.record(150);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.percentile(0.5));
+        assertEquals(180, snapshot.percentile(0.9));
+        assertEquals(200, snapshot.percentile(1.0));
+    }
+
+    @Test
+    void testPercentileOfOverflowIsLastBound() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        histogram.record(5_000);
+        assertEquals(100, histogram.snapshot().percentile(0.99));
+    }
+
+    @Test
+    void testPercentileOfEmptyHistogramIsZero() {
+        assertEquals(0, new LatencyHistogram(100).snapshot().percentile(0.5));
+    }
+
+    @Test
+    void testRejectsUnsortedBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(20, 10));
+        assertThrows(IllegalArgumentException.class, LatencyHistogram::new);
+    }
+
+    @Test
+    void testConcurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = LatencyHistogram.exponential(1, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i % 300);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, histogram.snapshot().count());
+    }
+}
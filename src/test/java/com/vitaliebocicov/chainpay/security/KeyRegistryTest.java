@@ -0,0 +1,119 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.model.CanonicalCodec;
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyRegistryTest {
+
+    private final KeyRegistry registry = new KeyRegistry();
+
+    @Test
+    void testEqualKeysShareAnId() throws GeneralSecurityException {
+        PublicKey key = new KeysGenerator(SignatureScheme.ECDSA_P256).createKeyPair().getPublic();
+        PublicKey copy = KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(key.getEncoded()));
+
+        int id = registry.register(key);
+
+        assertEquals(id, registry.register(copy), "An equal key should get the same id");
+        assertSame(key, registry.getKey(id), "The first registered instance should be kept");
+        assertEquals(SignatureScheme.ECDSA_P256, registry.getScheme(id));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testDistinctKeysGetConsecutiveIds() throws GeneralSecurityException {
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ED25519);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, registry.register(generator.createKeyPair().getPublic()));
+        }
+        assertEquals(100, registry.size());
+    }
+
+    @Test
+    void testDecodeReusesRegisteredKey() throws GeneralSecurityException {
+        PublicKey key = new KeysGenerator(SignatureScheme.ED25519).createKeyPair().getPublic();
+        int id = registry.register(key);
+
+        assertEquals(id, registry.decode(key.getAlgorithm(), key.getEncoded()));
+        assertSame(key, registry.getKey(id), "Decoding a known encoding should not create another key");
+    }
+
+    @Test
+    void testDecodeRegistersNewKey() throws GeneralSecurityException {
+        PublicKey key = new KeysGenerator(SignatureScheme.RSA).createKeyPair().getPublic();
+
+        int id = registry.decode(key.getAlgorithm(), key.getEncoded());
+
+        assertEquals(key, registry.getKey(id));
+        assertEquals(id, registry.register(key));
+    }
+
+    @Test
+    void testDecodeRejectsBadKeys() {
+        assertThrows(IllegalArgumentException.class, () -> registry.decode("NoSuchAlgorithm", new byte[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> registry.decode("EC", new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    void testUnknownIdIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> registry.getKey(0));
+        assertThrows(IllegalArgumentException.class, () -> registry.getKey(KeyRegistry.NO_KEY));
+    }
+
+    @Test
+    void testDecodedMessagesShareTheirSignersKey() throws GeneralSecurityException {
+        KeyPair keys = new KeysGenerator().createKeyPair();
+        Message message = new Message(1, keys.getPublic(), HashVersion.latest());
+
+        Message first = CanonicalCodec.decodeMessage(CanonicalCodec.encode(message));
+        Message second = CanonicalCodec.decodeMessage(CanonicalCodec.encode(message));
+
+        assertEquals(message.getKeyId(), first.getKeyId());
+        assertSame(first.getPublicKey(), second.getPublicKey(), "Messages of one signer should share one key instance");
+    }
+
+    @Test
+    void testConcurrentRegistrationGivesOneIdPerKey() throws Exception {
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ECDSA_P256);
+        List<PublicKey> keys = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            keys.add(generator.createKeyPair().getPublic());
+        }
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int task = 0; task < 8; task++) {
+                results.add(executor.submit(() -> {
+                    List<Integer> ids = new ArrayList<>();
+                    for (PublicKey key : keys) {
+                        ids.add(registry.register(key));
+                    }
+                    return ids;
+                }));
+            }
+            List<Integer> expected = results.get(0).get();
+            for (Future<List<Integer>> result : results) {
+                assertEquals(expected, result.get(), "Every thread should see the same id for a key");
+            }
+            Set<Integer> distinct = new HashSet<>(expected);
+            assertEquals(keys.size(), distinct.size());
+        }
+        assertEquals(keys.size(), registry.size());
+    }
+}
@@ -4,6 +4,11 @@ import org.junit.jupiter.api.Test;
 
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,4 +53,23 @@ class KeysGeneratorTest {
             fail("NoSuchAlgorithmException should not be thrown during key pair generation");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCreateKeyPairsInParallel() throws NoSuchAlgorithmException {
+        KeysGenerator keysGenerator = new KeysGenerator(SignatureScheme.ED25519);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<KeyPair> keyPairs = keysGenerator.createKeyPairs(50, pool);
+
+            assertEquals(50, keyPairs.size(), "Every requested key pair should be generated");
+            Set<PublicKey> publicKeys = new HashSet<>();
+            for (KeyPair keyPair : keyPairs) {
+                assertEquals(SignatureScheme.ED25519, SignatureScheme.forKey(keyPair.getPublic()));
+                publicKeys.add(keyPair.getPublic());
+            }
+            assertEquals(50, publicKeys.size(), "Parallel generators should not repeat key pairs");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSignatureVerifierTest {
+
+    private static final int MESSAGES = 100;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final List<Message> messages = new ArrayList<>();
+    private KeyPair keyPair;
+
+    @BeforeEach
+    void setUp() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        keyPair = new KeysGenerator().createKeyPair();
+        for (int i = 1; i <= MESSAGES; i++) {
+            Message message = new Message(i, keyPair.getPublic());
+            message.setTransaction(new Transaction("miner1", "miner2", i));
+            message.setSignature(SignatureUtil.signMessage(message, keyPair.getPrivate()));
+            messages.add(message);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testEmptyListIsValid() {
+        assertTrue(ParallelSignatureVerifier.areSignaturesValid(List.of(), new SignatureCache(), pool));
+    }
+
+    @Test
+    void testAllValidSignatures() {
+        assertTrue(ParallelSignatureVerifier.areSignaturesValid(messages, new SignatureCache(), pool), "All signatures should be valid");
+    }
+
+    @Test
+    void testOneInvalidSignature() {
+        messages.get(MESSAGES - 7).setTransaction(new Transaction("miner1", "tampered", 1));
+
+        assertFalse(ParallelSignatureVerifier.areSignaturesValid(messages, new SignatureCache(), pool), "A tampered message should be detected");
+    }
+
+    @Test
+    void testVerificationErrorIsRethrown() {
+        Message noKey = new Message(MESSAGES + 1, null);
+        noKey.setTransaction(new Transaction("miner1", "miner2", 1));
+        noKey.setSignature(new byte[]{1});
+        messages.add(noKey);
+
+        assertThrows(RuntimeException.class, () -> ParallelSignatureVerifier.areSignaturesValid(messages, new SignatureCache(), pool));
+    }
+}
@@ -0,0 +1,100 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureCacheTest {
+
+    private KeyPair keyPair;
+
+    @BeforeEach
+    void setUp() throws NoSuchAlgorithmException {
+        keyPair = new KeysGenerator().createKeyPair();
+    }
+
+    @Test
+    void testSecondVerificationIsAHit() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        SignatureCache cache = new SignatureCache();
+        Message message = signedMessage(1);
+
+        assertTrue(cache.isSignatureValid(message));
+        assertTrue(cache.isSignatureValid(message));
+
+        assertEquals(1, cache.getMisses(), "First verification should be a miss");
+        assertEquals(1, cache.getHits(), "Second verification should be a hit");
+    }
+
+    @Test
+    void testInvalidSignatureIsNotCached() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        SignatureCache cache = new SignatureCache();
+        Message message = signedMessage(1);
+        message.setTransaction(new Transaction("tampered", "receiver", 1));
+
+        assertFalse(cache.isSignatureValid(message));
+        assertFalse(cache.isSignatureValid(message));
+
+        assertEquals(0, cache.getHits(), "Invalid signatures should never be hits");
+        assertEquals(0, cache.size(), "Invalid signatures should not be cached");
+    }
+
+    @Test
+    void testTamperedDataMisses() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        SignatureCache cache = new SignatureCache();
+        Message message = signedMessage(1);
+        assertTrue(cache.isSignatureValid(message));
+
+        message.setTransaction(new Transaction("tampered", "receiver", 1));
+
+        assertFalse(cache.isSignatureValid(message), "Changed data should not match the cached entry");
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        SignatureCache cache = new SignatureCache(2);
+        Message first = signedMessage(1);
+        Message second = signedMessage(2);
+        Message third = signedMessage(3);
+
+        cache.isSignatureValid(first);
+        cache.isSignatureValid(second);
+        cache.isSignatureValid(first);
+        cache.isSignatureValid(third);
+
+        assertEquals(2, cache.size(), "Cache should not grow beyond its capacity");
+        cache.isSignatureValid(first);
+        assertEquals(2, cache.getHits(), "Recently used entry should still be cached");
+        cache.isSignatureValid(second);
+        assertEquals(4, cache.getMisses(), "Least recently used entry should have been evicted");
+    }
+
+    @Test
+    void testUnsignedMessageIsDelegated() {
+        SignatureCache cache = new SignatureCache();
+        Message message = new Message(1, null);
+
+        assertThrows(InvalidKeyException.class, () -> cache.isSignatureValid(message));
+        assertEquals(0, cache.getHits() + cache.getMisses(), "Unsigned messages bypass the cache");
+    }
+
+    @Test
+    void testCapacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new SignatureCache(0));
+    }
+
+    private Message signedMessage(long id) throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        Message message = new Message(id, keyPair.getPublic());
+        message.setTransaction(new Transaction("sender", "receiver", 10));
+        message.setSignature(SignatureUtil.signMessage(message, keyPair.getPrivate()));
+        return message;
+    }
+}
@@ -0,0 +1,82 @@
+package com.vitaliebocicov.chainpay.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureContextsTest {
+
+    private static final byte[] DATA = "pay 10 VC".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OTHER_DATA = "pay 99 VC".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testReusedEnginesKeepVerifying() throws GeneralSecurityException {
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            KeyPair keys = new KeysGenerator(scheme).createKeyPair();
+            byte[] signature = SignatureContexts.sign(scheme, keys.getPrivate(), DATA);
+
+            for (int i = 0; i < 3; i++) {
+                assertTrue(SignatureContexts.verify(keyId(keys), DATA, signature),
+                        scheme + " signature should verify on a reused engine");
+                assertFalse(SignatureContexts.verify(keyId(keys), OTHER_DATA, signature),
+                        scheme + " signature should not verify other data on a reused engine");
+            }
+        }
+    }
+
+    @Test
+    void testPooledSignerTakesEachCallersKey() throws GeneralSecurityException {
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ECDSA_P256);
+        KeyPair first = generator.createKeyPair();
+        KeyPair second = generator.createKeyPair();
+
+        byte[] firstSignature = SignatureContexts.sign(SignatureScheme.ECDSA_P256, first.getPrivate(), DATA);
+        byte[] secondSignature = SignatureContexts.sign(SignatureScheme.ECDSA_P256, second.getPrivate(), DATA);
+
+        assertTrue(SignatureContexts.verify(keyId(first), DATA, firstSignature));
+        assertTrue(SignatureContexts.verify(keyId(second), DATA, secondSignature));
+        assertFalse(SignatureContexts.verify(keyId(first), DATA, secondSignature),
+                "A signature should only verify under the key that made it");
+    }
+
+    @Test
+    void testMalformedSignatureDoesNotPoisonTheEngine() throws GeneralSecurityException {
+        KeyPair keys = new KeysGenerator(SignatureScheme.ED25519).createKeyPair();
+        byte[] signature = SignatureContexts.sign(SignatureScheme.ED25519, keys.getPrivate(), DATA);
+
+        assertFalse(SignatureContexts.verify(keyId(keys), DATA, new byte[3]));
+        assertTrue(SignatureContexts.verify(keyId(keys), DATA, signature),
+                "A malformed signature should not affect the next verification");
+    }
+
+    @Test
+    void testVerifierIsKeptWithItsKey() throws GeneralSecurityException {
+        KeyPair keys = new KeysGenerator(SignatureScheme.ECDSA_P256).createKeyPair();
+        int keyId = keyId(keys);
+        byte[] signature = SignatureContexts.sign(SignatureScheme.ECDSA_P256, keys.getPrivate(), DATA);
+
+        assertTrue(SignatureContexts.verify(keyId, DATA, signature));
+
+        assertNotNull(SignatureContexts.verifiers(keyId).poll(),
+                "The verifier should be pooled with the key it was initialized with");
+    }
+
+    @Test
+    void testVerifierPoolsAreBounded() throws GeneralSecurityException {
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ED25519);
+        for (int i = 0; i <= SignatureContexts.KEY_CAPACITY; i++) {
+            SignatureContexts.verifiers(keyId(generator.createKeyPair()));
+
+            assertTrue(SignatureContexts.cachedKeys() <= SignatureContexts.KEY_CAPACITY,
+                    "Pools should only be kept for a bounded number of keys");
+        }
+    }
+
+    private static int keyId(KeyPair keys) {
+        return KeyRegistry.getInstance().register(keys.getPublic());
+    }
+}
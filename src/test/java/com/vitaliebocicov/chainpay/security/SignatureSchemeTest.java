@@ -0,0 +1,91 @@
+package com.vitaliebocicov.chainpay.security;
+
+import com.vitaliebocicov.chainpay.model.HashVersion;
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignatureSchemeTest {
+
+    @Test
+    void testSignedMessageVerifies() throws GeneralSecurityException {
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            KeyPair keys = new KeysGenerator(scheme).createKeyPair();
+            Message message = signedMessage(1, keys);
+
+            assertEquals(scheme, message.getSignatureScheme(), "Message should record the scheme of its key");
+            assertTrue(SignatureUtil.isSignatureValid(message), scheme + " signature should verify");
+
+            message.setTransaction(new Transaction("sender", "tampered", 10));
+            assertFalse(SignatureUtil.isSignatureValid(message), "Tampered " + scheme + " message should not verify");
+        }
+    }
+
+    @Test
+    void testForKeyMatchesGeneratedKeys() throws GeneralSecurityException {
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            KeyPair keys = new KeysGenerator(scheme).createKeyPair();
+
+            assertEquals(scheme, SignatureScheme.forKey(keys.getPublic()));
+            assertEquals(scheme, SignatureScheme.forKey(keys.getPrivate()));
+        }
+    }
+
+    @Test
+    void testMixedSchemesVerifyTogether() throws GeneralSecurityException {
+        List<Message> messages = new ArrayList<>();
+        long id = 1;
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            messages.add(signedMessage(id++, new KeysGenerator(scheme).createKeyPair()));
+        }
+
+        for (Message message : messages) {
+            assertTrue(SignatureUtil.isSignatureValid(message), "Every scheme should verify its own message");
+        }
+    }
+
+    @Test
+    void testSignatureFromAnotherSchemeIsRejected() throws GeneralSecurityException {
+        KeyPair ecdsa = new KeysGenerator(SignatureScheme.ECDSA_P256).createKeyPair();
+        KeyPair ed25519 = new KeysGenerator(SignatureScheme.ED25519).createKeyPair();
+        Message message = new Message(1, ecdsa.getPublic(), HashVersion.latest());
+        message.setTransaction(new Transaction("sender", "receiver", 10));
+
+        assertThrows(InvalidKeyException.class, () -> SignatureUtil.signMessage(message, ed25519.getPrivate()),
+                "A key of another scheme should not sign the message");
+    }
+
+    @Test
+    void testUnsupportedKeyIsRejected() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("DSA");
+        generator.initialize(1024);
+        KeyPair dsa = generator.generateKeyPair();
+
+        assertThrows(IllegalArgumentException.class, () -> SignatureScheme.forKey(dsa.getPublic()));
+        assertThrows(IllegalArgumentException.class, () -> new Message(1, dsa.getPublic()));
+    }
+
+    @Test
+    void testDefaultKeysUseDefaultScheme() throws GeneralSecurityException {
+        KeysGenerator generator = new KeysGenerator();
+
+        assertEquals(SignatureScheme.DEFAULT, generator.getScheme());
+        assertEquals(SignatureScheme.DEFAULT, SignatureScheme.forKey(generator.createKeyPair().getPublic()));
+    }
+
+    private static Message signedMessage(long id, KeyPair keys) throws GeneralSecurityException {
+        Message message = new Message(id, keys.getPublic(), HashVersion.latest());
+        message.setTransaction(new Transaction("sender", "receiver", 10));
+        message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
+        return message;
+    }
+}
@@ -0,0 +1,219 @@
+package com.vitaliebocicov.chainpay.store;
+
+import com.vitaliebocicov.chainpay.model.Block;
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.Message;
+import com.vitaliebocicov.chainpay.model.Transaction;
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.security.SignatureUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendedBlocksAreLoadedAfterReopen() throws IOException, GeneralSecurityException {
+        List<Block> blocks = blocks(5);
+        try (BlockStore store = new BlockStore(directory, Duration.ofSeconds(10))) {
+            assertTrue(store.load().isEmpty(), "New store should be empty");
+            for (Block block : blocks) {
+                store.append(block);
+            }
+        }
+
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            assertBlocksEqual(blocks, store.load());
+        }
+    }
+
+    @Test
+    void testMessagesRoundTripWithValidSignatures() throws IOException, GeneralSecurityException {
+        List<Block> blocks = blocks(1);
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            store.load();
+            store.append(blocks.getFirst());
+        }
+
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            Message message = store.load().getFirst().getMessages().getFirst();
+            assertEquals("miner0 send 1 VC to miner1", message.getText());
+            assertTrue(SignatureUtil.isSignatureValid(message), "Stored message should keep a valid signature");
+        }
+    }
+
+    @Test
+    void testTruncatedFinalRecordIsDropped() throws IOException, GeneralSecurityException {
+        List<Block> blocks = blocks(3);
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            store.load();
+            blocks.forEach(block -> append(store, block));
+        }
+        Path segment = directory.resolve(BlockStore.segmentName(0));
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            assertBlocksEqual(blocks.subList(0, 2), store.load());
+            store.append(blocks.get(2));
+        }
+
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            assertBlocksEqual(blocks, store.load());
+        }
+    }
+
+    @Test
+    void testCorruptFinalRecordIsDropped() throws IOException, GeneralSecurityException {
+        List<Block> blocks = blocks(2);
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            store.load();
+            blocks.forEach(block -> append(store, block));
+        }
+        Path segment = directory.resolve(BlockStore.segmentName(0));
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            assertBlocksEqual(blocks.subList(0, 1), store.load());
+        }
+    }
+
+    @Test
+    void testZeroFilledTailIsDropped() throws IOException, GeneralSecurityException {
+        List<Block> blocks = blocks(2);
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            store.load();
+            blocks.forEach(block -> append(store, block));
+        }
+        Path segment = directory.resolve(BlockStore.segmentName(0));
+        long size = Files.size(segment);
+        Files.write(segment, new byte[64], StandardOpenOption.APPEND);
+
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            assertBlocksEqual(blocks, store.load());
+        }
+        assertEquals(size, Files.size(segment), "Zeroes after the last record should be cut off");
+    }
+
+    @Test
+    void testUndecodableFinalRecordIsDropped() throws IOException, GeneralSecurityException {
+        List<Block> blocks = blocks(2);
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            store.load();
+            blocks.forEach(block -> append(store, block));
+        }
+        Path segment = directory.resolve(BlockStore.segmentName(0));
+        long size = Files.size(segment);
+        byte[] payload = {1, 2, 3};
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(2 * Integer.BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload);
+        Files.write(segment, record.array(), StandardOpenOption.APPEND);
+
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            assertBlocksEqual(blocks, store.load());
+        }
+        assertEquals(size, Files.size(segment));
+    }
+
+    @Test
+    void testSegmentsRollOver() throws IOException, GeneralSecurityException {
+        List<Block> blocks = blocks(10);
+        try (BlockStore store = new BlockStore(directory, Duration.ofMillis(1), 2048)) {
+            store.load();
+            blocks.forEach(block -> append(store, block));
+        }
+
+        assertTrue(Files.exists(directory.resolve(BlockStore.segmentName(1))), "Store should have rolled to a second segment");
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO, 2048)) {
+            assertBlocksEqual(blocks, store.load());
+        }
+    }
+
+    @Test
+    void testBackgroundSyncWritesWithoutClose() throws IOException, GeneralSecurityException, InterruptedException {
+        Block block = blocks(1).getFirst();
+        try (BlockStore store = new BlockStore(directory, Duration.ofMillis(10))) {
+            store.load();
+            store.append(block);
+            Path segment = directory.resolve(BlockStore.segmentName(0));
+            for (int i = 0; i < 100 && Files.size(segment) == 0; i++) {
+                Thread.sleep(10);
+            }
+            assertTrue(Files.size(segment) > 0, "Background sync should write the queued block");
+        }
+    }
+
+    @Test
+    void testAppendBeforeLoadIsRejected() throws IOException, GeneralSecurityException {
+        Block block = blocks(1).getFirst();
+        try (BlockStore store = new BlockStore(directory, Duration.ZERO)) {
+            assertThrows(IllegalStateException.class, () -> store.append(block));
+            store.load();
+            assertThrows(IllegalStateException.class, store::load);
+        }
+    }
+
+    @Test
+    void testNegativeSyncIntervalIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BlockStore(directory, Duration.ofMillis(-1)));
+    }
+
+    private static void append(BlockStore store, Block block) {
+        try {
+            store.append(block);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private static List<Block> blocks(int count) throws GeneralSecurityException {
+        KeyPair keys = new KeysGenerator().createKeyPair();
+        List<Block> blocks = new ArrayList<>();
+        Hash256 previousHash = Hash256.ZERO;
+        for (int i = 1; i <= count; i++) {
+            Message message = new Message(i, keys.getPublic());
+            message.setTransaction(new Transaction("miner" + (i - 1), "miner" + i, i));
+            message.setSignature(SignatureUtil.signMessage(message, keys.getPrivate()));
+            Block block = new Block(i, previousHash, List.of(message), "miner" + i, 0, i - 1, 100);
+            block.setMagicNumber(i * 31L);
+            block.setGenerateSeconds(i);
+            block.setNumberOfZerosStatus(i % 2 == 0 ? "N stays the same" : null);
+            blocks.add(block);
+            previousHash = block.getHashCode();
+        }
+        return blocks;
+    }
+
+    private static void assertBlocksEqual(List<Block> expected, List<Block> actual) {
+        assertEquals(expected.size(), actual.size(), "Number of loaded blocks should match");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString(), "Loaded block should match the stored one");
+            assertEquals(expected.get(i).getHashCode(), actual.get(i).getHashCode());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.vitaliebocicov.chainpay.store;
+
+import com.vitaliebocicov.chainpay.security.KeysGenerator;
+import com.vitaliebocicov.chainpay.security.SignatureScheme;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyPairStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testEmptyStoreLoadsNothing() throws IOException {
+        assertEquals(List.of(), new KeyPairStore(directory).load(SignatureScheme.DEFAULT));
+    }
+
+    @Test
+    void testKeyPairsRoundTrip() throws IOException, GeneralSecurityException {
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            KeysGenerator generator = new KeysGenerator(scheme);
+            List<KeyPair> keys = List.of(generator.createKeyPair(), generator.createKeyPair());
+
+            new KeyPairStore(directory).save(scheme, keys);
+            List<KeyPair> loaded = new KeyPairStore(directory).load(scheme);
+
+            assertEquals(keys.size(), loaded.size());
+            for (int i = 0; i < keys.size(); i++) {
+                assertEquals(keys.get(i).getPublic(), loaded.get(i).getPublic(),
+                        scheme + " public key " + i + " should be kept");
+                assertArrayEquals(keys.get(i).getPrivate().getEncoded(), loaded.get(i).getPrivate().getEncoded(),
+                        scheme + " private key " + i + " should be kept");
+            }
+        }
+    }
+
+    @Test
+    void testRestartReusesIdentities() throws IOException, GeneralSecurityException {
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ED25519);
+        List<KeyPair> first = new KeyPairStore(directory).loadOrCreate(3, generator, pool);
+
+        List<KeyPair> second = new KeyPairStore(directory).loadOrCreate(3, generator, pool);
+
+        assertEquals(publicKeys(first), publicKeys(second), "A restart should load the same identities");
+    }
+
+    @Test
+    void testMoreMinersExtendTheStoredIdentities() throws IOException, GeneralSecurityException {
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ED25519);
+        List<KeyPair> few = new KeyPairStore(directory).loadOrCreate(2, generator, pool);
+
+        List<KeyPair> more = new KeyPairStore(directory).loadOrCreate(5, generator, pool);
+        List<KeyPair> fewAgain = new KeyPairStore(directory).loadOrCreate(2, generator, pool);
+
+        assertEquals(5, more.size());
+        assertEquals(publicKeys(few), publicKeys(more.subList(0, 2)), "Existing identities should keep their order");
+        assertEquals(publicKeys(few), publicKeys(fewAgain), "Fewer miners should use the first identities");
+        assertEquals(5, new KeyPairStore(directory).load(SignatureScheme.ED25519).size(), "Unused identities should stay stored");
+    }
+
+    @Test
+    void testCorruptStoreIsNotReplaced() throws IOException, GeneralSecurityException {
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ED25519);
+        new KeyPairStore(directory).loadOrCreate(2, generator, pool);
+        Path file = directory.resolve(KeyPairStore.FILE_NAME);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        KeyPairStore store = new KeyPairStore(directory);
+        assertThrows(IOException.class, () -> store.load(SignatureScheme.ED25519));
+        assertThrows(IOException.class, () -> store.loadOrCreate(2, generator, pool));
+        assertArrayEquals(bytes, Files.readAllBytes(file), "A corrupt store should be left for inspection");
+    }
+
+    @Test
+    void testKeysOfAnotherSchemeAreNotReplaced() throws IOException, GeneralSecurityException {
+        new KeyPairStore(directory).loadOrCreate(2, new KeysGenerator(SignatureScheme.ED25519), pool);
+        Path file = directory.resolve(KeyPairStore.FILE_NAME);
+        byte[] bytes = Files.readAllBytes(file);
+
+        KeyPairStore store = new KeyPairStore(directory);
+        KeysGenerator generator = new KeysGenerator(SignatureScheme.ECDSA_P256);
+        IOException e = assertThrows(IOException.class, () -> store.loadOrCreate(2, generator, pool));
+        assertTrue(e.getMessage().contains("ED25519") && e.getMessage().contains("ECDSA_P256"), e.getMessage());
+        assertArrayEquals(bytes, Files.readAllBytes(file), "The stored identities should be kept");
+    }
+
+    @Test
+    void testSaveRejectsKeysOfAnotherScheme() throws IOException, GeneralSecurityException {
+        List<KeyPair> keys = List.of(new KeysGenerator(SignatureScheme.ED25519).createKeyPair());
+        KeyPairStore store = new KeyPairStore(directory);
+
+        assertThrows(IllegalArgumentException.class, () -> store.save(SignatureScheme.RSA, keys));
+        assertFalse(Files.exists(directory.resolve(KeyPairStore.FILE_NAME)));
+    }
+
+    @Test
+    void testStoreIsReadableByOwnerOnly() throws IOException, GeneralSecurityException {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+        new KeyPairStore(directory).save(SignatureScheme.ED25519,
+                List.of(new KeysGenerator(SignatureScheme.ED25519).createKeyPair()));
+
+        assertEquals("rw-------",
+                PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.resolve(KeyPairStore.FILE_NAME))));
+    }
+
+    private static List<?> publicKeys(List<KeyPair> keys) {
+        return keys.stream().map(KeyPair::getPublic).toList();
+    }
+}
@@ -0,0 +1,80 @@
+package com.vitaliebocicov.chainpay.store;
+
+import com.vitaliebocicov.chainpay.model.Hash256;
+import com.vitaliebocicov.chainpay.model.Target;
+import com.vitaliebocicov.chainpay.util.HashUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSnapshotRoundTrip() throws IOException {
+        LedgerSnapshot snapshot = new LedgerSnapshot(10, hash("abc"), Map.of("miner1", 300, "miner2", -20), 42, 3,
+                Target.ofLeadingZeroes(3));
+        LedgerSnapshot zeroes = new LedgerSnapshot(20, hash("def"), Map.of(), 50, 4, null);
+
+        SnapshotStore store = new SnapshotStore(directory, 10);
+        store.save(snapshot);
+        store.save(zeroes);
+
+        assertEquals(List.of(zeroes, snapshot), new SnapshotStore(directory, 10).load(), "Newest snapshot comes first");
+    }
+
+    @Test
+    void testOnlyNewestSnapshotsAreRetained() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 5);
+        for (int height = 5; height <= 25; height += 5) {
+            store.save(new LedgerSnapshot(height, hash("hash" + height), Map.of(), 0, 0, null));
+        }
+
+        List<LedgerSnapshot> snapshots = store.load();
+        assertEquals(SnapshotStore.RETAINED, snapshots.size());
+        assertEquals(25, snapshots.get(0).height());
+        assertEquals(20, snapshots.get(1).height());
+        try (var files = Files.list(directory)) {
+            assertEquals(SnapshotStore.RETAINED, files.count(), "Old and temporary files should be gone");
+        }
+    }
+
+    @Test
+    void testCorruptSnapshotIsSkipped() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 5);
+        store.save(new LedgerSnapshot(5, hash("older"), Map.of("miner1", 100), 1, 0, null));
+        store.save(new LedgerSnapshot(10, hash("newer"), Map.of("miner1", 200), 2, 0, null));
+
+        Path newest = directory.resolve(SnapshotStore.snapshotName(10));
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(newest, bytes);
+
+        List<LedgerSnapshot> snapshots = store.load();
+        assertEquals(1, snapshots.size());
+        assertEquals(hash("older"), snapshots.getFirst().blockHash());
+    }
+
+    @Test
+    void testIsDueEveryInterval() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 3);
+
+        assertFalse(store.isDue(2));
+        assertTrue(store.isDue(3));
+        assertTrue(store.isDue(6));
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotStore(directory, 0));
+    }
+
+    private static Hash256 hash(String seed) {
+        return Hash256.of(HashUtil.sha256(seed));
+    }
+}
@@ -0,0 +1,90 @@
+package com.vitaliebocicov.chainpay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContextPoolTest {
+
+    @Test
+    void testEmptyPoolHasNothingToLend() {
+        assertNull(new ContextPool<Object>().poll());
+    }
+
+    @Test
+    void testOfferedContextIsLentAgain() {
+        ContextPool<Object> pool = new ContextPool<>();
+        Object context = new Object();
+
+        pool.offer(context);
+
+        assertSame(context, pool.poll(), "The same thread should get its context back");
+        assertNull(pool.poll(), "A context should only be lent once");
+    }
+
+    @Test
+    void testCapacityIsRoundedToPowerOfTwo() {
+        assertEquals(4, new ContextPool<>(1).capacity());
+        assertEquals(8, new ContextPool<>(5).capacity());
+        assertEquals(8, new ContextPool<>(8).capacity());
+    }
+
+    @Test
+    void testFullPoolDropsOfferedContexts() {
+        ContextPool<Object> pool = new ContextPool<>(1);
+        for (int i = 0; i < 2 * pool.capacity(); i++) {
+            pool.offer(new Object());
+        }
+
+        int lent = 0;
+        while (pool.poll() != null) {
+            lent++;
+        }
+        assertEquals(pool.capacity(), lent, "The pool should keep at most one context per slot");
+    }
+
+    @Test
+    void testConcurrentBorrowersNeverShareAContext() throws Exception {
+        ContextPool<int[]> pool = new ContextPool<>(2);
+        Set<int[]> created = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int task = 0; task < 64; task++) {
+                results.add(executor.submit(() -> {
+                    boolean exclusive = true;
+                    for (int i = 0; i < 1000; i++) {
+                        int[] context = pool.poll();
+                        if (context == null) {
+                            context = new int[1];
+                            created.add(context);
+                        }
+                        context[0]++;
+                        Thread.yield();
+                        exclusive &= context[0] == 1;
+                        context[0]--;
+                        pool.offer(context);
+                    }
+                    return exclusive;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(), "A lent context should not be used by two threads at once");
+            }
+        }
+        assertFalse(created.isEmpty());
+    }
+
+    @Test
+    void testCapacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ContextPool<>(0));
+    }
+}
@@ -0,0 +1,68 @@
+package com.vitaliebocicov.chainpay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashUtilTest {
+
+    private static final int HASH_LENGTH = 32;
+    private static final int MAX_ZEROES = 2 * HASH_LENGTH;
+
+    @Test
+    void testSha256MatchesApplySha256() {
+        assertEquals(StringUtil.applySha256("test input"), StringUtil.toHex(HashUtil.sha256("test input")));
+    }
+
+    @Test
+    void testSha256OfPartsHashesTheirConcatenation() {
+        byte[] hash = HashUtil.sha256("test ".getBytes(), new byte[0], "input".getBytes());
+
+        assertArrayEquals(HashUtil.sha256("test input"), hash);
+    }
+
+    @Test
+    void testDifficultyCheckAgreesWithStringCheck() {
+        Random random = new Random(42);
+        for (int leadingZeroes = 0; leadingZeroes <= MAX_ZEROES; leadingZeroes++) {
+            for (int sample = 0; sample < 20; sample++) {
+                byte[] hash = hashWithLeadingZeroNibbles(leadingZeroes, random);
+                String hex = StringUtil.toHex(hash);
+                for (int zeroes = 0; zeroes <= MAX_ZEROES + 1; zeroes++) {
+                    assertEquals(hex.startsWith("0".repeat(zeroes)), HashUtil.hasLeadingZeroNibbles(hash, zeroes),
+                            "Checks should agree for " + hex + " and " + zeroes + " zeroes");
+                }
+                assertEquals(hex.length() - hex.replaceFirst("^0+", "").length(), HashUtil.countLeadingZeroNibbles(hash),
+                        "Leading zero count should match for " + hex);
+            }
+        }
+    }
+
+    @Test
+    void testDifficultyCheckAgreesWithStringCheckOnRealHashes() {
+        for (int i = 0; i < 10_000; i++) {
+            byte[] hash = HashUtil.sha256("block" + i);
+            String hex = StringUtil.toHex(hash);
+            for (int zeroes = 0; zeroes <= 4; zeroes++) {
+                assertEquals(hex.startsWith("0".repeat(zeroes)), HashUtil.hasLeadingZeroNibbles(hash, zeroes));
+            }
+        }
+    }
+
+    private byte[] hashWithLeadingZeroNibbles(int zeroes, Random random) {
+        byte[] hash = new byte[HASH_LENGTH];
+        random.nextBytes(hash);
+        for (int i = 0; i < zeroes; i++) {
+            int index = i / 2;
+            hash[index] = (byte) (i % 2 == 0 ? hash[index] & 0x0f : 0);
+        }
+        if (zeroes < MAX_ZEROES) {
+            int index = zeroes / 2;
+            int nonZero = 1 + random.nextInt(15);
+            hash[index] = (byte) (zeroes % 2 == 0 ? (nonZero << 4) | (hash[index] & 0x0f) : nonZero);
+        }
+        return hash;
+    }
+}
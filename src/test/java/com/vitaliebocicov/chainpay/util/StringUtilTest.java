@@ -35,6 +35,12 @@ class StringUtilTest {
         assertEquals(expectedHash, hash, "SHA-256 hash for empty string should match the expected value");
     }
 
+    @Test
+    void testToHex() {
+        assertEquals("", StringUtil.toHex(new byte[0]), "Empty input should give an empty string");
+        assertEquals("00017f80ff", StringUtil.toHex(new byte[]{0, 1, 127, -128, -1}), "Bytes should be encoded as lower-case hex");
+    }
+
     @Test
     void testApplySha256WithNullInput() {
         assertThrows(RuntimeException.class, () -> StringUtil.applySha256(null), "Expected NullPointerException for null input");
@@ -43,6 +43,8 @@ class TransactionUtilTest {
         privateKey = realKeyPair.getPrivate();
         publicKey = realKeyPair.getPublic();
 
+        when(sender.getMinerId()).thenReturn("sender");
+        lenient().when(receiver.getMinerId()).thenReturn("receiver");
         when(blockchain.getVirtualCoinsAmount(sender.getMinerId())).thenReturn(100);
     }
 